@@ -0,0 +1,73 @@
+package uce.edu.GestionFlota.Benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark del Semáforo de Mantenimiento (conteo ROJO / AMARILLO / VERDE de toda la flota).
+ * - calcularMetricas: la misma cuenta que hacía el Frontend (utils.js) carro por carro.
+ * - storedLevel:      leyendo el % de uso ya guardado en el vehículo (columna maintenance_usage).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertsBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    private List<Vehicle> vehicles;
+
+    @Setup
+    public void setUp() {
+        vehicles = FleetData.vehiclesWithIds(size);
+    }
+
+    @Benchmark
+    public int[] calcularMetricas() {
+        int[] counts = new int[3]; // ROJO, AMARILLO, VERDE
+        for (Vehicle v : vehicles) {
+            double actual = (v.getMileage() == null) ? 0 : v.getMileage();
+            double ultimo = (v.getLastMaintenanceKm() == null) ? 0 : v.getLastMaintenanceKm();
+            int intervalo = (v.getMaintenanceIntervalKm() == null || v.getMaintenanceIntervalKm() == 0)
+                    ? Vehicle.DEFAULT_INTERVAL_KM : v.getMaintenanceIntervalKm();
+            double restante = ultimo + intervalo - actual;
+            double porcentajeUso = Math.max(0, Math.min(100, (actual - ultimo) / intervalo * 100));
+
+            if (porcentajeUso >= 100 || restante <= 0) {
+                counts[0]++;
+            } else if (porcentajeUso >= 70) {
+                counts[1]++;
+            } else {
+                counts[2]++;
+            }
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public int[] storedLevel() {
+        int[] counts = new int[3];
+        for (Vehicle v : vehicles) {
+            String level = v.getMaintenanceLevel();
+            counts["ROJO".equals(level) ? 0 : "AMARILLO".equals(level) ? 1 : 2]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,101 @@
+package uce.edu.GestionFlota.Benchmark;
+
+import uce.edu.GestionFlota.Dto.MaintenanceView;
+import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datos de prueba "realistas" para los benchmarks: placas, marcas, kilometrajes
+ * variados (carros VERDE, AMARILLO y ROJO) y mantenimientos con textos de verdad.
+ * Semilla fija: todas las corridas miden exactamente los mismos datos.
+ */
+public final class FleetData {
+
+    private static final String[] BRANDS = { "HINO", "CHEVROLET", "TOYOTA", "ISUZU", "NISSAN", "MAZDA" };
+    private static final String[] MODELS = { "FC", "D-MAX", "HILUX", "NPR", "FRONTIER", "BT-50" };
+    private static final String[] TYPES = { "Preventivo", "Correctivo" };
+    private static final String[] DESCRIPTIONS = {
+            "Cambio de aceite y filtros", "Cambio de pastillas de freno delanteras",
+            "Alineación y balanceo de las 4 llantas", "Revisión del sistema eléctrico y batería",
+            "Cambio de embrague, disco y rodamiento" };
+
+    private FleetData() {
+    }
+
+    public static String plate(int index) {
+        return String.format("P%s-%04d", (char) ('A' + index / 10_000 % 26), index % 10_000);
+    }
+
+    /**
+     * Vehículos SIN id (listos para guardar), con el semáforo ya calculado.
+     */
+    public static List<Vehicle> vehicles(int count) {
+        Random random = new Random(42);
+        List<Vehicle> vehicles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double lastKm = random.nextInt(200) * 1000.0;
+            // Entre 0% y 130% del intervalo recorrido desde el último mantenimiento
+            double mileage = lastKm + random.nextInt(6500);
+            Vehicle vehicle = new Vehicle(plate(i), BRANDS[i % BRANDS.length], MODELS[i % MODELS.length],
+                    2010 + random.nextInt(16), mileage, "Available");
+            vehicle.setLastMaintenanceKm(lastKm);
+            vehicle.setCreatedAt(LocalDateTime.of(2025, 1, 1, 8, 0).plusMinutes(i));
+            vehicle.setUpdatedAt(vehicle.getCreatedAt());
+            vehicle.refreshMaintenanceSchedule();
+            vehicles.add(vehicle);
+        }
+        return vehicles;
+    }
+
+    /**
+     * Vehículos con id (como si vinieran de la BD), para serializar sin BD.
+     */
+    public static List<Vehicle> vehiclesWithIds(int count) {
+        List<Vehicle> vehicles = vehicles(count);
+        for (int i = 0; i < vehicles.size(); i++) {
+            vehicles.get(i).setId(i + 1L);
+        }
+        return vehicles;
+    }
+
+    /**
+     * 'perVehicle' mantenimientos por cada vehículo (en el último año), SIN id.
+     */
+    public static List<Maintenance> maintenances(List<Vehicle> vehicles, int perVehicle) {
+        Random random = new Random(7);
+        List<Maintenance> maintenances = new ArrayList<>(vehicles.size() * perVehicle);
+        for (Vehicle vehicle : vehicles) {
+            for (int i = 0; i < perVehicle; i++) {
+                Maintenance maintenance = new Maintenance();
+                maintenance.setVehicle(vehicle);
+                maintenance.setDate(LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365)));
+                maintenance.setType(TYPES[random.nextInt(TYPES.length)]);
+                maintenance.setCost(50.0 + random.nextInt(95_000) / 100.0);
+                maintenance.setDescription(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]);
+                maintenance.setMileageAtMaintenance(Math.max(0.0, vehicle.getMileage() - random.nextInt(20_000)));
+                maintenances.add(maintenance);
+            }
+        }
+        return maintenances;
+    }
+
+    /**
+     * Lo mismo que devuelve la API hoy: la vista liviana (DTO) de cada mantenimiento.
+     */
+    public static List<MaintenanceView> views(List<Maintenance> maintenances) {
+        List<MaintenanceView> views = new ArrayList<>(maintenances.size());
+        long id = 1;
+        for (Maintenance m : maintenances) {
+            Vehicle v = m.getVehicle();
+            views.add(new MaintenanceView(id++, m.getDate(), m.getType(), m.getCost(), m.getDescription(),
+                    m.getMileageAtMaintenance(), v.getId(), v.getLicensePlate(), v.getBrand(), v.getModel()));
+        }
+        return views;
+    }
+}
@@ -0,0 +1,71 @@
+package uce.edu.GestionFlota.Benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uce.edu.GestionFlota.Model.Vehicle;
+import uce.edu.GestionFlota.Service.VehicleSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark del buscador de vehículos (primera página de 20 resultados).
+ * - trigramIndex: VehicleSearchIndex (lo que usa GET /api/vehicles/search).
+ * - containsScan: el filtro que hacía el Frontend (Inventory.js), "contiene" carro por carro.
+ * Consultas: placa exacta, placa a medio escribir, marca y modelo con error de tipeo,
+ * y una marca sola (la más cara: ~1/6 de la flota coincide y hay que ordenarla).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({ "100000" })
+    public int size;
+
+    @Param({ "PC-1234", "pc12", "toyta hilux", "hino" })
+    public String query;
+
+    private List<Vehicle> vehicles;
+    private VehicleSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        vehicles = FleetData.vehiclesWithIds(size);
+        index = new VehicleSearchIndex();
+        index.putAll(vehicles);
+    }
+
+    @Benchmark
+    public VehicleSearchIndex.Result trigramIndex() {
+        return index.search(query, 0, 20);
+    }
+
+    @Benchmark
+    public List<Vehicle> containsScan() {
+        String term = query.toLowerCase(Locale.ROOT);
+        List<Vehicle> matches = new ArrayList<>();
+        for (Vehicle v : vehicles) {
+            if (v.getLicensePlate().toLowerCase(Locale.ROOT).contains(term)
+                    || v.getBrand().toLowerCase(Locale.ROOT).contains(term)
+                    || v.getModel().toLowerCase(Locale.ROOT).contains(term)) {
+                matches.add(v);
+            }
+        }
+        return matches.subList(0, Math.min(20, matches.size()));
+    }
+}
@@ -0,0 +1,69 @@
+package uce.edu.GestionFlota.Benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import uce.edu.GestionFlota.Dto.MaintenanceView;
+import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de Serialización JSON (Jackson, el mismo que usa Spring para las respuestas).
+ * - vehicles:         GET /api/vehicles (lista completa de la flota)
+ * - maintenances:     historial como entidad (cada fila repite el Vehicle completo)
+ * - maintenanceViews: historial como DTO liviano (lo que devuelve la API hoy)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    // Tamaños "realistas": una flota mediana, una grande y el reporte global de un año
+    @Param({ "100", "1000", "10000" })
+    public int size;
+
+    private ObjectMapper mapper;
+    private List<Vehicle> vehicles;
+    private List<Maintenance> maintenances;
+    private List<MaintenanceView> views;
+
+    @Setup
+    public void setUp() {
+        mapper = JsonMapper.builder().build();
+        vehicles = FleetData.vehiclesWithIds(size);
+        // Misma cantidad de mantenimientos que 'size', repartidos en 1/5 de los carros
+        maintenances = FleetData.maintenances(vehicles.subList(0, Math.max(1, size / 5)), 5);
+        views = FleetData.views(maintenances);
+    }
+
+    @Benchmark
+    public byte[] vehicles() {
+        return mapper.writeValueAsBytes(vehicles);
+    }
+
+    @Benchmark
+    public byte[] maintenances() {
+        return mapper.writeValueAsBytes(maintenances);
+    }
+
+    @Benchmark
+    public byte[] maintenanceViews() {
+        return mapper.writeValueAsBytes(views);
+    }
+}
@@ -0,0 +1,151 @@
+package uce.edu.GestionFlota.Benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uce.edu.GestionFlota.GestionFlotaApplication;
+import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.Vehicle;
+import uce.edu.GestionFlota.Repository.MaintenanceRepository;
+import uce.edu.GestionFlota.Repository.VehicleRepository;
+import uce.edu.GestionFlota.Service.MaintenanceService;
+import uce.edu.GestionFlota.Service.VehicleService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de los Servicios con la aplicación completa (Spring + Hibernate + Flyway)
+ * sobre una BD H2 en memoria. Mide la lógica y las consultas, NO la red ni PostgreSQL:
+ * sirve para comparar versiones del código entre sí, no para prometer tiempos de producción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    // Mantenimientos por vehículo (historial de ~2 años)
+    private static final int MAINTENANCES_PER_VEHICLE = 10;
+
+    @Param({ "1000", "5000" })
+    public int fleetSize;
+
+    private ConfigurableApplicationContext context;
+    private VehicleService vehicleService;
+    private MaintenanceService maintenanceService;
+    private List<Long> vehicleIds;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // Argumentos de línea de comandos: tienen prioridad sobre application.properties (PostgreSQL)
+        context = new SpringApplicationBuilder(GestionFlotaApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        vehicleService = context.getBean(VehicleService.class);
+        maintenanceService = context.getBean(MaintenanceService.class);
+
+        VehicleRepository vehicleRepository = context.getBean(VehicleRepository.class);
+        MaintenanceRepository maintenanceRepository = context.getBean(MaintenanceRepository.class);
+        List<Vehicle> vehicles = vehicleRepository.saveAll(FleetData.vehicles(fleetSize));
+        List<Maintenance> maintenances = FleetData.maintenances(vehicles, MAINTENANCES_PER_VEHICLE);
+        maintenanceRepository.saveAll(maintenances);
+        maintenanceService.initializeRollups(); // Acumulados de costos, como en un arranque real
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            for (Vehicle vehicle : vehicles) {
+                vehicleRepository.refreshMaintenanceSummary(vehicle.getId()); // Resumen por vehículo
+            }
+        });
+        vehicleIds = vehicles.stream().map(Vehicle::getId).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private Long randomVehicleId() {
+        return vehicleIds.get(ThreadLocalRandom.current().nextInt(vehicleIds.size()));
+    }
+
+    private String randomPlate() {
+        return FleetData.plate(ThreadLocalRandom.current().nextInt(fleetSize));
+    }
+
+    @Benchmark
+    public List<Vehicle> getAllVehicles() {
+        return vehicleService.getAllVehicles();
+    }
+
+    @Benchmark
+    public List<Vehicle> getVehiclesPage() {
+        return vehicleService.getVehiclesPage(randomVehicleId(), 50);
+    }
+
+    @Benchmark
+    public String getFleetETag() {
+        return vehicleService.getFleetETag();
+    }
+
+    @Benchmark
+    public Map<String, Object> getMaintenanceAlerts() {
+        return vehicleService.getMaintenanceAlerts(50); // Mismo límite por defecto que GET /api/vehicles/alerts
+    }
+
+    @Benchmark
+    public Optional<Vehicle> getByLicensePlate() {
+        return vehicleService.getByLicensePlate(randomPlate());
+    }
+
+    @Benchmark
+    public Object getHistoryViewsByVehicle() {
+        return maintenanceService.getHistoryViewsByVehicle(randomVehicleId());
+    }
+
+    @Benchmark
+    public Object getHistoryByPlate() {
+        return maintenanceService.getHistoryByPlate(randomPlate(), null, null, null);
+    }
+
+    @Benchmark
+    public Object getSummaryByVehicle() {
+        return maintenanceService.getSummaryByVehicle(randomVehicleId());
+    }
+
+    @Benchmark
+    public Object getAllMaintenanceViews() {
+        return maintenanceService.getAllMaintenanceViews();
+    }
+
+    @Benchmark
+    public Object getCostAnalytics() {
+        return maintenanceService.getCostAnalytics();
+    }
+}
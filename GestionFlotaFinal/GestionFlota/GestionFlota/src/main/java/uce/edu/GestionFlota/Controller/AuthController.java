@@ -2,8 +2,12 @@
 package uce.edu.GestionFlota.Controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import uce.edu.GestionFlota.Dto.AuthPrincipal;
 import uce.edu.GestionFlota.Model.User;
+import uce.edu.GestionFlota.Service.TokenService;
 import uce.edu.GestionFlota.Service.UserService;
 
 import java.util.HashMap;
@@ -30,6 +34,10 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    // Firma los tokens de sesión (ver AuthTokenFilter)
+    @Autowired
+    private TokenService tokenService;
+
     /**
      * Endpoint para iniciar sesión (Login).
      * * Método: POST
@@ -59,6 +67,10 @@ public class AuthController {
             // CRÍTICO: Enviamos el ROL ('ADMIN' o 'USER') al frontend.
             // React usará este dato para decidir si muestra los botones de editar/borrar.
             response.put("role", foundUser.getRole());
+
+            // Token de sesión firmado: React lo manda en 'Authorization: Bearer ...'
+            // y el servidor lo valida sin volver a consultar la tabla de usuarios.
+            response.put("token", tokenService.issueToken(foundUser));
         } else {
             // CASO ERROR: Usuario no encontrado o contraseña incorrecta.
             response.put("status", "error");
@@ -68,4 +80,84 @@ public class AuthController {
         // Retornamos el JSON final al navegador.
         return response;
     }
+
+    /**
+     * Token de enlace (dura segundos) para lo que el navegador abre sin poder mandar
+     * 'Authorization': el canal en vivo (EventSource) y la descarga del CSV.
+     * Se usa como '?access_token=...' (ver AuthTokenFilter). Necesita sesión.
+     * Ruta: POST /api/auth/link-token
+     */
+    @PostMapping("/link-token")
+    public ResponseEntity<Map<String, Object>> linkToken(
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthPrincipal principal) {
+        if (principal == null) {
+            return error(HttpStatus.UNAUTHORIZED, "Debe iniciar sesión.");
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "ok");
+        response.put("token", tokenService.issueLinkToken(principal));
+        response.put("expiresIn", tokenService.getLinkTtlSeconds()); // Segundos
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Cambio de contraseña (el usuario conoce la actual).
+     * Las sesiones abiertas con la contraseña anterior se cierran; se responde un token nuevo.
+     * Ruta: PUT /api/auth/password  Cuerpo: { "username", "password", "newPassword" }
+     */
+    @PutMapping("/password")
+    public Map<String, Object> changePassword(@RequestBody Map<String, String> body) {
+        User updatedUser = userService.changePassword(body.get("username"), body.get("password"),
+                body.get("newPassword"));
+
+        Map<String, Object> response = new HashMap<>();
+        if (updatedUser != null) {
+            response.put("status", "ok");
+            response.put("message", "Contraseña actualizada.");
+            response.put("role", updatedUser.getRole());
+            response.put("token", tokenService.issueToken(updatedUser));
+        } else {
+            // Mismo mensaje que el login: no decimos si el usuario existe
+            response.put("status", "error");
+            response.put("message", "Credenciales inválidas. Intente nuevamente.");
+        }
+        return response;
+    }
+
+    /**
+     * Cambio de rol de un usuario. Solo ADMIN.
+     * Las sesiones abiertas de ese usuario (con el rol anterior) se cierran.
+     * Ruta: PUT /api/auth/users/{id}/role  Cuerpo: { "role": "ADMIN" | "USER" | ... }
+     */
+    @PutMapping("/users/{id}/role")
+    public ResponseEntity<Map<String, Object>> changeRole(@PathVariable Long id, @RequestBody Map<String, String> body,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthPrincipal principal) {
+        if (principal == null) {
+            return error(HttpStatus.UNAUTHORIZED, "Debe iniciar sesión.");
+        }
+        if (!principal.isAdmin()) {
+            return error(HttpStatus.FORBIDDEN, "Solo un administrador puede cambiar roles.");
+        }
+        String role = body.get("role");
+        if (role == null || role.isBlank()) {
+            return ResponseEntity.badRequest().build(); // Devuelve Error 400 (falta el rol)
+        }
+        User updatedUser = userService.changeRole(id, role);
+        if (updatedUser == null) {
+            return ResponseEntity.notFound().build(); // Devuelve Error 404
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "ok");
+        response.put("message", "Rol actualizado: " + updatedUser.getUsername() + " ahora es " + role);
+        response.put("role", role);
+        return ResponseEntity.ok(response);
+    }
+
+    // Mismo formato de error que el login: { "status": "error", "message": "..." }
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package uce.edu.GestionFlota.Controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uce.edu.GestionFlota.Dto.AuthPrincipal;
+import uce.edu.GestionFlota.Service.TokenService;
+import uce.edu.GestionFlota.Service.UserService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Filtro de Autenticación: revisa el token de sesión ANTES de llegar a los controladores.
+ * - Token válido: deja al usuario en el request (atributo "authPrincipal"). La firma se revisa
+ *   sin tocar la BD; la versión del usuario (revocación) sale de una caché de UserService.
+ * - Token falso, vencido o revocado (cambió la contraseña o el rol): responde 401.
+ * - Sin token: pasa, salvo que 'auth.enforce=true' (entonces 401 en /api/**, menos el login).
+ * - Con 'auth.enforce=true', /actuator/** (métricas) además exige el rol ADMIN (403 si no);
+ *   solo /actuator/health queda abierto para el balanceador.
+ * El navegador no puede mandar encabezados en EventSource ni en un enlace de descarga: esas
+ * rutas (LINK_TOKEN_PATHS) aceptan además un token de enlace en '?access_token=...'
+ * (POST /api/auth/link-token, dura segundos).
+ */
+@Component
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    // Nombre del atributo del request, ej: @RequestAttribute(AuthTokenFilter.PRINCIPAL_ATTRIBUTE)
+    public static final String PRINCIPAL_ATTRIBUTE = "authPrincipal";
+
+    private static final String BEARER = "Bearer ";
+
+    // Parámetro de la URL con el token de enlace
+    public static final String LINK_TOKEN_PARAMETER = "access_token";
+
+    // Rutas (GET) que el navegador abre sin poder mandar 'Authorization'
+    private static final Set<String> LINK_TOKEN_PATHS = Set.of("/api/vehicles/events",
+            "/api/vehicles/maintenances/export");
+
+    @Autowired
+    private TokenService tokenService;
+
+    // ¿El token sigue vigente? (versión de tokens y rol del usuario)
+    @Autowired
+    private UserService userService;
+
+    // false = modo de transición: las pantallas que aún no mandan token siguen funcionando
+    @Value("${auth.enforce:false}")
+    private boolean enforce;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        // Solo se busca en LINK_TOKEN_PATHS (en un POST de formulario, getParameter leería el cuerpo)
+        String linkToken = acceptsLinkToken(request) ? request.getParameter(LINK_TOKEN_PARAMETER) : null;
+        if (header != null && header.startsWith(BEARER)) {
+            Optional<AuthPrincipal> principal = tokenService.verify(header.substring(BEARER.length()));
+            if (principal.isEmpty() || !userService.isTokenCurrent(principal.get())) {
+                reject(response, "Sesión inválida o expirada. Inicie sesión nuevamente.");
+                return;
+            }
+            request.setAttribute(PRINCIPAL_ATTRIBUTE, principal.get());
+        } else if (linkToken != null) {
+            Optional<AuthPrincipal> principal = tokenService.verifyLinkToken(linkToken);
+            if (principal.isEmpty() || !userService.isTokenCurrent(principal.get())) {
+                reject(response, "Enlace inválido o expirado. Vuelva a intentarlo.");
+                return;
+            }
+            request.setAttribute(PRINCIPAL_ATTRIBUTE, principal.get());
+        } else if (enforce && requiresLogin(request)) {
+            reject(response, "Debe iniciar sesión.");
+            return;
+        }
+        if (enforce && isProtectedActuator(request)) {
+            AuthPrincipal principal = (AuthPrincipal) request.getAttribute(PRINCIPAL_ATTRIBUTE);
+            if (principal == null) {
+                reject(response, "Debe iniciar sesión.");
+                return;
+            }
+            if (!principal.isAdmin()) {
+                reject(response, HttpServletResponse.SC_FORBIDDEN, "Solo un administrador puede ver las métricas.");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    // Todo /api/** necesita sesión, menos el login y las consultas previas de CORS (OPTIONS)
+    private boolean requiresLogin(HttpServletRequest request) {
+        String path = path(request);
+        return path.startsWith("/api/") && !path.startsWith("/api/auth/")
+                && !"OPTIONS".equalsIgnoreCase(request.getMethod());
+    }
+
+    // Métricas del Actuator (todas menos health)
+    private boolean isProtectedActuator(HttpServletRequest request) {
+        String path = path(request);
+        return (path.equals("/actuator") || path.startsWith("/actuator/"))
+                && !path.equals("/actuator/health") && !path.startsWith("/actuator/health/")
+                && !"OPTIONS".equalsIgnoreCase(request.getMethod());
+    }
+
+    // El token en la URL solo vale para leer (GET) el canal de eventos y la exportación
+    private boolean acceptsLinkToken(HttpServletRequest request) {
+        return "GET".equalsIgnoreCase(request.getMethod()) && LINK_TOKEN_PATHS.contains(path(request));
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // Mismo formato de error que el login: { "status": "error", "message": "..." }
+    private void reject(HttpServletResponse response, String message) throws IOException {
+        reject(response, HttpServletResponse.SC_UNAUTHORIZED, message);
+    }
+
+    private void reject(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"status\":\"error\",\"message\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,159 @@
+package uce.edu.GestionFlota.Controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtro "Bulkhead" (compartimento estanco): deja pasar a la vez solo tantas
+ * peticiones /api/** como conexiones tiene el pool de la BD.
+ * Con hilos virtuales pueden entrar miles de peticiones a la vez; sin este límite
+ * todas pedirían conexión a Hikari y las que esperan más de 30 s fallan con 500.
+ * Aquí esperan en fila (barato con hilos virtuales) y, si pasan 'bulkhead.max-wait-ms',
+ * se responde 503 + Retry-After para que el cliente reintente.
+ * Con 'spring.jpa.open-in-view' (por defecto en Spring Boot) cada petición usa como
+ * máximo UNA conexión, hasta que termina de escribir la respuesta.
+ */
+@Component
+public class RequestBulkheadFilter extends OncePerRequestFilter {
+
+    // Pool por defecto de Hikari, si la BD no es Hikari (o no hay BD, como en las pruebas)
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Autowired
+    private ObjectProvider<DataSource> dataSource;
+
+    // Métricas (Actuator): permisos libres, esperas y rechazos.
+    // Opcional: en las pruebas @WebMvcTest no hay Actuator y se usa el registro global.
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistries;
+
+    private MeterRegistry meterRegistry;
+
+    // Por defecto, encendido solo en modo de hilos virtuales
+    @Value("${bulkhead.enabled:${spring.threads.virtual.enabled:false}}")
+    private boolean enabled;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // 0 = automático: tamaño del pool menos 1 (reservada para la telemetría y tareas programadas)
+    @Value("${bulkhead.permits:0}")
+    private int permits;
+
+    @Value("${bulkhead.max-wait-ms:2000}")
+    private long maxWaitMs;
+
+    private Semaphore semaphore;
+
+    @PostConstruct
+    void init() {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            logger.warn("spring.threads.virtual.enabled=true necesita Java 21+; se usan hilos normales (Java "
+                    + Runtime.version().feature() + ")");
+        }
+        if (!enabled) {
+            return;
+        }
+        if (meterRegistry == null) {
+            meterRegistry = meterRegistries.getIfAvailable(() -> Metrics.globalRegistry);
+        }
+        if (permits <= 0) {
+            permits = Math.max(1, poolSize() - 1);
+        }
+        semaphore = new Semaphore(permits, true); // fair = por orden de llegada
+        meterRegistry.gauge("http.bulkhead.available", semaphore, Semaphore::availablePermits);
+        logger.info("Bulkhead activo: " + permits + " peticiones a la vez (espera máx. " + maxWaitMs + " ms)");
+    }
+
+    private int poolSize() {
+        DataSource ds = dataSource.getIfAvailable();
+        return (ds instanceof HikariDataSource hikari) ? hikari.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+    }
+
+    // Solo /api/**, menos el canal de eventos en vivo (queda abierto por horas y no usa la BD)
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return semaphore == null || !path.startsWith("/api/") || path.equals("/api/vehicles/events");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        meterRegistry.timer("http.bulkhead.wait").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            meterRegistry.counter("http.bulkhead.rejected").increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"status\":\"error\",\"message\":\"Servidor ocupado, intente de nuevo.\"}");
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Streaming (export CSV, /stream): la BD se sigue usando después de este método,
+                // el permiso se devuelve cuando termina la respuesta
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                semaphore.release();
+            }
+        }
+    }
+
+    // onComplete se llama siempre al final (también después de un error o timeout)
+    private class ReleaseOnComplete implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            semaphore.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
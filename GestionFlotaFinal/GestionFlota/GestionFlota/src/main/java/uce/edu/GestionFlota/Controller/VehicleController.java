@@ -6,14 +6,50 @@ package uce.edu.GestionFlota.Controller;
  * @author USER
  */
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import uce.edu.GestionFlota.Dto.AuthPrincipal;
+import uce.edu.GestionFlota.Dto.CostSummary;
+import uce.edu.GestionFlota.Dto.ImportResult;
+import uce.edu.GestionFlota.Dto.MaintenanceSummary;
+import uce.edu.GestionFlota.Dto.MaintenanceView;
+import uce.edu.GestionFlota.Dto.OdometerReading;
+import uce.edu.GestionFlota.Dto.VehicleFilter;
 import uce.edu.GestionFlota.Model.Maintenance;
 import uce.edu.GestionFlota.Model.Vehicle;
+import uce.edu.GestionFlota.Service.FleetEventService;
 import uce.edu.GestionFlota.Service.MaintenanceService;
+import uce.edu.GestionFlota.Service.TelemetryService;
 import uce.edu.GestionFlota.Service.VehicleService;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador de Vehículos.
@@ -34,6 +70,15 @@ public class VehicleController {
     @Autowired
     private MaintenanceService maintenanceService; // Para lógica de reparaciones
 
+    @Autowired
+    private FleetEventService fleetEventService; // Para avisar cambios en vivo (SSE)
+
+    @Autowired
+    private TelemetryService telemetryService; // Para las lecturas de odómetro de los GPS
+
+    @Autowired
+    private ObjectMapper objectMapper; // Para escribir JSON "a mano" en el streaming
+
     // ==========================================
     // 1. VEHICLE MANAGEMENT (CRUD Básico)
     // ==========================================
@@ -41,10 +86,75 @@ public class VehicleController {
     /**
      * Obtener toda la flota.
      * URL: GET /api/vehicles
+     * Con ETag: si el navegador manda 'If-None-Match' y la flota no cambió,
+     * responde 304 sin cargar ni convertir a JSON ningún vehículo.
      */
     @GetMapping
-    public List<Vehicle> getAll() {
-        return vehicleService.getAllVehicles();
+    public ResponseEntity<List<Vehicle>> getAll(WebRequest request) {
+        if (request.checkNotModified(vehicleService.getFleetETag())) {
+            return null; // Spring responde 304 Not Modified (sin cuerpo)
+        }
+        // no-cache = "guárdalo, pero pregúntame siempre si sigue vigente"
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(vehicleService.getAllVehicles());
+    }
+
+    /**
+     * Obtener la flota por páginas (cursor / keyset).
+     * URL: GET /api/vehicles/page?after={ultimoId}&size={cantidad}
+     * Respuesta: { "items": [...], "nextCursor": 123 } (nextCursor es null en la última página).
+     */
+    @GetMapping("/page")
+    public Map<String, Object> getPage(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int size) {
+        List<Vehicle> items = vehicleService.getVehiclesPage(after, size);
+
+        // Si la página vino llena, puede haber más: el cursor es el último ID entregado.
+        boolean full = !items.isEmpty() && items.size() >= Math.min(size, VehicleService.MAX_PAGE_SIZE);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", items);
+        response.put("nextCursor", full ? items.get(items.size() - 1).getId() : null);
+        return response;
+    }
+
+    /**
+     * Inventario con filtros, orden y páginas calculados en la BD, más los conteos por estado y marca.
+     * URL: GET /api/vehicles/query?status=Available&brand=HINO&yearFrom=2018&yearTo=2024
+     *          &minMileage=0&maxMileage=150000&sort=mileage,desc&page=0&size=50
+     * (todos los filtros son opcionales; sort = campo,asc|desc)
+     * Respuesta: { "items", "total", "page", "size", "facets": { "status": {...}, "brand": {...} } }
+     */
+    @GetMapping("/query")
+    public ResponseEntity<Map<String, Object>> query(VehicleFilter filter,
+            @RequestParam(defaultValue = "licensePlate,asc") String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        String[] parts = sort.split(",");
+        String direction = (parts.length > 1) ? parts[1].trim().toLowerCase() : "asc";
+        if (!filter.isValid() || !VehicleService.SORT_FIELDS.contains(parts[0].trim())
+                || !(direction.equals("asc") || direction.equals("desc"))) {
+            return ResponseEntity.badRequest().build(); // Devuelve Error 400 (rango al revés u orden desconocido)
+        }
+        Sort order = Sort.by(Sort.Direction.fromString(direction), parts[0].trim());
+        return ResponseEntity.ok(vehicleService.queryVehicles(filter, order, page, size));
+    }
+
+    /**
+     * Obtener toda la flota en modo streaming.
+     * URL: GET /api/vehicles/stream
+     * Devuelve el mismo arreglo JSON que GET /api/vehicles, pero cada vehículo se
+     * escribe en la respuesta apenas sale de la BD (la memoria no crece con la flota).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                vehicleService.streamAllVehicles(generator::writePOJO);
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
@@ -56,24 +166,183 @@ public class VehicleController {
         return vehicleService.saveVehicle(vehicle);
     }
 
+    /**
+     * Carga Masiva de vehículos (arreglo JSON).
+     * URL: POST /api/vehicles/bulk   (Content-Type: application/json)  (solo ADMIN)
+     * Body: [ {"licensePlate":"ABC-1234", "brand":"HINO", ...}, ... ]
+     * Respuesta: { "created": 10, "errors": 2, "results": [ {row, licensePlate, status, id, message} ] }
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> bulkImport(@RequestBody List<Vehicle> vehicles,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthPrincipal principal) {
+        if (!isAdmin(principal)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Devuelve Error 403 (solo ADMIN)
+        }
+        List<ImportResult> results = new ArrayList<>();
+        Map<Integer, Vehicle> chunk = new LinkedHashMap<>();
+        int row = 0;
+        for (Vehicle vehicle : vehicles) {
+            chunk.put(++row, vehicle);
+            if (chunk.size() == VehicleService.IMPORT_CHUNK_SIZE) {
+                results.addAll(vehicleService.importVehicles(chunk));
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(vehicleService.importVehicles(chunk));
+        }
+        return ResponseEntity.ok(importResponse(results));
+    }
+
+    /**
+     * Carga Masiva de vehículos (NDJSON: un vehículo JSON por línea).
+     * URL: POST /api/vehicles/bulk   (Content-Type: application/x-ndjson)  (solo ADMIN)
+     * Se lee línea por línea y se guarda por bloques, así un archivo enorme
+     * nunca se carga completo en memoria.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Map<String, Object>> bulkImportNdjson(InputStream body,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthPrincipal principal) throws IOException {
+        if (!isAdmin(principal)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Antes de leer el archivo
+        }
+        List<ImportResult> results = new ArrayList<>();
+        Map<Integer, Vehicle> chunk = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.put(row, objectMapper.readValue(line, Vehicle.class));
+            } catch (JacksonException e) {
+                results.add(ImportResult.error(row, null, "JSON inválido"));
+                continue;
+            }
+            if (chunk.size() == VehicleService.IMPORT_CHUNK_SIZE) {
+                results.addAll(vehicleService.importVehicles(chunk));
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(vehicleService.importVehicles(chunk));
+        }
+        results.sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+        return ResponseEntity.ok(importResponse(results));
+    }
+
+    // Borrar, dar de baja e importar es solo para ADMIN (el filtro ya validó el token).
+    // Sin token solo se llega aquí con 'auth.enforce=false' (modo de transición): se permite como antes.
+    private static boolean isAdmin(AuthPrincipal principal) {
+        return principal == null || principal.isAdmin();
+    }
+
+    // Arma la respuesta de la carga masiva con los totales y el detalle por fila.
+    private Map<String, Object> importResponse(List<ImportResult> results) {
+        long created = results.stream().filter(r -> ImportResult.CREATED.equals(r.getStatus())).count();
+        Map<String, Object> response = new HashMap<>();
+        response.put("created", created);
+        response.put("errors", results.size() - created);
+        response.put("results", results);
+        return response;
+    }
+
     /**
      * Eliminar un vehículo por su ID.
-     * URL: DELETE /api/vehicles/{id}
+     * URL: DELETE /api/vehicles/{id}  (solo ADMIN)
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        // Primero verificamos si existe para no intentar borrar un fantasma
-        if (!vehicleService.existsById(id)) {
+    public ResponseEntity<Void> delete(@PathVariable Long id, @RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthPrincipal principal) {
+        if (!isAdmin(principal)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Devuelve Error 403 (solo ADMIN)
+        }
+        // El DELETE dice cuántas filas borró: si fue 0, el vehículo no existía (sin consulta extra)
+        if (!vehicleService.deleteVehicle(id)) {
             return ResponseEntity.notFound().build(); // Devuelve Error 404
         }
-        vehicleService.deleteVehicle(id);
         return ResponseEntity.ok().build(); // Devuelve Éxito 200
     }
 
+    /**
+     * Baja Masiva: elimina varios vehículos (y su historial) en una sola transacción.
+     * URL: POST /api/vehicles/retire  (solo ADMIN)
+     * Body: [ 12, 15, 40, ... ]   (máximo VehicleService.MAX_RETIRE_SIZE IDs)
+     * Respuesta: { "requested": 3, "retired": 2 }  (los IDs que no existen se ignoran)
+     */
+    @PostMapping("/retire")
+    public ResponseEntity<Map<String, Object>> retire(@RequestBody List<Long> ids, @RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthPrincipal principal) {
+        if (!isAdmin(principal)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Devuelve Error 403 (solo ADMIN)
+        }
+        if (ids.isEmpty() || ids.size() > VehicleService.MAX_RETIRE_SIZE || ids.contains(null)) {
+            return ResponseEntity.badRequest().build(); // Devuelve Error 400
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("requested", ids.size());
+        response.put("retired", vehicleService.retireVehicles(ids));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Cambios en vivo: el navegador se queda conectado y recibe un evento pequeño
+     * cada vez que se guarda/borra un vehículo o se registra un mantenimiento.
+     * Eventos: vehicle.saved, vehicle.deleted, vehicles.imported, maintenance.saved
+     * URL: GET /api/vehicles/events (usar con EventSource en el Frontend)
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents() {
+        return fleetEventService.subscribe();
+    }
+
+    /**
+     * Telemetría: los rastreadores GPS reportan el odómetro (uno o varios carros por llamada).
+     * No espera a la BD: las lecturas se acumulan y se guardan en lote cada pocos segundos.
+     * URL: POST /api/vehicles/telemetry   Body: [{ "vehicleId": 5, "mileage": 15230.4 }, ...]
+     */
+    @PostMapping("/telemetry")
+    public ResponseEntity<Map<String, Object>> ingestTelemetry(@RequestBody List<OdometerReading> readings) {
+        int accepted = telemetryService.ingest(readings);
+        Map<String, Object> response = new HashMap<>();
+        response.put("accepted", accepted);
+        response.put("rejected", readings.size() - accepted);
+        // 503 si la cola está llena: el GPS debe reintentar más tarde
+        if (accepted < readings.size() && telemetryService.isFull()) {
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "5").body(response);
+        }
+        return ResponseEntity.accepted().body(response); // 202 = "Recibido, se guardará en el próximo lote"
+    }
+
+    /**
+     * Centro de Alertas: vehículos con mantenimiento vencido o próximo + conteo por nivel.
+     * URL: GET /api/vehicles/alerts?limit=50
+     */
+    @GetMapping("/alerts")
+    public Map<String, Object> getMaintenanceAlerts(@RequestParam(defaultValue = "50") int limit) {
+        return vehicleService.getMaintenanceAlerts(limit);
+    }
+
     // ==========================================
     // 2. SEARCH (Buscador)
     // ==========================================
 
+    /**
+     * Buscador aproximado por placa, marca o modelo (tolera errores y texto a medio escribir).
+     * URL: GET /api/vehicles/search?q=hino fc&page=0&size=20
+     * Respuesta: { "items": [...más parecidos primero...], "total", "page", "size" }
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> search(@RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().build(); // Devuelve Error 400 (falta el texto a buscar)
+        }
+        return ResponseEntity.ok(vehicleService.searchVehicles(q, page, size));
+    }
+
     /**
      * Buscar un carro específico por su placa.
      * URL: GET /api/vehicles/search/{licensePlate}
@@ -86,6 +355,21 @@ public class VehicleController {
                 .orElse(ResponseEntity.notFound().build()); // Si no, devuelve 404 Not Found
     }
 
+    /**
+     * Buscar por placa Y traer su historial en una sola llamada (una sola consulta a la BD).
+     * URL: GET /api/vehicles/search/{licensePlate}/history?from=2026-01-01&to=2026-03-31&limit=50
+     * (from, to y limit son opcionales)
+     */
+    @GetMapping("/search/{licensePlate}/history")
+    public ResponseEntity<Map<String, Object>> searchHistoryByPlate(@PathVariable String licensePlate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit) {
+        return maintenanceService.getHistoryByPlate(licensePlate, from, to, limit)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     // ==========================================
     // 3. MAINTENANCE HISTORY (Historial)
     // ==========================================
@@ -102,10 +386,41 @@ public class VehicleController {
     /**
      * Mira la Hoja de Vida (historial) de un solo vehículo.
      * URL: GET /api/vehicles/{id}/history
+     * Con ETag igual que la flota: 304 si no hubo mantenimientos nuevos ni cambios.
      */
     @GetMapping("/{id}/history")
-    public List<Maintenance> getHistory(@PathVariable Long id) {
-        return maintenanceService.getHistoryByVehicle(id);
+    public ResponseEntity<List<MaintenanceView>> getHistory(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(maintenanceService.getHistoryETag(id))) {
+            return null; // 304: el historial no cambió
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                .body(maintenanceService.getHistoryViewsByVehicle(id));
+    }
+
+    /**
+     * Resumen del historial de un vehículo (total, preventivos, correctivos, costo, último).
+     * Lee 1 fila: sirve para las pantallas que solo muestran cuántos mantenimientos hay.
+     * URL: GET /api/vehicles/{id}/summary
+     */
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<MaintenanceSummary> getSummary(@PathVariable Long id) {
+        return maintenanceService.getSummaryByVehicle(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Eliminar un mantenimiento (se descuenta de los acumulados y del resumen del vehículo).
+     * URL: DELETE /api/vehicles/maintenances/{id}  (solo ADMIN)
+     */
+    @DeleteMapping("/maintenances/{id}")
+    public ResponseEntity<Void> deleteMaintenance(@PathVariable Long id, @RequestAttribute(name = AuthTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) AuthPrincipal principal) {
+        if (!isAdmin(principal)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Devuelve Error 403 (solo ADMIN)
+        }
+        return maintenanceService.deleteMaintenance(id)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 
     /**
@@ -113,7 +428,63 @@ public class VehicleController {
      * URL: GET /api/vehicles/maintenances/all
      */
     @GetMapping("/maintenances/all")
-    public List<Maintenance> getAllMaintenances() {
-        return maintenanceService.getAllMaintenances();
+    public List<MaintenanceView> getAllMaintenances() {
+        return maintenanceService.getAllMaintenanceViews();
+    }
+
+    /**
+     * Reporte por rango de fechas con subtotales por tipo y por vehículo (reemplaza descargar
+     * todo el historial y filtrar por mes en el navegador).
+     * URL: GET /api/vehicles/maintenances/report?from=2026-03-01&to=2026-03-31&type=Preventivo&vehicleId=5
+     * (from y to obligatorios, máximo un año; type y vehicleId opcionales)
+     */
+    @GetMapping("/maintenances/report")
+    public ResponseEntity<Map<String, Object>> getMaintenanceReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Long vehicleId) {
+        if (from.isAfter(to) || from.plusDays(MaintenanceService.MAX_REPORT_DAYS).isBefore(to)) {
+            return ResponseEntity.badRequest().build(); // Devuelve Error 400 (rango al revés o de más de un año)
+        }
+        String typeFilter = (type == null || type.isBlank()) ? null : type;
+        return ResponseEntity.ok(maintenanceService.getMaintenanceReport(from, to, typeFilter, vehicleId));
+    }
+
+    /**
+     * Analítica de Gastos: totales, cantidad, mayor gasto y vehículo top por mes y por tipo.
+     * Lee los acumulados ya calculados (no descarga el historial completo).
+     * URL: GET /api/vehicles/maintenances/analytics
+     */
+    @GetMapping("/maintenances/analytics")
+    public Map<String, List<CostSummary>> getMaintenanceAnalytics() {
+        return maintenanceService.getCostAnalytics();
+    }
+
+    /**
+     * Exportar el historial de mantenimientos a CSV (se abre directo en Excel).
+     * El archivo se genera en el servidor y se envía por partes (streaming),
+     * así el navegador no tiene que armar el Excel con todo el historial.
+     * URL: GET /api/vehicles/maintenances/export?month=2026-03&vehicleId=5 (ambos opcionales)
+     */
+    @GetMapping("/maintenances/export")
+    public ResponseEntity<StreamingResponseBody> exportMaintenances(@RequestParam(required = false) String month,
+            @RequestParam(required = false) Long vehicleId) {
+        YearMonth period;
+        try {
+            period = (month == null || month.isBlank()) ? null : YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build(); // Devuelve Error 400 (formato esperado: AAAA-MM)
+        }
+
+        String fileName = "Reporte_" + (period == null ? "Completo" : period) + ".csv";
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            maintenanceService.exportMaintenancesCsv(period, vehicleId, writer);
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
     }
 }
@@ -0,0 +1,24 @@
+package uce.edu.GestionFlota.Dto;
+
+/**
+ * Una fila del conteo agrupado del semáforo: cuántos vehículos hay en este nivel
+ * (ROJO, AMARILLO o VERDE). Los tres conteos salen de una sola consulta GROUP BY.
+ */
+public class AlertCount {
+
+    private final String level;
+    private final long count;
+
+    public AlertCount(String level, Long count) {
+        this.level = level;
+        this.count = (count == null) ? 0 : count;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
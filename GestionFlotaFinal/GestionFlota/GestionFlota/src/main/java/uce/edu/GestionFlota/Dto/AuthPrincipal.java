@@ -0,0 +1,52 @@
+package uce.edu.GestionFlota.Dto;
+
+/**
+ * Usuario autenticado, tal como viene dentro del token firmado.
+ * El filtro lo deja en el request (atributo "authPrincipal"), así ningún
+ * controlador necesita volver a consultar la tabla 'users'.
+ */
+public class AuthPrincipal {
+
+    private final Long userId;
+    private final String username;
+    private final String role; // "ADMIN", "USER", ...
+    private final long expiresAt; // Segundos desde 1970 (epoch) en que vence el token
+    private final int tokenVersion; // users.token_version al firmar (si cambió, el token ya no vale)
+
+    public AuthPrincipal(Long userId, String username, String role, long expiresAt, int tokenVersion) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.expiresAt = expiresAt;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    // Solo el administrador puede borrar, dar de baja e importar vehículos
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+
+    public boolean isExpired(long nowEpochSeconds) {
+        return nowEpochSeconds >= expiresAt;
+    }
+}
@@ -0,0 +1,30 @@
+package uce.edu.GestionFlota.Dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Proyección con la "huella" de una lista (COUNT / MAX(id) / MAX(updatedAt)),
+ * calculada directamente en la BD sin cargar las filas.
+ * - Un registro nuevo cambia el conteo y el ID máximo.
+ * - Un registro editado cambia la última fecha de modificación.
+ * - Un registro borrado cambia el conteo.
+ */
+public interface CollectionVersion {
+
+    Long getCount();
+
+    Long getMaxId();
+
+    LocalDateTime getLastUpdate();
+
+    /**
+     * ETag para HTTP: si la huella no cambió, la respuesta tampoco.
+     */
+    default String toETag() {
+        LocalDateTime lastUpdate = getLastUpdate();
+        long micros = (lastUpdate == null) ? 0
+                : lastUpdate.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + lastUpdate.getNano() / 1_000;
+        return "\"" + getCount() + "-" + (getMaxId() == null ? 0 : getMaxId()) + "-" + Long.toHexString(micros) + "\"";
+    }
+}
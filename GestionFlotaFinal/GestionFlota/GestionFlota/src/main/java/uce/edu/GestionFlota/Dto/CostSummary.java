@@ -0,0 +1,60 @@
+package uce.edu.GestionFlota.Dto;
+
+/**
+ * Resumen de costos de mantenimiento para un grupo (un mes o un tipo).
+ * Es lo que consume el Dashboard en lugar de la lista completa de mantenimientos.
+ */
+public class CostSummary {
+
+    private String key; // "2026-10" si es por mes, "Preventivo" si es por tipo
+    private double totalCost;
+    private long count;
+    private double maxCost;
+    private Long topVehicleId; // Vehículo con el mantenimiento más caro del grupo
+    private String topVehiclePlate;
+
+    public CostSummary(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Combina otro acumulado dentro de este (Ej: Preventivo + Correctivo = total del mes).
+     */
+    public void merge(double totalCost, long count, double maxCost, Long topVehicleId, String topVehiclePlate) {
+        if (this.count == 0 || maxCost > this.maxCost) {
+            this.maxCost = maxCost;
+            this.topVehicleId = topVehicleId;
+            this.topVehiclePlate = topVehiclePlate;
+        }
+        this.totalCost += totalCost;
+        this.count += count;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMaxCost() {
+        return maxCost;
+    }
+
+    public Long getTopVehicleId() {
+        return topVehicleId;
+    }
+
+    public String getTopVehiclePlate() {
+        return topVehiclePlate;
+    }
+
+    public double getAverageCost() {
+        return count > 0 ? totalCost / count : 0;
+    }
+}
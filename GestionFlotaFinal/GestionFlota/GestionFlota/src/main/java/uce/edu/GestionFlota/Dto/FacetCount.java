@@ -0,0 +1,30 @@
+package uce.edu.GestionFlota.Dto;
+
+/**
+ * Una fila del conteo agrupado de la flota: cuántos vehículos hay con este estado Y esta marca.
+ * Con estas filas (una sola consulta GROUP BY) se arman los conteos por estado, por marca y el total.
+ */
+public class FacetCount {
+
+    private final String status;
+    private final String brand;
+    private final long count;
+
+    public FacetCount(String status, String brand, Long count) {
+        this.status = status;
+        this.brand = brand;
+        this.count = (count == null) ? 0 : count;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,41 @@
+package uce.edu.GestionFlota.Dto;
+
+/**
+ * Aviso de que algo cambió en la flota (se envía a los navegadores por SSE).
+ * Es chiquito a propósito: el Frontend actualiza solo esa fila en vez de
+ * volver a descargar toda la lista de vehículos.
+ * Ejemplo: { "type": "vehicle.saved", "vehicleId": 5, "data": {...VehicleChange...} }
+ * Nunca lleva entidades completas: 'data' es un DTO chiquito (VehicleChange,
+ * MaintenanceChange), un número o una lista de IDs.
+ */
+public class FleetEvent {
+
+    public static final String VEHICLE_SAVED = "vehicle.saved";
+    public static final String VEHICLE_DELETED = "vehicle.deleted";
+    public static final String VEHICLES_IMPORTED = "vehicles.imported";
+    public static final String VEHICLES_RETIRED = "vehicles.retired"; // data = IDs dados de baja
+    public static final String MAINTENANCE_SAVED = "maintenance.saved";
+    public static final String MAINTENANCE_DELETED = "maintenance.deleted";
+
+    private String type;
+    private Long vehicleId;
+    private Object data; // VehicleChange / MaintenanceChange del guardado (null en borrados)
+
+    public FleetEvent(String type, Long vehicleId, Object data) {
+        this.type = type;
+        this.vehicleId = vehicleId;
+        this.data = data;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public Object getData() {
+        return data;
+    }
+}
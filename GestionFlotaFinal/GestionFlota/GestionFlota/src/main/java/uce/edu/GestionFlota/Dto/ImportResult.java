@@ -0,0 +1,53 @@
+package uce.edu.GestionFlota.Dto;
+
+/**
+ * Resultado de UNA fila de la carga masiva de vehículos.
+ * Así el Frontend sabe exactamente qué filas entraron y cuáles no (y por qué).
+ */
+public class ImportResult {
+
+    public static final String CREATED = "created";
+    public static final String ERROR = "error";
+
+    private int row; // Posición en el archivo/arreglo enviado (empieza en 1)
+    private String licensePlate;
+    private String status; // "created" o "error"
+    private Long id; // ID asignado (solo si se creó)
+    private String message; // Motivo del error (solo si falló)
+
+    public ImportResult(int row, String licensePlate, String status, Long id, String message) {
+        this.row = row;
+        this.licensePlate = licensePlate;
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    public static ImportResult created(int row, String licensePlate, Long id) {
+        return new ImportResult(row, licensePlate, CREATED, id, null);
+    }
+
+    public static ImportResult error(int row, String licensePlate, String message) {
+        return new ImportResult(row, licensePlate, ERROR, null, message);
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,41 @@
+package uce.edu.GestionFlota.Dto;
+
+import uce.edu.GestionFlota.Model.Maintenance;
+
+import java.time.LocalDate;
+
+/**
+ * Datos de un mantenimiento que viajan en el aviso "maintenance.saved" (SSE).
+ * Solo IDs y los campos que cambian los totales (fecha, tipo, costo): la pantalla
+ * que necesite el detalle lo pide a la API. El vehículo va en FleetEvent.vehicleId.
+ */
+public class MaintenanceChange {
+
+    private Long id;
+    private LocalDate date;
+    private String type;
+    private Double cost;
+
+    public MaintenanceChange(Maintenance maintenance) {
+        this.id = maintenance.getId();
+        this.date = maintenance.getDate();
+        this.type = maintenance.getType();
+        this.cost = maintenance.getCost();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Double getCost() {
+        return cost;
+    }
+}
@@ -0,0 +1,58 @@
+package uce.edu.GestionFlota.Dto;
+
+import java.time.LocalDate;
+
+/**
+ * Resumen de mantenimientos de un vehículo (1 fila, sin leer el historial).
+ * Se arma en el SELECT con las columnas de resumen de 'vehicles'.
+ */
+public class MaintenanceSummary {
+
+    private Long vehicleId;
+    private String licensePlate;
+    private long total;
+    private long preventive;
+    private long corrective;
+    private double totalCost;
+    private LocalDate lastMaintenanceDate; // null = nunca tuvo mantenimientos
+
+    public MaintenanceSummary(Long vehicleId, String licensePlate, Integer total, Integer preventive,
+            Integer corrective, Double totalCost, LocalDate lastMaintenanceDate) {
+        this.vehicleId = vehicleId;
+        this.licensePlate = licensePlate;
+        // null = carro de una BD anterior que aún no pasó por la carga inicial
+        this.total = (total == null) ? 0 : total;
+        this.preventive = (preventive == null) ? 0 : preventive;
+        this.corrective = (corrective == null) ? 0 : corrective;
+        this.totalCost = (totalCost == null) ? 0.0 : totalCost;
+        this.lastMaintenanceDate = lastMaintenanceDate;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getPreventive() {
+        return preventive;
+    }
+
+    public long getCorrective() {
+        return corrective;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public LocalDate getLastMaintenanceDate() {
+        return lastMaintenanceDate;
+    }
+}
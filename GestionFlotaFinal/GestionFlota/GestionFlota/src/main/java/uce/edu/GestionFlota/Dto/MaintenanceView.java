@@ -0,0 +1,93 @@
+package uce.edu.GestionFlota.Dto;
+
+import java.time.LocalDate;
+
+/**
+ * Vista "liviana" de un mantenimiento para los listados e historiales.
+ * En vez de mandar el Vehicle completo en cada fila, solo manda lo que la
+ * pantalla muestra (placa, marca, modelo). Se arma directamente en el SELECT,
+ * sin cargar entidades en Hibernate.
+ */
+public class MaintenanceView {
+
+    private Long id;
+    private LocalDate date;
+    private String type;
+    private Double cost;
+    private String description;
+    private Double mileageAtMaintenance;
+    private VehicleRef vehicle; // Mismo nombre que en la entidad, para que el Frontend no cambie
+
+    public MaintenanceView(Long id, LocalDate date, String type, Double cost, String description,
+            Double mileageAtMaintenance, Long vehicleId, String licensePlate, String brand, String model) {
+        this.id = id;
+        this.date = date;
+        this.type = type;
+        this.cost = cost;
+        this.description = description;
+        this.mileageAtMaintenance = mileageAtMaintenance;
+        this.vehicle = (vehicleId == null) ? null : new VehicleRef(vehicleId, licensePlate, brand, model);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Double getCost() {
+        return cost;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Double getMileageAtMaintenance() {
+        return mileageAtMaintenance;
+    }
+
+    public VehicleRef getVehicle() {
+        return vehicle;
+    }
+
+    /**
+     * Datos mínimos del vehículo dueño del mantenimiento.
+     */
+    public static class VehicleRef {
+
+        private Long id;
+        private String licensePlate;
+        private String brand;
+        private String model;
+
+        public VehicleRef(Long id, String licensePlate, String brand, String model) {
+            this.id = id;
+            this.licensePlate = licensePlate;
+            this.brand = brand;
+            this.model = model;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getLicensePlate() {
+            return licensePlate;
+        }
+
+        public String getBrand() {
+            return brand;
+        }
+
+        public String getModel() {
+            return model;
+        }
+    }
+}
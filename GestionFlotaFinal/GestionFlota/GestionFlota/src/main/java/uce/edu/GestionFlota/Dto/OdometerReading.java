@@ -0,0 +1,35 @@
+package uce.edu.GestionFlota.Dto;
+
+/**
+ * Una lectura de odómetro enviada por el rastreador GPS de un vehículo.
+ * Ejemplo JSON: { "vehicleId": 5, "mileage": 15230.4 }
+ */
+public class OdometerReading {
+
+    private Long vehicleId;
+    private Double mileage; // Kilometraje total que marca el odómetro
+
+    public OdometerReading() {
+    }
+
+    public OdometerReading(Long vehicleId, Double mileage) {
+        this.vehicleId = vehicleId;
+        this.mileage = mileage;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public void setVehicleId(Long vehicleId) {
+        this.vehicleId = vehicleId;
+    }
+
+    public Double getMileage() {
+        return mileage;
+    }
+
+    public void setMileage(Double mileage) {
+        this.mileage = mileage;
+    }
+}
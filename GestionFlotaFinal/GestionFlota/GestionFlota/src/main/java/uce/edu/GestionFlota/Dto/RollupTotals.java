@@ -0,0 +1,14 @@
+package uce.edu.GestionFlota.Dto;
+
+/**
+ * Proyección con los totales de un grupo mes + tipo, calculados directamente
+ * en la BD (COUNT / SUM / MAX). Se usa para reconstruir un acumulado.
+ */
+public interface RollupTotals {
+
+    Long getCount();
+
+    Double getTotalCost();
+
+    Double getMaxCost();
+}
@@ -0,0 +1,76 @@
+package uce.edu.GestionFlota.Dto;
+
+import uce.edu.GestionFlota.Model.Vehicle;
+
+/**
+ * Vista "liviana" de un vehículo para el Centro de Alertas.
+ * Solo trae lo que pinta la tarjeta de alerta (placa, marca, modelo y el avance
+ * del mantenimiento), no el Vehicle completo. Se arma directamente en el SELECT.
+ */
+public class VehicleAlert {
+
+    private final Long id;
+    private final String licensePlate;
+    private final String brand;
+    private final String model;
+    private final Double mileage;
+    private final Double lastMaintenanceKm;
+    private final Integer maintenanceIntervalKm;
+    private final Double nextMaintenanceKm;
+    private final Double maintenanceUsage;
+
+    public VehicleAlert(Long id, String licensePlate, String brand, String model, Double mileage,
+            Double lastMaintenanceKm, Integer maintenanceIntervalKm, Double nextMaintenanceKm,
+            Double maintenanceUsage) {
+        this.id = id;
+        this.licensePlate = licensePlate;
+        this.brand = brand;
+        this.model = model;
+        this.mileage = mileage;
+        this.lastMaintenanceKm = lastMaintenanceKm;
+        this.maintenanceIntervalKm = maintenanceIntervalKm;
+        this.nextMaintenanceKm = nextMaintenanceKm;
+        this.maintenanceUsage = maintenanceUsage;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public Double getMileage() {
+        return mileage;
+    }
+
+    public Double getLastMaintenanceKm() {
+        return lastMaintenanceKm;
+    }
+
+    public Integer getMaintenanceIntervalKm() {
+        return maintenanceIntervalKm;
+    }
+
+    public Double getNextMaintenanceKm() {
+        return nextMaintenanceKm;
+    }
+
+    public Double getMaintenanceUsage() {
+        return maintenanceUsage;
+    }
+
+    // ROJO o AMARILLO, con la misma regla que Vehicle.getMaintenanceLevel
+    public String getMaintenanceLevel() {
+        return Vehicle.levelOf(maintenanceUsage);
+    }
+}
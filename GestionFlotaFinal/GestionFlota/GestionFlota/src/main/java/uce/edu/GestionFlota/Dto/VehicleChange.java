@@ -0,0 +1,89 @@
+package uce.edu.GestionFlota.Dto;
+
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.time.LocalDateTime;
+
+/**
+ * Datos de un vehículo que viajan en el aviso "vehicle.saved" (SSE).
+ * Solo lo que muestran el Inventario y el semáforo: sin el resumen de mantenimientos
+ * ni el resto de la entidad, así cada aviso pesa poco aunque haya muchos clientes.
+ */
+public class VehicleChange {
+
+    private Long id;
+    private String licensePlate;
+    private String brand;
+    private String model;
+    private Integer year;
+    private Double mileage;
+    private String status;
+    private Double lastMaintenanceKm;
+    private Integer maintenanceIntervalKm;
+    private Double maintenanceUsage;
+    private String maintenanceLevel; // ROJO / AMARILLO / VERDE
+    private LocalDateTime createdAt;
+
+    public VehicleChange(Vehicle vehicle) {
+        this.id = vehicle.getId();
+        this.licensePlate = vehicle.getLicensePlate();
+        this.brand = vehicle.getBrand();
+        this.model = vehicle.getModel();
+        this.year = vehicle.getYear();
+        this.mileage = vehicle.getMileage();
+        this.status = vehicle.getStatus();
+        this.lastMaintenanceKm = vehicle.getLastMaintenanceKm();
+        this.maintenanceIntervalKm = vehicle.getMaintenanceIntervalKm();
+        this.maintenanceUsage = vehicle.getMaintenanceUsage();
+        this.maintenanceLevel = vehicle.getMaintenanceLevel();
+        this.createdAt = vehicle.getCreatedAt();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public Double getMileage() {
+        return mileage;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Double getLastMaintenanceKm() {
+        return lastMaintenanceKm;
+    }
+
+    public Integer getMaintenanceIntervalKm() {
+        return maintenanceIntervalKm;
+    }
+
+    public Double getMaintenanceUsage() {
+        return maintenanceUsage;
+    }
+
+    public String getMaintenanceLevel() {
+        return maintenanceLevel;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
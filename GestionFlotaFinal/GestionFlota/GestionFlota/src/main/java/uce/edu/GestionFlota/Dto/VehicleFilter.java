@@ -0,0 +1,92 @@
+package uce.edu.GestionFlota.Dto;
+
+/**
+ * Filtros del Inventario (GET /api/vehicles/query?status=...&brand=...&yearFrom=...).
+ * Todos son opcionales: el que viene en null no filtra.
+ * Spring llena este objeto directamente desde los parámetros de la URL.
+ */
+public class VehicleFilter {
+
+    // Faceta y valor de filtro para "sin estado" / "sin marca" (columna en NULL).
+    // Ej: GET /api/vehicles/query?status=_none trae los vehículos viejos que no tienen estado.
+    public static final String NONE = "_none";
+
+    private String status;      // Estado exacto (Ej: 'Available', 'Maintenance') o NONE
+    private String brand;       // Marca exacta (Ej: 'HINO') o NONE
+    private Integer yearFrom;   // Año de fabricación desde (incluido)
+    private Integer yearTo;     // Año de fabricación hasta (incluido)
+    private Double minMileage;  // Kilometraje desde (incluido)
+    private Double maxMileage;  // Kilometraje hasta (incluido)
+
+    public VehicleFilter() {
+    }
+
+    /**
+     * El mismo filtro pero SIN estado ni marca: es lo que se usa para contar las facetas
+     * (cada conteo de marca debe respetar el estado elegido, y viceversa; ver VehicleService).
+     */
+    public VehicleFilter withoutFacets() {
+        VehicleFilter copy = new VehicleFilter();
+        copy.setYearFrom(yearFrom);
+        copy.setYearTo(yearTo);
+        copy.setMinMileage(minMileage);
+        copy.setMaxMileage(maxMileage);
+        return copy;
+    }
+
+    /**
+     * Rangos al revés (Ej: año desde 2024 hasta 2020) no pueden traer nada: es un error del cliente.
+     */
+    public boolean isValid() {
+        return (yearFrom == null || yearTo == null || yearFrom <= yearTo)
+                && (minMileage == null || maxMileage == null || minMileage <= maxMileage);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public void setBrand(String brand) {
+        this.brand = brand;
+    }
+
+    public Integer getYearFrom() {
+        return yearFrom;
+    }
+
+    public void setYearFrom(Integer yearFrom) {
+        this.yearFrom = yearFrom;
+    }
+
+    public Integer getYearTo() {
+        return yearTo;
+    }
+
+    public void setYearTo(Integer yearTo) {
+        this.yearTo = yearTo;
+    }
+
+    public Double getMinMileage() {
+        return minMileage;
+    }
+
+    public void setMinMileage(Double minMileage) {
+        this.minMileage = minMileage;
+    }
+
+    public Double getMaxMileage() {
+        return maxMileage;
+    }
+
+    public void setMaxMileage(Double maxMileage) {
+        this.maxMileage = maxMileage;
+    }
+}
@@ -2,8 +2,10 @@ package uce.edu.GestionFlota;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Tareas periódicas (ej: escribir la telemetría acumulada)
 public class GestionFlotaApplication {
 
 	public static void main(String[] args) {
@@ -2,10 +2,12 @@
 package uce.edu.GestionFlota.Model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * Clase Entidad para el Historial de Mantenimientos.
@@ -13,7 +15,15 @@ import java.time.LocalDate;
  * costó.
  */
 @Entity // Indica que esto es una tabla en la Base de Datos.
-@Table(name = "maintenances") // Nombre de la tabla en Plural e Inglés.
+@Table(name = "maintenances", // Nombre de la tabla en Plural e Inglés.
+        // Los índices se crean en las migraciones (db/migration/V7); aquí quedan documentados.
+        // En PostgreSQL la tabla está particionada por mes de 'date' (db/vendor/postgresql/V9),
+        // con llave primaria (id, date); ver MaintenancePartitionService.
+        indexes = {
+                @Index(name = "idx_maintenances_vehicle_date", columnList = "vehicle_id, date DESC"),
+                // Reporte por fechas (V10; reemplaza al de solo 'date'). En PostgreSQL incluye el resto de columnas.
+                @Index(name = "idx_maintenances_report", columnList = "date, type, vehicle_id")
+        })
 public class Maintenance {
 
     // --- IDENTIFICADOR ---
@@ -25,6 +35,7 @@ public class Maintenance {
 
     // Usamos LocalDate porque solo nos interesa el día (año-mes-día), no la hora
     // exacta.
+    @Column(nullable = false) // Decide la partición (mes) donde se guarda la fila
     private LocalDate date; // Antes: fecha
 
     private String type; // Antes: tipo (Ej: "Preventivo", "Correctivo", "Cambio de Aceite")
@@ -42,7 +53,9 @@ public class Maintenance {
 
     // @ManyToOne: "Muchos mantenimientos pertenecen a Un solo vehículo".
     // Esta es la Llave Foránea (Foreign Key) en la base de datos.
-    @ManyToOne
+    // LAZY: findById (guardar/borrar) no trae el vehículo; los listados que lo
+    // necesitan lo piden con @EntityGraph (ver MaintenanceRepository).
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "vehicle_id") // Nombre de la columna en la tabla SQL que conecta con Vehicle.
 
     // @JsonIgnoreProperties: TRUCO DE EXPERTO.
@@ -50,9 +63,15 @@ public class Maintenance {
     // Si no pones esto, Java intentará traer el Vehículo, y el Vehículo traerá sus
     // Mantenimientos,
     // y esos Mantenimientos traerán al Vehículo... hasta que explota la memoria.
-    @JsonIgnoreProperties("maintenances")
+    // "hibernateLazyInitializer"/"handler": campos internos del proxy LAZY de Hibernate.
+    @JsonIgnoreProperties({ "maintenances", "hibernateLazyInitializer", "handler" })
     private Vehicle vehicle; // Antes: vehiculo
 
+    // Fecha y hora del último cambio (la pone Hibernate). Se usa para el ETag del historial.
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     // --- CONSTRUCTORES ---
 
     public Maintenance() {
@@ -119,6 +138,14 @@ public class Maintenance {
         this.vehicle = vehicle;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     // toString para depuración
     @Override
     public String toString() {
@@ -0,0 +1,77 @@
+package uce.edu.GestionFlota.Model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad de SOLO LECTURA sobre la vista 'maintenances_history' (migración V12):
+ * los mantenimientos activos más los meses ya archivados ('maintenances_archive').
+ * La usan los listados, el reporte y la exportación, así muestran lo mismo que suman
+ * los acumulados del Dashboard. Para guardar o borrar se usa Maintenance.
+ */
+@Entity
+@Immutable // Hibernate nunca escribe aquí (es una vista)
+@Table(name = "maintenances_history")
+public class MaintenanceHistory {
+
+    @Id
+    private Long id;
+
+    private LocalDate date;
+
+    private String type;
+
+    private Double cost;
+
+    private String description;
+
+    @Column(name = "mileage_at_maintenance")
+    private Double mileageAtMaintenance;
+
+    // LAZY: las consultas arman MaintenanceView con JOIN, nunca cargan el vehículo aparte
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vehicle_id")
+    private Vehicle vehicle;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    protected MaintenanceHistory() {
+        // Solo para Hibernate
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Double getCost() {
+        return cost;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Double getMileageAtMaintenance() {
+        return mileageAtMaintenance;
+    }
+
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
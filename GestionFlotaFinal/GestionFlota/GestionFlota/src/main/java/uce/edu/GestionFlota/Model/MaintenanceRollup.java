@@ -0,0 +1,138 @@
+package uce.edu.GestionFlota.Model;
+
+import jakarta.persistence.*;
+
+/**
+ * Clase Entidad para los Acumulados (Rollups) de Mantenimiento.
+ * Guarda un resumen YA CALCULADO por cada combinación de mes + tipo
+ * (Ej: "2026-10" + "Preventivo"), para que el Dashboard no tenga que
+ * descargar y sumar todo el historial.
+ * Se actualiza en la misma transacción en que se registra un mantenimiento.
+ */
+@Entity
+@Table(name = "maintenance_rollups", uniqueConstraints = @UniqueConstraint(columnNames = { "month_key", "type" }))
+public class MaintenanceRollup {
+
+    // --- IDENTIFICADOR ---
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // --- LLAVE DEL ACUMULADO ---
+
+    // Mes en formato ISO "AAAA-MM" (el mismo formato que usa el filtro de Reportes).
+    @Column(name = "month_key", length = 7, nullable = false)
+    private String monthKey;
+
+    // Tipo de mantenimiento (Ej: "Preventivo", "Correctivo").
+    @Column(nullable = false)
+    private String type;
+
+    // --- VALORES ACUMULADOS ---
+
+    @Column(name = "total_cost", nullable = false)
+    private Double totalCost;
+
+    @Column(name = "maintenance_count", nullable = false)
+    private Long maintenanceCount;
+
+    // El mantenimiento más caro del mes (y a qué vehículo se le hizo).
+    @Column(name = "max_cost", nullable = false)
+    private Double maxCost;
+
+    @Column(name = "top_vehicle_id")
+    private Long topVehicleId;
+
+    // --- CONSTRUCTORES ---
+
+    public MaintenanceRollup() {
+        this.totalCost = 0.0;
+        this.maintenanceCount = 0L;
+        this.maxCost = 0.0;
+    }
+
+    public MaintenanceRollup(String monthKey, String type) {
+        this();
+        this.monthKey = monthKey;
+        this.type = type;
+    }
+
+    // --- LÓGICA INCREMENTAL ---
+
+    /**
+     * Suma un mantenimiento nuevo al acumulado.
+     * Si es el más caro hasta ahora, su vehículo pasa a ser el "Mayor Gasto".
+     */
+    public void add(double cost, Long vehicleId) {
+        this.totalCost += cost;
+        this.maintenanceCount++;
+        if (this.maintenanceCount == 1 || cost > this.maxCost) {
+            this.maxCost = cost;
+            this.topVehicleId = vehicleId;
+        }
+    }
+
+    // --- GETTERS Y SETTERS ---
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMonthKey() {
+        return monthKey;
+    }
+
+    public void setMonthKey(String monthKey) {
+        this.monthKey = monthKey;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Double getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(Double totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    public Long getMaintenanceCount() {
+        return maintenanceCount;
+    }
+
+    public void setMaintenanceCount(Long maintenanceCount) {
+        this.maintenanceCount = maintenanceCount;
+    }
+
+    public Double getMaxCost() {
+        return maxCost;
+    }
+
+    public void setMaxCost(Double maxCost) {
+        this.maxCost = maxCost;
+    }
+
+    public Long getTopVehicleId() {
+        return topVehicleId;
+    }
+
+    public void setTopVehicleId(Long topVehicleId) {
+        this.topVehicleId = topVehicleId;
+    }
+
+    @Override
+    public String toString() {
+        return "MaintenanceRollup{" + "month=" + monthKey + ", type=" + type + ", total=" + totalCost
+                + ", count=" + maintenanceCount + '}';
+    }
+}
@@ -29,6 +29,11 @@ public class User {
     // Lo necesitamos para que el AuthController sepa qué permisos dar.
     private String role; 
 
+    // Versión de los tokens de sesión: va dentro de cada token firmado.
+    // Sube al cambiar la contraseña o el rol, así los tokens viejos dejan de servir.
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
     // --- CONSTRUCTORES ---
     
     // 1. Constructor Vacío: OBLIGATORIO para que JPA/Hibernate pueda leer la base de datos sin errores.
@@ -76,6 +81,14 @@ public class User {
     public void setRole(String role) {
         this.role = role;
     }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
     
     // --- MÉTODO TOSTRING ---
     // Sirve para que cuando imprimas "System.out.println(usuario)" en consola,
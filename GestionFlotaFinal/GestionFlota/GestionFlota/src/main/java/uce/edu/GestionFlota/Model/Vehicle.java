@@ -2,7 +2,12 @@
 package uce.edu.GestionFlota.Model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 // import javax.persistence.*; // Usa esto solo si tu Spring Boot es muy antiguo (versión < 3.0)
 
@@ -12,12 +17,31 @@ import java.time.LocalDateTime;
  * flota.
  */
 @Entity // Indica a Spring/Hibernate que esta clase representa una tabla real.
-@Table(name = "vehicles") // Definimos el nombre de la tabla en Plural e Inglés (Estándar SQL).
+@Table(name = "vehicles", // Definimos el nombre de la tabla en Plural e Inglés (Estándar SQL).
+        // Índice para el Centro de Alertas: "dame los carros con uso >= 70%" sin recorrer toda la flota.
+        // Índice del Inventario: filtros y conteos por estado y marca (migración V8).
+        indexes = {
+                @Index(name = "idx_vehicles_maintenance_usage", columnList = "maintenance_usage"),
+                @Index(name = "idx_vehicles_status_brand", columnList = "status, brand") })
+// Cache de segundo nivel (ver ehcache.xml): los vehículos se leen mucho más de lo que se escriben
+// (cada mantenimiento trae el suyo). READ_WRITE: Hibernate lo actualiza/borra solo al guardar o
+// eliminar con JPA. Los UPDATE por JDBC (telemetría) deben sacarlo a mano.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Vehicle {
 
+    // --- SEMÁFORO DE MANTENIMIENTO (mismas reglas que usaba el Frontend) ---
+    public static final int DEFAULT_INTERVAL_KM = 5000; // Si no hay frecuencia configurada
+    public static final double WARNING_USAGE = 70.0;    // AMARILLO: ya recorrió el 70% del intervalo
+    public static final double DUE_USAGE = 100.0;       // ROJO: llegó o pasó el kilometraje del mantenimiento
+
     // --- IDENTIFICADOR ÚNICO (PRIMARY KEY) ---
     @Id // Marca este campo como la Llave Primaria.
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // AUTO_INCREMENT: La base de datos asigna el ID (1, 2, 3...).
+    // SECUENCIA con reserva de 50 IDs: Hibernate pide un bloque de IDs de una vez y así puede
+    // agrupar muchos INSERT en un solo viaje a la BD (con IDENTITY eso es imposible).
+    // La secuencia la crea la migración V3 (adelantada después del ID más alto).
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vehicles_seq")
+    @SequenceGenerator(name = "vehicles_seq", sequenceName = "vehicles_seq", allocationSize = 50)
     private Long id; // Usamos 'Long' para soportar millones de registros.
 
     // --- DATOS PRINCIPALES DEL VEHÍCULO ---
@@ -54,6 +78,17 @@ public class Vehicle {
     @Column(name = "maintenance_interval_km")
     private Integer maintenanceIntervalKm;
 
+    // --- CAMPOS CALCULADOS (se guardan para poder buscarlos con índice) ---
+    // Se recalculan solos antes de cada INSERT/UPDATE (ver refreshMaintenanceSchedule).
+
+    // Kilometraje al que le toca el próximo mantenimiento (último + frecuencia)
+    @Column(name = "next_maintenance_km")
+    private Double nextMaintenanceKm;
+
+    // Porcentaje del intervalo ya recorrido (puede pasar de 100 si está vencido)
+    @Column(name = "maintenance_usage")
+    private Double maintenanceUsage;
+
     // --- FECHA DE REGISTRO ---
 
     // Fecha y hora en que se registró el vehículo en el sistema
@@ -64,6 +99,39 @@ public class Vehicle {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    // Fecha y hora del último cambio (la pone Hibernate en cada INSERT/UPDATE).
+    // Sirve para el ETag: si no cambió nada, el navegador no vuelve a descargar la flota.
+    // OJO: los UPDATE masivos (JPQL/JDBC) deben ponerla a mano.
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // --- RESUMEN DE MANTENIMIENTOS (copia de la tabla 'maintenances') ---
+    // Para mostrar "cuántos mantenimientos tiene" sin descargar todo el historial.
+    // Solo lo cambia MaintenanceService (UPDATE directo), por eso updatable = false:
+    // si el Frontend guarda el carro con datos viejos, no pisa estos contadores.
+    // @JsonIgnore: no viajan con el vehículo, se leen en GET /api/vehicles/{id}/summary.
+
+    @JsonIgnore
+    @Column(name = "maintenance_count", updatable = false)
+    private Integer maintenanceCount;
+
+    @JsonIgnore
+    @Column(name = "preventive_count", updatable = false)
+    private Integer preventiveCount; // Mantenimientos tipo "Preventivo"
+
+    @JsonIgnore
+    @Column(name = "corrective_count", updatable = false)
+    private Integer correctiveCount; // Mantenimientos tipo "Correctivo"
+
+    @JsonIgnore
+    @Column(name = "maintenance_total_cost", updatable = false)
+    private Double maintenanceTotalCost;
+
+    @JsonIgnore
+    @Column(name = "last_maintenance_date", updatable = false)
+    private LocalDate lastMaintenanceDate;
+
     // --- CONSTRUCTORES ---
 
     /**
@@ -75,6 +143,10 @@ public class Vehicle {
         this.lastMaintenanceKm = 0.0; // Empieza en 0 si no se especifica.
         this.maintenanceIntervalKm = 5000; // Por defecto, mantenimiento cada 5000 km.
         this.status = "Available"; // Por defecto, el carro está listo para usar.
+        this.maintenanceCount = 0; // Un carro nuevo no tiene mantenimientos
+        this.preventiveCount = 0;
+        this.correctiveCount = 0;
+        this.maintenanceTotalCost = 0.0;
     }
 
     /**
@@ -92,6 +164,43 @@ public class Vehicle {
         this.status = status;
     }
 
+    /**
+     * Recalcula el próximo mantenimiento y el % de uso antes de guardar.
+     * Así la BD siempre tiene el semáforo al día sin que nadie lo calcule a mano.
+     * OJO: los UPDATE masivos (JPQL) no pasan por aquí, deben calcularlo ellos.
+     */
+    @PrePersist
+    @PreUpdate
+    public void refreshMaintenanceSchedule() {
+        double last = (lastMaintenanceKm == null) ? 0.0 : lastMaintenanceKm;
+        int interval = (maintenanceIntervalKm == null || maintenanceIntervalKm <= 0)
+                ? DEFAULT_INTERVAL_KM : maintenanceIntervalKm;
+        double current = (mileage == null) ? 0.0 : mileage;
+
+        this.nextMaintenanceKm = last + interval;
+        this.maintenanceUsage = (current - last) * 100.0 / interval;
+    }
+
+    /**
+     * Nivel del semáforo: ROJO (vencido), AMARILLO (próximo) o VERDE (en regla).
+     * No se guarda en la BD, se deriva de 'maintenanceUsage'.
+     */
+    @Transient
+    public String getMaintenanceLevel() {
+        return levelOf(maintenanceUsage);
+    }
+
+    // Regla del semáforo para un % de uso (la usan también las alertas livianas, ver VehicleAlert)
+    public static String levelOf(Double maintenanceUsage) {
+        if (maintenanceUsage == null) {
+            return null;
+        }
+        if (maintenanceUsage >= DUE_USAGE) {
+            return "ROJO";
+        }
+        return (maintenanceUsage >= WARNING_USAGE) ? "AMARILLO" : "VERDE";
+    }
+
     // --- GETTERS Y SETTERS ---
     // Métodos públicos para leer (Get) y modificar (Set) los datos privados.
 
@@ -167,6 +276,22 @@ public class Vehicle {
         this.maintenanceIntervalKm = maintenanceIntervalKm;
     }
 
+    public Double getNextMaintenanceKm() {
+        return nextMaintenanceKm;
+    }
+
+    public void setNextMaintenanceKm(Double nextMaintenanceKm) {
+        this.nextMaintenanceKm = nextMaintenanceKm;
+    }
+
+    public Double getMaintenanceUsage() {
+        return maintenanceUsage;
+    }
+
+    public void setMaintenanceUsage(Double maintenanceUsage) {
+        this.maintenanceUsage = maintenanceUsage;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -175,6 +300,54 @@ public class Vehicle {
         this.createdAt = createdAt;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Integer getMaintenanceCount() {
+        return maintenanceCount;
+    }
+
+    public void setMaintenanceCount(Integer maintenanceCount) {
+        this.maintenanceCount = maintenanceCount;
+    }
+
+    public Integer getPreventiveCount() {
+        return preventiveCount;
+    }
+
+    public void setPreventiveCount(Integer preventiveCount) {
+        this.preventiveCount = preventiveCount;
+    }
+
+    public Integer getCorrectiveCount() {
+        return correctiveCount;
+    }
+
+    public void setCorrectiveCount(Integer correctiveCount) {
+        this.correctiveCount = correctiveCount;
+    }
+
+    public Double getMaintenanceTotalCost() {
+        return maintenanceTotalCost;
+    }
+
+    public void setMaintenanceTotalCost(Double maintenanceTotalCost) {
+        this.maintenanceTotalCost = maintenanceTotalCost;
+    }
+
+    public LocalDate getLastMaintenanceDate() {
+        return lastMaintenanceDate;
+    }
+
+    public void setLastMaintenanceDate(LocalDate lastMaintenanceDate) {
+        this.lastMaintenanceDate = lastMaintenanceDate;
+    }
+
     // --- MÉTODO TOSTRING ---
     // Permite ver la información del objeto en texto plano al imprimir en consola.
     // Muy útil para depuración (Debugging).
@@ -1,16 +1,127 @@
 package uce.edu.GestionFlota.Repository;
 
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import uce.edu.GestionFlota.Dto.CollectionVersion;
+import uce.edu.GestionFlota.Dto.MaintenanceView;
+import uce.edu.GestionFlota.Dto.RollupTotals;
 import uce.edu.GestionFlota.Model.Maintenance;
 
 @Repository
-public interface MaintenanceRepository extends JpaRepository<Maintenance, Long> {
+public interface MaintenanceRepository extends JpaRepository<Maintenance, Long>, MaintenanceRepositoryCustom {
     // Buscar el historial de un auto específico
+    // @EntityGraph: trae el vehículo en el mismo SELECT (JOIN) en vez de una consulta extra.
+    @EntityGraph(attributePaths = "vehicle")
     List<Maintenance> findByVehicleIdOrderByDateDesc(Long vehicleId);
 
-    // Elimina el historial por ID de vehículo
-    void deleteByVehicleId(Long vehicleId);
+    // Reporte global: sobreescribimos el findAll de Spring para que también traiga
+    // los vehículos con JOIN (sin esto sale 1 SELECT extra por cada vehículo = problema N+1).
+    @Override
+    @EntityGraph(attributePaths = "vehicle")
+    List<Maintenance> findAll(Sort sort);
+
+    // --- VISTAS LIVIANAS (DTO) PARA LOS LISTADOS ---
+    // Una sola consulta, solo las columnas que se muestran, sin cargar entidades.
+    // Leen MaintenanceHistory (activos + meses archivados, V12): lo mismo que suman los acumulados.
+
+    @Query("SELECT new uce.edu.GestionFlota.Dto.MaintenanceView(m.id, m.date, m.type, m.cost, m.description, "
+            + "m.mileageAtMaintenance, v.id, v.licensePlate, v.brand, v.model) "
+            + "FROM MaintenanceHistory m LEFT JOIN m.vehicle v WHERE v.id = :vehicleId ORDER BY m.date DESC, m.id DESC")
+    List<MaintenanceView> findViewsByVehicleId(@Param("vehicleId") Long vehicleId);
+
+    @Query("SELECT new uce.edu.GestionFlota.Dto.MaintenanceView(m.id, m.date, m.type, m.cost, m.description, "
+            + "m.mileageAtMaintenance, v.id, v.licensePlate, v.brand, v.model) "
+            + "FROM MaintenanceHistory m LEFT JOIN m.vehicle v ORDER BY m.date DESC, m.id DESC")
+    List<MaintenanceView> findAllViews();
+
+    // Placa -> historial en UNA consulta: parte del vehículo y trae sus mantenimientos con LEFT JOIN.
+    // Si la placa existe pero no tiene mantenimientos (en ese rango), viene 1 fila con el mantenimiento
+    // en null (id null) para que igual sepamos los datos del vehículo. Si no existe, no viene nada.
+    @Query("SELECT new uce.edu.GestionFlota.Dto.MaintenanceView(m.id, m.date, m.type, m.cost, m.description, "
+            + "m.mileageAtMaintenance, v.id, v.licensePlate, v.brand, v.model) "
+            + "FROM Vehicle v LEFT JOIN MaintenanceHistory m ON m.vehicle = v AND m.date BETWEEN :from AND :to "
+            + "WHERE v.licensePlate = :plate ORDER BY m.date DESC, m.id DESC")
+    List<MaintenanceView> findViewsByPlateAndDateBetween(@Param("plate") String licensePlate,
+            @Param("from") LocalDate from, @Param("to") LocalDate to, Limit limit);
+
+    // Huella del historial de un vehículo (para el ETag). También mira la fecha de cambio del
+    // vehículo, porque el historial muestra su placa/marca/modelo.
+    @Query("SELECT COUNT(m.id) AS count, MAX(m.id) AS maxId, "
+            + "MAX(CASE WHEN v.updatedAt IS NULL OR m.updatedAt > v.updatedAt THEN m.updatedAt ELSE v.updatedAt END) "
+            + "AS lastUpdate FROM Vehicle v LEFT JOIN MaintenanceHistory m ON m.vehicle = v WHERE v.id = :vehicleId")
+    CollectionVersion findHistoryVersion(@Param("vehicleId") Long vehicleId);
+
+    // Elimina el historial de uno o varios vehículos con UN solo DELETE en la BD.
+    // (Antes: Spring cargaba cada mantenimiento y lo borraba uno por uno.)
+    @Modifying
+    @Query("DELETE FROM Maintenance m WHERE m.vehicle.id IN :vehicleIds")
+    int deleteByVehicleIds(@Param("vehicleIds") Collection<Long> vehicleIds);
+
+    // Lo mismo en los meses archivados ('maintenances_archive', V12): si no, un carro borrado
+    // seguiría sumando en los acumulados de esos meses.
+    @Modifying
+    @Query(value = "DELETE FROM maintenances_archive WHERE vehicle_id IN :vehicleIds", nativeQuery = true)
+    int deleteArchivedByVehicleIds(@Param("vehicleIds") Collection<Long> vehicleIds);
+
+    // --- CONSULTAS PARA RECONSTRUIR LOS ACUMULADOS (ROLLUPS) ---
+    // SQL nativo sobre la vista 'maintenances_history' (activos + meses archivados, ver V12):
+    // reconstruir un mes ya archivado no debe dejarlo en cero.
+
+    // Totales de un mes + tipo calculados por la BD (los mantenimientos sin tipo van a 'Sin tipo').
+    @Query(value = "SELECT COUNT(*) AS \"count\", SUM(m.cost) AS \"totalCost\", MAX(m.cost) AS \"maxCost\" "
+            + "FROM maintenances_history m WHERE m.date BETWEEN :from AND :to "
+            + "AND COALESCE(m.type, 'Sin tipo') = :type", nativeQuery = true)
+    RollupTotals sumByDateRangeAndType(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("type") String type);
+
+    // Vehículo del mantenimiento más caro de ese mes + tipo (solo carros que todavía existen).
+    @Query(value = "SELECT m.vehicle_id FROM maintenances_history m JOIN vehicles v ON v.id = m.vehicle_id "
+            + "WHERE m.date BETWEEN :from AND :to AND COALESCE(m.type, 'Sin tipo') = :type "
+            + "ORDER BY COALESCE(m.cost, 0) DESC FETCH FIRST 1 ROWS ONLY", nativeQuery = true)
+    List<Long> findTopVehicleIds(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("type") String type);
+
+    // Fechas y tipos que tienen estos vehículos, también en meses archivados
+    // (para saber qué acumulados tocan al borrarlos).
+    @Query(value = "SELECT DISTINCT m.date, m.type FROM maintenances_history m WHERE m.vehicle_id IN :vehicleIds",
+            nativeQuery = true)
+    List<Object[]> findDatesAndTypesByVehicleIds(@Param("vehicleIds") Collection<Long> vehicleIds);
+
+    // Fechas y tipos de toda la empresa (solo para la carga inicial de acumulados).
+    @Query("SELECT DISTINCT m.date, m.type FROM Maintenance m")
+    List<Object[]> findDistinctDatesAndTypes();
+
+    // --- CONSULTAS PARA EXPORTAR (STREAMING) ---
+    // Filas livianas (DTO, con la placa por JOIN) de todo el historial, también los meses archivados,
+    // leídas de a 500 para que la memoria no crezca con el tamaño del reporte. Al no ser entidades,
+    // Hibernate no las guarda en el contexto.
+    // OJO: solo se pueden usar dentro de una transacción y hay que cerrar el Stream.
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT new uce.edu.GestionFlota.Dto.MaintenanceView(m.id, m.date, m.type, m.cost, m.description, "
+            + "m.mileageAtMaintenance, v.id, v.licensePlate, v.brand, v.model) "
+            + "FROM MaintenanceHistory m LEFT JOIN m.vehicle v "
+            + "WHERE m.date BETWEEN :from AND :to ORDER BY m.date DESC, m.id DESC")
+    Stream<MaintenanceView> streamByDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT new uce.edu.GestionFlota.Dto.MaintenanceView(m.id, m.date, m.type, m.cost, m.description, "
+            + "m.mileageAtMaintenance, v.id, v.licensePlate, v.brand, v.model) "
+            + "FROM MaintenanceHistory m LEFT JOIN m.vehicle v "
+            + "WHERE v.id = :vehicleId AND m.date BETWEEN :from AND :to ORDER BY m.date DESC, m.id DESC")
+    Stream<MaintenanceView> streamByVehicleIdAndDateBetween(@Param("vehicleId") Long vehicleId,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package uce.edu.GestionFlota.Repository;
+
+import uce.edu.GestionFlota.Dto.MaintenanceView;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Consultas de mantenimientos que no se pueden expresar con Spring Data: el reporte con
+ * filtros opcionales y el manejo de las particiones mensuales (solo PostgreSQL, migración V9).
+ * Se implementan a mano en MaintenanceRepositoryCustomImpl.
+ */
+public interface MaintenanceRepositoryCustom {
+
+    // Reporte por rango de fechas (incluidas), con tipo y vehículo opcionales (null = todos).
+    // Los más recientes primero. Va por el índice idx_maintenances_report (migración V10).
+    List<MaintenanceView> findReportRows(LocalDate from, LocalDate to, String type, Long vehicleId);
+
+    // true si la BD tiene las funciones de particiones (PostgreSQL con V9). En H2 es false.
+    boolean supportsPartitions();
+
+    // Crea la partición del mes de 'month' si no existe. Devuelve su nombre, o null si ya existía.
+    String createMonthlyPartition(LocalDate month);
+
+    // Separa (DETACH) las particiones de los meses anteriores a 'before', sin borrar filas, y las
+    // pasa a 'maintenances_archive' (V12). Devuelve los nombres de las tablas archivadas.
+    List<String> detachPartitionsBefore(LocalDate before);
+}
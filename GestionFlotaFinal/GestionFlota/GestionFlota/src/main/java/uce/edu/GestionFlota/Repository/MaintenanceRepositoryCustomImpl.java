@@ -0,0 +1,76 @@
+package uce.edu.GestionFlota.Repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uce.edu.GestionFlota.Dto.MaintenanceView;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación de MaintenanceRepositoryCustom con JDBC directo: el reporte arma su WHERE
+ * solo con los filtros que vienen, y las particiones se crean y separan con las funciones
+ * PL/pgSQL de db/vendor/postgresql/V9 (DDL, no pasa por JPA).
+ * Spring Data la encuentra sola por el sufijo "Impl".
+ */
+public class MaintenanceRepositoryCustomImpl implements MaintenanceRepositoryCustom {
+
+    // Las mismas columnas que MaintenanceView. El vehículo sale por su llave primaria.
+    // Lee 'maintenances_history' (activos + meses archivados, V12): cuadra con los acumulados.
+    private static final String REPORT_SQL = "SELECT m.id, m.date, m.type, m.cost, m.description, "
+            + "m.mileage_at_maintenance, v.id, v.license_plate, v.brand, v.model "
+            + "FROM maintenances_history m LEFT JOIN vehicles v ON v.id = m.vehicle_id WHERE m.date BETWEEN ? AND ?";
+
+    // information_schema existe en PostgreSQL y en H2: no hace falta saber qué motor es
+    private static final String HAS_PARTITION_FUNCTION_SQL = "SELECT COUNT(*) FROM information_schema.routines "
+            + "WHERE routine_name = 'create_maintenance_partition'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<MaintenanceView> findReportRows(LocalDate from, LocalDate to, String type, Long vehicleId) {
+        StringBuilder sql = new StringBuilder(REPORT_SQL);
+        List<Object> params = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (type != null) {
+            sql.append(" AND m.type = ?");
+            params.add(type);
+        }
+        if (vehicleId != null) {
+            sql.append(" AND m.vehicle_id = ?");
+            params.add(vehicleId);
+        }
+        sql.append(" ORDER BY m.date DESC, m.id DESC");
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new MaintenanceView(
+                rs.getLong(1),
+                rs.getObject(2, LocalDate.class),
+                rs.getString(3),
+                rs.getObject(4, Double.class),
+                rs.getString(5),
+                rs.getObject(6, Double.class),
+                rs.getObject(7, Long.class),
+                rs.getString(8),
+                rs.getString(9),
+                rs.getString(10)), params.toArray());
+    }
+
+    @Override
+    public boolean supportsPartitions() {
+        Integer count = jdbcTemplate.queryForObject(HAS_PARTITION_FUNCTION_SQL, Integer.class);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public String createMonthlyPartition(LocalDate month) {
+        return jdbcTemplate.queryForObject("SELECT create_maintenance_partition(?)", String.class,
+                Date.valueOf(month.withDayOfMonth(1)));
+    }
+
+    @Override
+    public List<String> detachPartitionsBefore(LocalDate before) {
+        return jdbcTemplate.queryForList("SELECT detach_maintenance_partitions(?)", String.class,
+                Date.valueOf(before));
+    }
+}
@@ -0,0 +1,25 @@
+package uce.edu.GestionFlota.Repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+import uce.edu.GestionFlota.Model.MaintenanceRollup;
+
+@Repository
+public interface MaintenanceRollupRepository extends JpaRepository<MaintenanceRollup, Long>, MaintenanceRollupRepositoryCustom {
+
+    // Bloquea la fila del acumulado (SELECT ... FOR UPDATE) mientras se recalcula.
+    // Si la fila no existe no bloquea nada: antes se llama a insertIfMissing.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<MaintenanceRollup> findByMonthKeyAndType(String monthKey, String type);
+
+    // Todos los acumulados junto con la placa del vehículo de "Mayor Gasto".
+    // Son pocas filas (meses x tipos), no importa cuántos mantenimientos haya.
+    @Query("SELECT r, v.licensePlate FROM MaintenanceRollup r LEFT JOIN Vehicle v ON v.id = r.topVehicleId "
+            + "ORDER BY r.monthKey, r.type")
+    List<Object[]> findAllWithTopVehiclePlate();
+}
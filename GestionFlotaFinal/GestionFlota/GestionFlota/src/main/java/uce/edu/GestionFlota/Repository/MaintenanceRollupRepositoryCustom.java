@@ -0,0 +1,25 @@
+package uce.edu.GestionFlota.Repository;
+
+import java.util.Collection;
+import uce.edu.GestionFlota.Model.MaintenanceRollup;
+
+/**
+ * Escrituras de acumulados que deben ser atómicas aunque la fila todavía no exista
+ * (el primer mantenimiento de un mes/tipo). Se implementan a mano en
+ * MaintenanceRollupRepositoryCustomImpl, con un "upsert" de la BD.
+ */
+public interface MaintenanceRollupRepositoryCustom {
+
+    // Suma UN mantenimiento al acumulado de su mes/tipo en UNA sentencia: si la fila no existe
+    // la crea, y si otra transacción la crea al mismo tiempo, suma sobre esa (no falla la llave única).
+    void addToRollup(String monthKey, String type, double cost, Long vehicleId);
+
+    // Crea el acumulado en cero si todavía no existe (para poder bloquearlo antes de recalcularlo).
+    void insertIfMissing(String monthKey, String type);
+
+    // Recalcula desde 'maintenances_history' los acumulados de esos grupos mes/tipo (de
+    // MaintenanceRollup solo se usan monthKey y type) y borra los que quedaron sin mantenimientos.
+    // Son 4 sentencias sin importar cuántos grupos sean: crear los que falten, bloquearlos,
+    // recalcularlos con un UPDATE y borrar los vacíos.
+    void rebuildFromHistory(Collection<MaintenanceRollup> groups);
+}
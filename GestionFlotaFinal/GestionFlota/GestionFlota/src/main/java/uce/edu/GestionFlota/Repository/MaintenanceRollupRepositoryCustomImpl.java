@@ -0,0 +1,155 @@
+package uce.edu.GestionFlota.Repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uce.edu.GestionFlota.Model.MaintenanceRollup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementación de MaintenanceRollupRepositoryCustom con JDBC directo.
+ * PostgreSQL: INSERT ... ON CONFLICT (espera a la otra transacción y suma sobre su fila).
+ * Otros motores (H2 en las pruebas): MERGE estándar, que no tiene ON CONFLICT ... DO UPDATE.
+ * La reconstrucción por conjunto va por el EntityManager (SQL nativo) para que las estadísticas
+ * de Hibernate cuenten sus sentencias.
+ * Spring Data la encuentra sola por el sufijo "Impl".
+ */
+public class MaintenanceRollupRepositoryCustomImpl implements MaintenanceRollupRepositoryCustom {
+
+    // Las expresiones del SET leen los valores de ANTES del UPDATE: el "Mayor Gasto"
+    // se compara contra el max_cost anterior, igual que MaintenanceRollup.add.
+    private static final String ADD_POSTGRESQL_SQL = "INSERT INTO maintenance_rollups AS r "
+            + "(month_key, type, total_cost, maintenance_count, max_cost, top_vehicle_id) VALUES (?, ?, ?, 1, ?, ?) "
+            + "ON CONFLICT (month_key, type) DO UPDATE SET "
+            + "total_cost = r.total_cost + EXCLUDED.total_cost, "
+            + "maintenance_count = r.maintenance_count + 1, "
+            + "top_vehicle_id = CASE WHEN EXCLUDED.max_cost > r.max_cost THEN EXCLUDED.top_vehicle_id "
+            + "ELSE r.top_vehicle_id END, "
+            + "max_cost = GREATEST(r.max_cost, EXCLUDED.max_cost)";
+
+    private static final String ADD_MERGE_SQL = "MERGE INTO maintenance_rollups r USING (VALUES "
+            + "(CAST(? AS VARCHAR(7)), CAST(? AS VARCHAR(255)), CAST(? AS DOUBLE PRECISION), CAST(? AS BIGINT))) "
+            + "AS s (month_key, type, cost, vehicle_id) ON r.month_key = s.month_key AND r.type = s.type "
+            + "WHEN MATCHED THEN UPDATE SET "
+            + "total_cost = r.total_cost + s.cost, "
+            + "maintenance_count = r.maintenance_count + 1, "
+            + "top_vehicle_id = CASE WHEN s.cost > r.max_cost THEN s.vehicle_id ELSE r.top_vehicle_id END, "
+            + "max_cost = GREATEST(r.max_cost, s.cost) "
+            + "WHEN NOT MATCHED THEN INSERT (month_key, type, total_cost, maintenance_count, max_cost, top_vehicle_id) "
+            + "VALUES (s.month_key, s.type, s.cost, 1, s.cost, s.vehicle_id)";
+
+    private static final String INSERT_IF_MISSING_POSTGRESQL_SQL = "INSERT INTO maintenance_rollups "
+            + "(month_key, type, total_cost, maintenance_count, max_cost) VALUES (?, ?, 0, 0, 0) "
+            + "ON CONFLICT (month_key, type) DO NOTHING";
+
+    private static final String INSERT_IF_MISSING_MERGE_SQL = "MERGE INTO maintenance_rollups r USING (VALUES "
+            + "(CAST(? AS VARCHAR(7)), CAST(? AS VARCHAR(255)))) AS s (month_key, type) "
+            + "ON r.month_key = s.month_key AND r.type = s.type "
+            + "WHEN NOT MATCHED THEN INSERT (month_key, type, total_cost, maintenance_count, max_cost) "
+            + "VALUES (s.month_key, s.type, 0, 0, 0)";
+
+    // Mantenimientos de 'maintenance_rollups r' en su mes y tipo (todo el historial, también el archivado)
+    private static final String GROUP_FILTER = "m.date >= CAST(r.month_key || '-01' AS DATE) "
+            + "AND m.date < CAST(CAST(r.month_key || '-01' AS DATE) + INTERVAL '1' MONTH AS DATE) "
+            + "AND COALESCE(m.type, 'Sin tipo') = r.type";
+
+    // Igual que MaintenanceService.rebuildRollup, pero para todos los grupos en UN UPDATE
+    private static final String REBUILD_SQL = "UPDATE maintenance_rollups r SET "
+            + "maintenance_count = (SELECT COUNT(*) FROM maintenances_history m WHERE " + GROUP_FILTER + "), "
+            + "total_cost = (SELECT COALESCE(SUM(m.cost), 0) FROM maintenances_history m WHERE " + GROUP_FILTER + "), "
+            + "max_cost = (SELECT COALESCE(MAX(m.cost), 0) FROM maintenances_history m WHERE " + GROUP_FILTER + "), "
+            + "top_vehicle_id = (SELECT m.vehicle_id FROM maintenances_history m JOIN vehicles v ON v.id = m.vehicle_id "
+            + "WHERE " + GROUP_FILTER + " ORDER BY COALESCE(m.cost, 0) DESC FETCH FIRST 1 ROWS ONLY) "
+            + "WHERE r.month_key || '|' || r.type IN (:groups)";
+
+    // Bloquea las filas (en orden de id, para no cruzarse con otra reconstrucción) ANTES de sumar:
+    // un mantenimiento simultáneo del mismo grupo espera, o ya está incluido en el UPDATE.
+    private static final String LOCK_SQL = "SELECT id FROM maintenance_rollups "
+            + "WHERE month_key || '|' || type IN (:groups) ORDER BY id FOR UPDATE";
+
+    private static final String DELETE_EMPTY_SQL = "DELETE FROM maintenance_rollups "
+            + "WHERE maintenance_count = 0 AND month_key || '|' || type IN (:groups)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres; // Se pregunta al driver una sola vez
+
+    @Override
+    public void addToRollup(String monthKey, String type, double cost, Long vehicleId) {
+        if (isPostgres()) {
+            jdbcTemplate.update(ADD_POSTGRESQL_SQL, monthKey, type, cost, cost, vehicleId);
+        } else {
+            jdbcTemplate.update(ADD_MERGE_SQL, monthKey, type, cost, vehicleId);
+        }
+    }
+
+    @Override
+    public void insertIfMissing(String monthKey, String type) {
+        jdbcTemplate.update(isPostgres() ? INSERT_IF_MISSING_POSTGRESQL_SQL : INSERT_IF_MISSING_MERGE_SQL,
+                monthKey, type);
+    }
+
+    @Override
+    public void rebuildFromHistory(Collection<MaintenanceRollup> groups) {
+        Set<String> keys = new LinkedHashSet<>();
+        groups.forEach(group -> keys.add(group.getMonthKey() + "|" + group.getType()));
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> keyList = new ArrayList<>(keys);
+
+        // 1. Los grupos que todavía no tienen fila (Ej: carga inicial) se crean en cero
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < keyList.size(); i++) {
+            values.append(i == 0 ? "" : ", ").append("(CAST(:m").append(i).append(" AS VARCHAR(7)), CAST(:t")
+                    .append(i).append(" AS VARCHAR(255)))");
+        }
+        String insertSql = isPostgres()
+                ? "INSERT INTO maintenance_rollups (month_key, type, total_cost, maintenance_count, max_cost) "
+                        + "SELECT s.month_key, s.type, 0, 0, 0 FROM (VALUES " + values + ") AS s (month_key, type) "
+                        + "ON CONFLICT (month_key, type) DO NOTHING"
+                : "MERGE INTO maintenance_rollups r USING (VALUES " + values + ") AS s (month_key, type) "
+                        + "ON r.month_key = s.month_key AND r.type = s.type "
+                        + "WHEN NOT MATCHED THEN INSERT (month_key, type, total_cost, maintenance_count, max_cost) "
+                        + "VALUES (s.month_key, s.type, 0, 0, 0)";
+        Query insert = rollupsQuery(insertSql);
+        for (int i = 0; i < keyList.size(); i++) {
+            String[] parts = keyList.get(i).split("\\|", 2);
+            insert.setParameter("m" + i, parts[0]).setParameter("t" + i, parts[1]);
+        }
+        insert.executeUpdate();
+
+        // 2. Bloqueo, 3. recálculo y 4. limpieza de los grupos que quedaron vacíos
+        entityManager.createNativeQuery(LOCK_SQL).setParameter("groups", keyList).getResultList();
+        rollupsQuery(REBUILD_SQL).setParameter("groups", keyList).executeUpdate();
+        rollupsQuery(DELETE_EMPTY_SQL).setParameter("groups", keyList).executeUpdate();
+    }
+
+    // Sentencia nativa que solo cambia 'maintenance_rollups': Hibernate no vacía el resto de su cache
+    private Query rollupsQuery(String sql) {
+        Query query = entityManager.createNativeQuery(sql);
+        query.unwrap(NativeQuery.class).addSynchronizedQuerySpace("maintenance_rollups");
+        return query;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+}
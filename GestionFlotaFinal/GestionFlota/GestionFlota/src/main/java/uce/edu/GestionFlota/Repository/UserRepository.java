@@ -3,10 +3,18 @@ package uce.edu.GestionFlota.Repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import uce.edu.GestionFlota.Model.User;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
     // Método: Spring crea el SQL automático con solo leer el nombre del método
-    User findByUsernameAndPassword(String username, String password);
+    // Solo por usuario: la contraseña está en BCrypt y se compara en Java (no en el SQL).
+    User findByUsername(String username);
+
+    // Por ID (Long, como en la entidad): lo usa la revisión de tokens de UserService
+    User findOneById(Long id);
+
+    // Usuarios cuya contraseña todavía NO está en BCrypt (los hash empiezan con "$2")
+    List<User> findByPasswordNotLike(String pattern);
 }
\ No newline at end of file
@@ -1,14 +1,124 @@
 package uce.edu.GestionFlota.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import java.util.Optional; 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import uce.edu.GestionFlota.Dto.AlertCount;
+import uce.edu.GestionFlota.Dto.CollectionVersion;
+import uce.edu.GestionFlota.Dto.MaintenanceSummary;
+import uce.edu.GestionFlota.Dto.VehicleAlert;
 import uce.edu.GestionFlota.Model.Vehicle;
 
 @Repository
-public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
-    
-    
+public interface VehicleRepository extends JpaRepository<Vehicle, Long>, VehicleRepositoryCustom {
+
+    // Frecuencia de mantenimiento en JPQL (sin configurar o en 0 = 5000 km, igual que Vehicle).
+    String INTERVAL_KM = "(CASE WHEN v.maintenanceIntervalKm > 0 THEN v.maintenanceIntervalKm ELSE 5000 END)";
+
+    // Resumen de mantenimientos calculado desde TODO el historial (para un carro o para la carga inicial).
+    // SQL nativo: lee la vista 'maintenances_history' (activos + meses archivados, ver V12), que no es entidad.
+    String SUMMARY_FROM_HISTORY = "maintenance_count = (SELECT COUNT(*) FROM maintenances_history m "
+            + "WHERE m.vehicle_id = vehicles.id), "
+            + "preventive_count = (SELECT COUNT(*) FROM maintenances_history m "
+            + "WHERE m.vehicle_id = vehicles.id AND m.type = 'Preventivo'), "
+            + "corrective_count = (SELECT COUNT(*) FROM maintenances_history m "
+            + "WHERE m.vehicle_id = vehicles.id AND m.type = 'Correctivo'), "
+            + "maintenance_total_cost = (SELECT COALESCE(SUM(m.cost), 0.0) FROM maintenances_history m "
+            + "WHERE m.vehicle_id = vehicles.id), "
+            + "last_maintenance_date = (SELECT MAX(m.date) FROM maintenances_history m WHERE m.vehicle_id = vehicles.id)";
+
+    // UPDATE nativo: Hibernate solo invalida la caché de segundo nivel de 'vehicles' (no la de todas las entidades).
+    String VEHICLES_SPACE = "org.hibernate.query.native.spaces";
+
     // Debe devolver Optional<Vehiculo> para que el .map() del controlador funcione.
+    // Sin cache de consultas: las placas ya se guardan en memoria en VehicleService.getByLicensePlate.
     Optional<Vehicle> findByLicensePlate(String licensePlate);
+
+    // Paginación por cursor (keyset): "dame los siguientes N carros después del ID X".
+    // Usa el índice de la llave primaria, así que cuesta lo mismo en la página 1 que en la 1000.
+    List<Vehicle> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Recorre TODA la flota fila por fila (cursor del lado de la BD).
+    // El fetch size evita que el driver de PostgreSQL cargue todo el resultado en memoria.
+    // OJO: solo se puede usar dentro de una transacción y hay que cerrar el Stream.
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT v FROM Vehicle v ORDER BY v.id")
+    Stream<Vehicle> streamAll();
+
+    // Pone fecha de registro a TODOS los vehículos que no la tienen, en un solo UPDATE.
+    // Devuelve cuántas filas se actualizaron.
+    @Modifying
+    @Query("UPDATE Vehicle v SET v.createdAt = :now, v.updatedAt = :now WHERE v.createdAt IS NULL")
+    int fillMissingCreatedAt(@Param("now") LocalDateTime now);
+
+    // De una lista de placas, devuelve las que YA existen (validación masiva en 1 consulta).
+    @Query("SELECT v.licensePlate FROM Vehicle v WHERE v.licensePlate IN :plates")
+    List<String> findExistingPlates(@Param("plates") Collection<String> plates);
+
+    // Nivel del semáforo en JPQL (misma regla que Vehicle.levelOf). Sin % calculado (BD anteriores) = VERDE.
+    String LEVEL_OF_USAGE = "(CASE WHEN v.maintenanceUsage >= " + Vehicle.DUE_USAGE + " THEN 'ROJO' "
+            + "WHEN v.maintenanceUsage >= " + Vehicle.WARNING_USAGE + " THEN 'AMARILLO' ELSE 'VERDE' END)";
+
+    // Centro de Alertas: carros con uso >= X% (AMARILLO y ROJO), los más urgentes primero, hasta 'limit'.
+    // Usa el índice de 'maintenance_usage' y arma la vista liviana en el SELECT (sin cargar Vehicle).
+    @Query("SELECT new uce.edu.GestionFlota.Dto.VehicleAlert(v.id, v.licensePlate, v.brand, v.model, v.mileage, "
+            + "v.lastMaintenanceKm, v.maintenanceIntervalKm, v.nextMaintenanceKm, v.maintenanceUsage) "
+            + "FROM Vehicle v WHERE v.maintenanceUsage >= :minUsage ORDER BY v.maintenanceUsage DESC, v.id")
+    List<VehicleAlert> findAlerts(@Param("minUsage") Double minUsage, Limit limit);
+
+    // Conteo del semáforo: ROJO, AMARILLO y VERDE en UNA consulta agrupada sobre 'maintenance_usage'.
+    @Query("SELECT new uce.edu.GestionFlota.Dto.AlertCount(" + LEVEL_OF_USAGE + ", COUNT(v)) "
+            + "FROM Vehicle v GROUP BY " + LEVEL_OF_USAGE)
+    List<AlertCount> countByMaintenanceLevel();
+
+    // Calcula próximo mantenimiento y % de uso a los carros que no los tienen (BD anteriores), en 1 UPDATE.
+    @Modifying
+    @Query("UPDATE Vehicle v SET v.nextMaintenanceKm = COALESCE(v.lastMaintenanceKm, 0.0) + " + INTERVAL_KM + ", "
+            + "v.maintenanceUsage = (COALESCE(v.mileage, 0.0) - COALESCE(v.lastMaintenanceKm, 0.0)) * 100.0 / "
+            + INTERVAL_KM + ", v.updatedAt = :now WHERE v.nextMaintenanceKm IS NULL OR v.maintenanceUsage IS NULL")
+    int fillMissingMaintenanceSchedule(@Param("now") LocalDateTime now);
+
+    // Borra varios vehículos con UN solo DELETE (sin cargarlos). Devuelve cuántos existían.
+    // Sus mantenimientos se borran antes (MaintenanceRepository.deleteByVehicleIds).
+    @Modifying
+    @Query("DELETE FROM Vehicle v WHERE v.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // Huella de TODA la flota (para el ETag de GET /api/vehicles). 1 consulta, sin cargar vehículos.
+    @Query("SELECT COUNT(v) AS count, MAX(v.id) AS maxId, MAX(v.updatedAt) AS lastUpdate FROM Vehicle v")
+    CollectionVersion findFleetVersion();
+
+    // --- RESUMEN DE MANTENIMIENTOS (columnas de resumen en 'vehicles') ---
+
+    // Resumen de 1 carro: lee UNA fila, sin tocar el historial.
+    @Query("SELECT new uce.edu.GestionFlota.Dto.MaintenanceSummary(v.id, v.licensePlate, v.maintenanceCount, "
+            + "v.preventiveCount, v.correctiveCount, v.maintenanceTotalCost, v.lastMaintenanceDate) "
+            + "FROM Vehicle v WHERE v.id = :id")
+    Optional<MaintenanceSummary> findMaintenanceSummary(@Param("id") Long id);
+
+    // Sumar UN mantenimiento nuevo al resumen: ver VehicleRepositoryCustom.addToMaintenanceSummary (JDBC).
+
+    // Recalcula el resumen de 1 carro desde su historial (ediciones y borrados de mantenimientos).
+    // flushAutomatically: primero se escriben los cambios pendientes, para que los SELECT los vean.
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = VEHICLES_SPACE, value = "vehicles"))
+    @Query(value = "UPDATE vehicles SET " + SUMMARY_FROM_HISTORY + " WHERE id = :id", nativeQuery = true)
+    int refreshMaintenanceSummary(@Param("id") Long id);
+
+    // Carga inicial: calcula el resumen de los carros que no lo tienen (BD anteriores), en 1 UPDATE.
+    @Modifying
+    @QueryHints(@QueryHint(name = VEHICLES_SPACE, value = "vehicles"))
+    @Query(value = "UPDATE vehicles SET " + SUMMARY_FROM_HISTORY + " WHERE maintenance_count IS NULL",
+            nativeQuery = true)
+    int fillMissingMaintenanceSummary();
 }
\ No newline at end of file
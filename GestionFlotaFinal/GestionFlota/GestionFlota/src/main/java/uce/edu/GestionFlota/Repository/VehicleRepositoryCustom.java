@@ -0,0 +1,32 @@
+package uce.edu.GestionFlota.Repository;
+
+import org.springframework.data.domain.Sort;
+import uce.edu.GestionFlota.Dto.FacetCount;
+import uce.edu.GestionFlota.Dto.VehicleFilter;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas de vehículos que no se pueden expresar con Spring Data
+ * (se implementan a mano en VehicleRepositoryCustomImpl).
+ */
+public interface VehicleRepositoryCustom {
+
+    // Sube el kilometraje de muchos vehículos en UN solo lote JDBC (id -> km).
+    // Nunca baja el kilometraje. Devuelve cuántos vehículos se actualizaron.
+    int updateMileages(Map<Long, Double> mileageByVehicle);
+
+    // Suma UN mantenimiento nuevo al resumen del carro (O(1), no recorre el historial).
+    // Por JDBC y no con un UPDATE de JPQL: Hibernate vaciaría TODA la cache de vehículos
+    // en cada mantenimiento guardado; aquí solo se saca de la cache este carro.
+    int addToMaintenanceSummary(Long id, int preventive, int corrective, double cost, LocalDate date);
+
+    // Inventario: una página de vehículos que cumplen los filtros, ordenada en la BD (LIMIT/OFFSET).
+    List<Vehicle> findByFilter(VehicleFilter filter, Sort sort, int offset, int limit);
+
+    // Conteo por (estado, marca) de los vehículos que cumplen los filtros, en UN solo GROUP BY.
+    List<FacetCount> countByStatusAndBrand(VehicleFilter filter);
+}
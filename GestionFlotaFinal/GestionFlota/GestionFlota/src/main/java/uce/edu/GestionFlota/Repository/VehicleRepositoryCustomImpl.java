@@ -0,0 +1,191 @@
+package uce.edu.GestionFlota.Repository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uce.edu.GestionFlota.Dto.FacetCount;
+import uce.edu.GestionFlota.Dto.VehicleFilter;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementación de VehicleRepositoryCustom con JDBC directo (escrituras masivas)
+ * y Criteria de JPA (consultas con filtros opcionales).
+ * Spring Data la encuentra sola por el sufijo "Impl".
+ */
+public class VehicleRepositoryCustomImpl implements VehicleRepositoryCustom {
+
+    // Un UPDATE con parámetros, enviado en lote. Además del kilometraje recalcula el
+    // % de uso del semáforo (ver Vehicle.refreshMaintenanceSchedule), porque aquí no
+    // pasamos por las entidades de Hibernate.
+    // 'mileage < ?': una lectura vieja o repetida no puede bajar el odómetro.
+    private static final String UPDATE_MILEAGE_SQL = "UPDATE vehicles SET mileage = ?, updated_at = ?, "
+            + "maintenance_usage = (? - COALESCE(last_maintenance_km, 0)) * 100.0 / "
+            + "(CASE WHEN maintenance_interval_km > 0 THEN maintenance_interval_km ELSE 5000 END) "
+            + "WHERE id = ? AND (mileage IS NULL OR mileage < ?)";
+
+    // Igual que las columnas de resumen de Vehicle: sin datos (NULL) cuenta como 0.
+    private static final String ADD_TO_SUMMARY_SQL = "UPDATE vehicles SET "
+            + "maintenance_count = COALESCE(maintenance_count, 0) + 1, "
+            + "preventive_count = COALESCE(preventive_count, 0) + ?, "
+            + "corrective_count = COALESCE(corrective_count, 0) + ?, "
+            + "maintenance_total_cost = COALESCE(maintenance_total_cost, 0) + ?, "
+            + "last_maintenance_date = CASE WHEN last_maintenance_date IS NULL OR last_maintenance_date < ? "
+            + "THEN ? ELSE last_maintenance_date END WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // Para sacar de la cache los carros actualizados
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateMileages(Map<Long, Double> mileageByVehicle) {
+        if (mileageByVehicle.isEmpty()) {
+            return 0;
+        }
+        // La hora la pone Java (igual que @UpdateTimestamp), así el ETag de la flota cambia
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> params = new ArrayList<>(mileageByVehicle.size());
+        for (Map.Entry<Long, Double> entry : mileageByVehicle.entrySet()) {
+            Double km = entry.getValue();
+            params.add(new Object[] { km, now, km, entry.getKey(), km });
+        }
+
+        evictBeforeAndAfterCommit(mileageByVehicle.keySet());
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPDATE_MILEAGE_SQL, params)) {
+            // Algunos drivers no saben cuántas filas tocó cada sentencia del lote
+            updated += (count == Statement.SUCCESS_NO_INFO) ? 1 : count;
+        }
+
+        return updated;
+    }
+
+    @Override
+    public int addToMaintenanceSummary(Long id, int preventive, int corrective, double cost, LocalDate date) {
+        Date day = (date == null) ? null : Date.valueOf(date);
+        evictBeforeAndAfterCommit(Set.of(id));
+        return jdbcTemplate.update(ADD_TO_SUMMARY_SQL, preventive, corrective, cost, day, day, id);
+    }
+
+    @Override
+    public List<Vehicle> findByFilter(VehicleFilter filter, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Vehicle> query = cb.createQuery(Vehicle.class);
+        Root<Vehicle> vehicle = query.from(Vehicle.class);
+        query.select(vehicle).where(filterPredicates(cb, vehicle, filter));
+        // El ID al final desempata: sin él, dos páginas podrían repetir o saltarse carros
+        query.orderBy(QueryUtils.toOrders(sort.and(Sort.by("id")), vehicle, cb));
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // Por JDBC: el dialecto de PostgreSQL haría 'GROUP BY 1,2' desde JPA, y con las columnas
+    // escritas la consulta coincide tal cual con el índice (status, brand) de la migración V8.
+    @Override
+    public List<FacetCount> countByStatusAndBrand(VehicleFilter filter) {
+        StringBuilder sql = new StringBuilder("SELECT status, brand, COUNT(*) FROM vehicles WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        appendFacetCondition(sql, params, "status", filter.getStatus());
+        appendFacetCondition(sql, params, "brand", filter.getBrand());
+        appendCondition(sql, params, "production_year >= ?", filter.getYearFrom());
+        appendCondition(sql, params, "production_year <= ?", filter.getYearTo());
+        appendCondition(sql, params, "mileage >= ?", filter.getMinMileage());
+        appendCondition(sql, params, "mileage <= ?", filter.getMaxMileage());
+        sql.append(" GROUP BY status, brand");
+        return jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new FacetCount(rs.getString(1), rs.getString(2), rs.getLong(3)), params.toArray());
+    }
+
+    // Estado o marca: VehicleFilter.NONE es "columna en NULL" (así la faceta de los que no tienen vuelve como filtro)
+    private static void appendFacetCondition(StringBuilder sql, List<Object> params, String column, String value) {
+        if (VehicleFilter.NONE.equals(value)) {
+            sql.append(" AND ").append(column).append(" IS NULL");
+        } else {
+            appendCondition(sql, params, column + " = ?", value);
+        }
+    }
+
+    private static void appendCondition(StringBuilder sql, List<Object> params, String condition, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(condition);
+            params.add(value);
+        }
+    }
+
+    // Un WHERE con solo los filtros que vienen (los null no se agregan a la consulta).
+    private Predicate[] filterPredicates(CriteriaBuilder cb, Root<Vehicle> vehicle, VehicleFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            predicates.add(facetPredicate(cb, vehicle.get("status"), filter.getStatus()));
+        }
+        if (filter.getBrand() != null) {
+            predicates.add(facetPredicate(cb, vehicle.get("brand"), filter.getBrand()));
+        }
+        if (filter.getYearFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(vehicle.get("year"), filter.getYearFrom()));
+        }
+        if (filter.getYearTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(vehicle.get("year"), filter.getYearTo()));
+        }
+        if (filter.getMinMileage() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(vehicle.get("mileage"), filter.getMinMileage()));
+        }
+        if (filter.getMaxMileage() != null) {
+            predicates.add(cb.lessThanOrEqualTo(vehicle.get("mileage"), filter.getMaxMileage()));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private static Predicate facetPredicate(CriteriaBuilder cb, Path<String> column, String value) {
+        return VehicleFilter.NONE.equals(value) ? cb.isNull(column) : cb.equal(column, value);
+    }
+
+    /**
+     * Hibernate no ve los UPDATE por JDBC: sacamos esos carros de la cache de segundo nivel
+     * dos veces. ANTES del UPDATE, para que nada en esta misma transacción (ni otra petición)
+     * lea la fila vieja desde la cache; y otra vez al confirmar (commit), por si otra petición
+     * volvió a guardar en la cache la fila vieja mientras la transacción seguía abierta.
+     */
+    private void evictBeforeAndAfterCommit(Collection<Long> vehicleIds) {
+        Cache cache = entityManagerFactory.getCache();
+        Runnable evict = () -> vehicleIds.forEach(id -> cache.evict(Vehicle.class, id));
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package uce.edu.GestionFlota.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uce.edu.GestionFlota.Dto.FleetEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio de Eventos de la Flota (Server-Sent Events).
+ * Reparte los cambios (carro guardado/borrado, mantenimiento nuevo) a todos los
+ * navegadores conectados, en vez de que cada uno recargue toda la flota.
+ *
+ * Cada cliente tiene su propia cola chiquita y su propio envío: mientras se le escribe
+ * a un cliente, ese hilo es solo suyo, así un cliente colgado nunca frena a los demás.
+ * Se desconecta al cliente (el navegador se reconecta solo y recarga) si:
+ * - se le llena la cola (es más lento que los eventos que llegan), o
+ * - una escritura tarda más que 'fleet.events.send-timeout-ms' (conexión trabada).
+ */
+@Service
+public class FleetEventService {
+
+    // Cuántos eventos pueden esperar por cliente antes de desconectarlo
+    public static final int CLIENT_QUEUE_SIZE = 256;
+
+    // Tiempo máximo de una conexión; después el navegador se reconecta solo
+    private static final Duration CONNECTION_TIMEOUT = Duration.ofMinutes(30);
+
+    // Cada cuánto se revisa si alguna escritura se pasó del tiempo máximo
+    private static final long WATCHDOG_INTERVAL_MS = 500;
+
+    @Autowired
+    private MeterRegistry meterRegistry; // Métricas (Actuator): clientes y eventos pendientes
+
+    // Tiempo máximo de UNA escritura a un cliente; si se pasa, el cliente se desconecta
+    @Value("${fleet.events.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10_000;
+
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Un hilo por cliente al que se le está escribiendo en ese momento (los que no reciben
+    // nada no ocupan hilo). Los hilos libres se reutilizan y se cierran solos al minuto.
+    private final AtomicInteger senderCount = new AtomicInteger();
+    private final ExecutorService sender = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "fleet-events-" + senderCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fleet-events-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FleetEventService() {
+        watchdog.scheduleWithFixedDelay(this::dropStalledClients, WATCHDOG_INTERVAL_MS, WATCHDOG_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("fleet.events.clients", subscribers, list -> list.size());
+        meterRegistry.gauge("fleet.events.backlog", subscribers,
+                list -> list.stream().mapToInt(s -> s.queue.size()).sum());
+    }
+
+    /**
+     * Conecta un navegador nuevo. Devuelve el "canal" SSE que Spring deja abierto.
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(CONNECTION_TIMEOUT.toMillis()));
+    }
+
+    // Separado para poder probar con un cliente "lento" simulado
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Reparte el evento a todos los clientes, SOLO cuando la transacción que lo
+     * generó se confirmó (commit). Si se deshizo (rollback), nadie se entera.
+     * No bloquea: solo lo deja en la cola de cada cliente.
+     */
+    @TransactionalEventListener(fallbackExecution = true) // fallback: guardados sin transacción propia
+    public void publish(FleetEvent event) {
+        meterRegistry.counter("fleet.events.published").increment();
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(event)) {
+                // Cliente demasiado lento: lo soltamos para que no acumule memoria
+                drop(subscriber);
+                continue;
+            }
+            scheduleDrain(subscriber);
+        }
+    }
+
+    public int getClientCount() {
+        return subscribers.size();
+    }
+
+    // Pone un hilo a vaciar la cola del cliente (si no hay uno trabajando ya en ella)
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            FleetEvent event;
+            while (!subscriber.closed && (event = subscriber.queue.poll()) != null) {
+                synchronized (subscriber) {
+                    subscriber.sendingThread = Thread.currentThread();
+                    subscriber.sendStartedNanos = System.nanoTime();
+                }
+                subscriber.emitter.send(SseEmitter.event().name(event.getType())
+                        .data(event, MediaType.APPLICATION_JSON));
+                synchronized (subscriber) {
+                    subscriber.sendingThread = null;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            disconnect(subscriber); // El navegador se cerró o la conexión se cortó
+        } finally {
+            synchronized (subscriber) {
+                subscriber.sendingThread = null;
+            }
+            Thread.interrupted(); // Que una interrupción del watchdog no pase a la próxima tarea del hilo
+            subscriber.draining.set(false);
+        }
+        if (subscriber.closed) {
+            complete(subscriber); // Aquí sí: ya no hay una escritura en curso
+            return;
+        }
+        // Pudo llegar un evento justo mientras terminábamos
+        if (!subscriber.queue.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    // Revisa las escrituras en curso: la que se pasó del tiempo máximo desconecta a su cliente
+    void dropStalledClients() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            synchronized (subscriber) {
+                if (subscriber.sendingThread != null
+                        && now - subscriber.sendStartedNanos > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs)) {
+                    drop(subscriber);
+                }
+            }
+        }
+    }
+
+    // Desconecta a un cliente lento o trabado (cuenta en 'fleet.events.dropped.clients')
+    private void drop(Subscriber subscriber) {
+        meterRegistry.counter("fleet.events.dropped.clients").increment();
+        disconnect(subscriber);
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        synchronized (subscriber) {
+            subscriber.closed = true;
+            if (subscriber.sendingThread != null) {
+                // complete() esperaría a la escritura trabada (comparten el mismo candado):
+                // interrumpimos el envío y el propio hilo del cliente cierra el canal al salir.
+                subscriber.sendingThread.interrupt();
+                return;
+            }
+        }
+        if (!subscriber.draining.get()) {
+            complete(subscriber);
+        }
+    }
+
+    // Cierra el canal una sola vez (lo pueden pedir a la vez el hilo del cliente y quien lo desconecta)
+    private void complete(Subscriber subscriber) {
+        if (subscriber.completed.compareAndSet(false, true)) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdownNow();
+        subscribers.forEach(this::disconnect);
+        sender.shutdownNow();
+    }
+
+    // Un navegador conectado y los eventos que todavía no se le enviaron
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<FleetEvent> queue = new ArrayBlockingQueue<>(CLIENT_QUEUE_SIZE);
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+        private volatile boolean closed;
+        // Escritura en curso (null = ninguna). Se leen y cambian dentro de synchronized(subscriber).
+        private Thread sendingThread;
+        private long sendStartedNanos;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
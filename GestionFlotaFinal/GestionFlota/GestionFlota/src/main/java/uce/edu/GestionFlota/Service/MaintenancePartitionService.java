@@ -0,0 +1,89 @@
+package uce.edu.GestionFlota.Service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uce.edu.GestionFlota.Repository.MaintenanceRepository;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Servicio de Particiones Mensuales de Mantenimientos (PostgreSQL).
+ * La tabla 'maintenances' tiene una partición por mes (migración V9): los reportes
+ * de un mes leen solo esa partición. Este servicio:
+ * 1. Crea por adelantado las particiones del mes actual y los siguientes
+ *    ('maintenance.partitions.months-ahead'), al arrancar y cada madrugada.
+ * 2. Si se configura 'maintenance.partitions.retention-months', separa (DETACH) los
+ *    meses más viejos: no copia ni borra filas, la tabla del mes pasa a 'maintenances_archive'
+ *    (V12, sin llave foránea a vehicles: borrar o dar de baja carros sigue funcionando).
+ * En H2 (pruebas) no hay particiones y no hace nada.
+ */
+@Service
+public class MaintenancePartitionService {
+
+    @Autowired
+    private MaintenanceRepository repository;
+
+    @Value("${maintenance.partitions.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    // 0 = nunca separar meses viejos
+    @Value("${maintenance.partitions.retention-months:0}")
+    private int retentionMonths = 0;
+
+    /**
+     * Revisa las particiones: crea las que falten y separa las vencidas.
+     * Todo es idempotente: correrlo dos veces no cambia nada.
+     *
+     * @return Nombres de las particiones creadas (vacío si ya estaban o la BD no particiona).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${maintenance.partitions.cron:0 0 3 * * *}")
+    public List<String> maintainPartitions() {
+        List<String> created = new ArrayList<>();
+        if (!repository.supportsPartitions()) {
+            return created;
+        }
+
+        // Un mantenimiento con fecha a futuro sin partición caería en la DEFAULT
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            String name = repository.createMonthlyPartition(current.plusMonths(i).atDay(1));
+            if (name != null) {
+                created.add(name);
+            }
+        }
+        if (!created.isEmpty()) {
+            System.out.println("✅ [PARTICIONES] Se crearon las particiones " + created + ".");
+        }
+
+        if (retentionMonths > 0) {
+            detachPartitionsBefore(current.minusMonths(retentionMonths));
+        }
+        return created;
+    }
+
+    /**
+     * Separa de 'maintenances' los meses anteriores a 'month' (Ej: 2025-01 separa 2024-12 y antes).
+     * Es un cambio de catálogo: tarda lo mismo sin importar cuántas filas tenga el mes.
+     * Los acumulados del Dashboard, el resumen de cada carro, los historiales, el reporte y la
+     * exportación leen la vista 'maintenances_history' (activos + archivo): todos siguen mostrando
+     * los meses archivados y cuadran entre sí.
+     */
+    public List<String> detachPartitionsBefore(YearMonth month) {
+        if (!repository.supportsPartitions()) {
+            return List.of();
+        }
+        List<String> detached = repository.detachPartitionsBefore(month.atDay(1));
+        if (!detached.isEmpty()) {
+            System.out.println("✅ [PARTICIONES] Se separaron los meses " + detached
+                    + " (las tablas siguen en la BD, en maintenances_archive).");
+        }
+        return detached;
+    }
+}
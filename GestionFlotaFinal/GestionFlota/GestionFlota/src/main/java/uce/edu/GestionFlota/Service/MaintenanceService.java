@@ -6,13 +6,41 @@ package uce.edu.GestionFlota.Service;
  * @author USER
  */
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import jakarta.transaction.Transactional;
 
 
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import uce.edu.GestionFlota.Dto.CostSummary;
+import uce.edu.GestionFlota.Dto.FleetEvent;
+import uce.edu.GestionFlota.Dto.MaintenanceChange;
+import uce.edu.GestionFlota.Dto.MaintenanceSummary;
+import uce.edu.GestionFlota.Dto.MaintenanceView;
+import uce.edu.GestionFlota.Dto.RollupTotals;
 import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.MaintenanceRollup;
 import uce.edu.GestionFlota.Repository.MaintenanceRepository;
+import uce.edu.GestionFlota.Repository.MaintenanceRollupRepository;
+import uce.edu.GestionFlota.Repository.VehicleRepository;
 
 /**
  * Servicio de Mantenimiento.
@@ -21,18 +49,94 @@ import uce.edu.GestionFlota.Repository.MaintenanceRepository;
 @Service
 public class MaintenanceService {
 
+    // Tipo que se usa en los acumulados cuando un mantenimiento llega sin tipo.
+    public static final String SIN_TIPO = "Sin tipo";
+
+    // Rango "sin filtro" para las exportaciones que no indican mes.
+    private static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    // Rango máximo del reporte por fechas (un año): el costo crece con las filas del rango.
+    public static final int MAX_REPORT_DAYS = 366;
+
     @Autowired
     private MaintenanceRepository repository;
 
+    @Autowired
+    private MaintenanceRollupRepository rollupRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository; // Resumen de mantenimientos guardado en cada vehículo
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // Avisos en vivo a los navegadores (SSE)
+
     // ==========================================
     // MÉTODO 1: GUARDAR (Save)
     // ==========================================
     /**
      * Registra un nuevo mantenimiento en la base de datos.
      * Este es el método que te faltaba llamar 'saveMaintenance'.
+     * En la MISMA transacción actualiza el acumulado del mes/tipo y el resumen
+     * del vehículo, así el Dashboard nunca ve un total que no cuadre con el historial.
      */
+    @Transactional
     public Maintenance saveMaintenance(Maintenance maintenance) {
-        return repository.save(maintenance);
+        if (maintenance.getDate() == null) {
+            maintenance.setDate(LocalDate.now()); // Sin fecha no sabríamos a qué mes sumarlo
+        }
+
+        // Si es una edición, anotamos a qué mes/tipo pertenecía ANTES de guardar
+        // (el merge de JPA sobrescribe la entidad que leímos).
+        Maintenance previous = (maintenance.getId() == null) ? null
+                : repository.findById(maintenance.getId()).orElse(null);
+        String oldMonth = (previous == null) ? null : monthKey(previous.getDate());
+        String oldType = (previous == null) ? null : rollupType(previous.getType());
+        Long oldVehicleId = (previous == null) ? null : vehicleId(previous);
+
+        Maintenance saved = repository.save(maintenance);
+
+        if (previous == null) {
+            // Caso normal (nuevo registro): suma incremental, O(1).
+            addToRollup(saved);
+            addToSummary(saved);
+        } else {
+            // Edición: el costo/mes/tipo pudo cambiar, recalculamos los grupos afectados.
+            rebuildRollup(oldMonth, oldType);
+            if (!oldMonth.equals(monthKey(saved.getDate())) || !oldType.equals(rollupType(saved.getType()))) {
+                rebuildRollup(monthKey(saved.getDate()), rollupType(saved.getType()));
+            }
+            // Y el resumen del vehículo (de los dos, si el mantenimiento se cambió de carro)
+            refreshSummary(oldVehicleId);
+            if (vehicleId(saved) != null && !vehicleId(saved).equals(oldVehicleId)) {
+                refreshSummary(vehicleId(saved));
+            }
+        }
+
+        // Se envía recién después del commit (ver FleetEventService)
+        eventPublisher.publishEvent(new FleetEvent(FleetEvent.MAINTENANCE_SAVED, vehicleId(saved),
+                new MaintenanceChange(saved)));
+        return saved;
+    }
+
+    /**
+     * Borra un mantenimiento y, en la misma transacción, lo descuenta del
+     * acumulado de su mes/tipo y del resumen de su vehículo.
+     *
+     * @return false si el mantenimiento no existe.
+     */
+    @Transactional
+    public boolean deleteMaintenance(Long id) {
+        Maintenance maintenance = repository.findById(id).orElse(null);
+        if (maintenance == null) {
+            return false;
+        }
+        repository.delete(maintenance);
+        rebuildRollup(monthKey(maintenance.getDate()), rollupType(maintenance.getType()));
+        refreshSummary(vehicleId(maintenance));
+
+        eventPublisher.publishEvent(new FleetEvent(FleetEvent.MAINTENANCE_DELETED, vehicleId(maintenance), null));
+        return true;
     }
 
     // ==========================================
@@ -58,4 +162,328 @@ public class MaintenanceService {
         // Usamos Sort para que salgan primero los más recientes (DESC = Descendente)
         return repository.findAll(Sort.by(Sort.Direction.DESC, "date"));
     }
+
+    /**
+     * Versión liviana del historial de un vehículo (la que usa la API).
+     * Una sola consulta con JOIN y sin repetir el Vehicle completo en cada fila.
+     */
+    public List<MaintenanceView> getHistoryViewsByVehicle(Long vehicleId) {
+        return repository.findViewsByVehicleId(vehicleId);
+    }
+
+    /**
+     * Resumen de mantenimientos de un vehículo: total, preventivos, correctivos,
+     * costo total y fecha del último. Lee 1 sola fila (no recorre el historial).
+     */
+    public Optional<MaintenanceSummary> getSummaryByVehicle(Long vehicleId) {
+        return vehicleRepository.findMaintenanceSummary(vehicleId);
+    }
+
+    /**
+     * ETag del historial de un vehículo (1 consulta de agregados, sin cargar filas).
+     */
+    public String getHistoryETag(Long vehicleId) {
+        return repository.findHistoryVersion(vehicleId).toETag();
+    }
+
+    /**
+     * Versión liviana del reporte global (la que usa la API).
+     */
+    public List<MaintenanceView> getAllMaintenanceViews() {
+        return repository.findAllViews();
+    }
+
+    /**
+     * Busca un vehículo por placa y trae su historial en UNA sola consulta
+     * (antes el Frontend hacía 2 llamadas: buscar placa y luego pedir el historial).
+     *
+     * @param from  Desde qué fecha (null = desde el inicio).
+     * @param to    Hasta qué fecha (null = hasta hoy y más allá).
+     * @param limit Máximo de mantenimientos, los más recientes primero (null = todos).
+     * @return { "vehicle": {...}, "history": [...] }, o vacío si la placa no existe.
+     */
+    public Optional<Map<String, Object>> getHistoryByPlate(String licensePlate, LocalDate from, LocalDate to,
+            Integer limit) {
+        List<MaintenanceView> rows = repository.findViewsByPlateAndDateBetween(licensePlate,
+                (from == null) ? MIN_DATE : from,
+                (to == null) ? MAX_DATE : to,
+                (limit == null) ? Limit.unlimited() : Limit.of(Math.max(1, limit)));
+        if (rows.isEmpty()) {
+            return Optional.empty(); // La placa no existe
+        }
+
+        List<MaintenanceView> history = new ArrayList<>();
+        for (MaintenanceView row : rows) {
+            if (row.getId() != null) { // id null = vehículo sin mantenimientos en ese rango
+                history.add(row);
+            }
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("vehicle", rows.get(0).getVehicle());
+        response.put("history", history);
+        return Optional.of(response);
+    }
+
+    /**
+     * Reporte de mantenimientos entre dos fechas (Ej: el mes del Reporte Mensual Global).
+     * UNA consulta por rango de fechas (índice idx_maintenances_report; en PostgreSQL además
+     * solo lee la partición de ese mes). Los subtotales se suman en la misma pasada por las
+     * filas, así el reporte cuesta O(filas del rango), no O(todo el historial).
+     *
+     * @param from      Desde (incluida).
+     * @param to        Hasta (incluida).
+     * @param type      Tipo exacto (Ej: "Preventivo"), o null = todos.
+     * @param vehicleId Solo este vehículo, o null = toda la flota.
+     * @return { "from", "to", "count", "totalCost", "byType": [...], "byVehicle": [...], "rows": [...] }
+     */
+    public Map<String, Object> getMaintenanceReport(LocalDate from, LocalDate to, String type, Long vehicleId) {
+        List<MaintenanceView> rows = repository.findReportRows(from, to, type, vehicleId);
+
+        CostSummary total = new CostSummary("total");
+        Map<String, CostSummary> byType = new TreeMap<>();
+        Map<String, CostSummary> byVehicle = new TreeMap<>(); // Por placa, en orden alfabético
+        for (MaintenanceView row : rows) {
+            double cost = (row.getCost() == null) ? 0.0 : row.getCost();
+            Long rowVehicleId = (row.getVehicle() == null) ? null : row.getVehicle().getId();
+            String plate = (row.getVehicle() == null) ? null : row.getVehicle().getLicensePlate();
+            total.merge(cost, 1, cost, rowVehicleId, plate);
+            byType.computeIfAbsent(rollupType(row.getType()), CostSummary::new)
+                    .merge(cost, 1, cost, rowVehicleId, plate);
+            byVehicle.computeIfAbsent((plate == null) ? "N/A" : plate, CostSummary::new)
+                    .merge(cost, 1, cost, rowVehicleId, plate);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", from);
+        response.put("to", to);
+        response.put("count", total.getCount());
+        response.put("totalCost", total.getTotalCost());
+        response.put("byType", new ArrayList<>(byType.values()));
+        response.put("byVehicle", new ArrayList<>(byVehicle.values()));
+        response.put("rows", rows);
+        return response;
+    }
+
+    // ==========================================
+    // MÉTODO 4: ANALÍTICA (Acumulados)
+    // ==========================================
+    /**
+     * Devuelve los gastos agrupados por mes y por tipo, leyendo SOLO la tabla de
+     * acumulados. Cuesta O(meses x tipos), no O(todos los mantenimientos).
+     *
+     * @return { "byMonth": [...ordenado por mes...], "byType": [...] }
+     */
+    public Map<String, List<CostSummary>> getCostAnalytics() {
+        Map<String, CostSummary> byMonth = new TreeMap<>(); // TreeMap: los meses salen ordenados
+        Map<String, CostSummary> byType = new LinkedHashMap<>();
+
+        for (Object[] row : rollupRepository.findAllWithTopVehiclePlate()) {
+            MaintenanceRollup rollup = (MaintenanceRollup) row[0];
+            String plate = (String) row[1];
+
+            byMonth.computeIfAbsent(rollup.getMonthKey(), CostSummary::new)
+                    .merge(rollup.getTotalCost(), rollup.getMaintenanceCount(), rollup.getMaxCost(),
+                            rollup.getTopVehicleId(), plate);
+            byType.computeIfAbsent(rollup.getType(), CostSummary::new)
+                    .merge(rollup.getTotalCost(), rollup.getMaintenanceCount(), rollup.getMaxCost(),
+                            rollup.getTopVehicleId(), plate);
+        }
+
+        Map<String, List<CostSummary>> response = new HashMap<>();
+        response.put("byMonth", new ArrayList<>(byMonth.values()));
+        response.put("byType", new ArrayList<>(byType.values()));
+        return response;
+    }
+
+    // ==========================================
+    // MÉTODO 5: EXPORTAR A CSV (Streaming)
+    // ==========================================
+    /**
+     * Escribe el reporte de mantenimientos en formato CSV (se abre en Excel),
+     * fila por fila a medida que llegan de la BD, y al final la fila TOTAL GENERAL.
+     * La memoria del servidor no crece aunque el reporte tenga millones de filas.
+     *
+     * @param month     Mes a exportar (null = todo el historial).
+     * @param vehicleId Vehículo a exportar (null = toda la empresa).
+     * @param writer    Destino (normalmente la respuesta HTTP).
+     */
+    @Transactional
+    public void exportMaintenancesCsv(YearMonth month, Long vehicleId, Writer writer) throws IOException {
+        LocalDate from = (month == null) ? MIN_DATE : month.atDay(1);
+        LocalDate to = (month == null) ? MAX_DATE : month.atEndOfMonth();
+
+        writer.write('\uFEFF'); // BOM: para que Excel muestre bien las tildes
+        writeCsvRow(writer, "Fecha", "Placa", "Tipo", "Kilometraje", "Detalle", "Costo");
+
+        double total = 0.0;
+        try (Stream<MaintenanceView> maintenances = (vehicleId == null)
+                ? repository.streamByDateBetween(from, to)
+                : repository.streamByVehicleIdAndDateBetween(vehicleId, from, to)) {
+            Iterator<MaintenanceView> iterator = maintenances.iterator();
+            while (iterator.hasNext()) {
+                MaintenanceView m = iterator.next();
+                writeCsvRow(writer, m.getDate(),
+                        (m.getVehicle() == null) ? "N/A" : text(m.getVehicle().getLicensePlate()),
+                        text(m.getType()), number(m.getMileageAtMaintenance()), text(m.getDescription()),
+                        number(m.getCost()));
+                total += (m.getCost() == null) ? 0.0 : m.getCost();
+            }
+        }
+
+        writeCsvRow(writer, "TOTAL GENERAL", "", "", "", "", number(total));
+        writer.flush();
+    }
+
+    /**
+     * Devuelve los grupos mes/tipo en los que tienen mantenimientos estos vehículos
+     * (1 sola consulta). Se llama ANTES de borrarlos, para luego recalcular esos grupos.
+     */
+    public List<MaintenanceRollup> findRollupsByVehicles(Collection<Long> vehicleIds) {
+        return toRollupKeys(repository.findDatesAndTypesByVehicleIds(vehicleIds));
+    }
+
+    /**
+     * Recalcula desde la BD los acumulados indicados (Ej: después de borrar vehículos).
+     * Por conjunto: la misma cantidad de sentencias para 1 grupo que para cientos
+     * (ver MaintenanceRollupRepositoryCustom.rebuildFromHistory).
+     */
+    @Transactional
+    public void rebuildRollups(List<MaintenanceRollup> rollups) {
+        rollupRepository.rebuildFromHistory(rollups);
+    }
+
+    /**
+     * Carga Inicial de Acumulados.
+     * Si la tabla de acumulados está vacía pero ya hay mantenimientos (datos
+     * anteriores a esta versión), la llena una sola vez.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeRollups() {
+        if (rollupRepository.count() > 0 || repository.count() == 0) {
+            return;
+        }
+        List<MaintenanceRollup> keys = toRollupKeys(repository.findDistinctDatesAndTypes());
+        rebuildRollups(keys);
+        System.out.println("✅ [INIT] Se generaron " + keys.size() + " acumulados de mantenimiento.");
+    }
+
+    // ==========================================
+    // MÉTODOS DE AYUDA (Acumulados)
+    // ==========================================
+
+    // Suma un mantenimiento nuevo a su acumulado (lo crea si es el primero del mes/tipo).
+    // Un solo upsert en la BD: dos primeros mantenimientos simultáneos del mismo mes/tipo
+    // ya no chocan con la llave única (antes uno de los dos terminaba en error 500).
+    private void addToRollup(Maintenance maintenance) {
+        double cost = (maintenance.getCost() == null) ? 0.0 : maintenance.getCost();
+        rollupRepository.addToRollup(monthKey(maintenance.getDate()), rollupType(maintenance.getType()),
+                cost, vehicleId(maintenance));
+    }
+
+    // Suma un mantenimiento nuevo al resumen de su vehículo (1 UPDATE, sin leer el historial).
+    private void addToSummary(Maintenance maintenance) {
+        Long vehicleId = vehicleId(maintenance);
+        if (vehicleId == null) {
+            return;
+        }
+        vehicleRepository.addToMaintenanceSummary(vehicleId,
+                "Preventivo".equals(maintenance.getType()) ? 1 : 0,
+                "Correctivo".equals(maintenance.getType()) ? 1 : 0,
+                (maintenance.getCost() == null) ? 0.0 : maintenance.getCost(),
+                maintenance.getDate());
+    }
+
+    // Recalcula el resumen de un vehículo desde su historial (ediciones y borrados).
+    private void refreshSummary(Long vehicleId) {
+        if (vehicleId != null) {
+            vehicleRepository.refreshMaintenanceSummary(vehicleId);
+        }
+    }
+
+    // Recalcula un acumulado con COUNT/SUM/MAX sobre los mantenimientos de ese mes.
+    private void rebuildRollup(String month, String type) {
+        YearMonth yearMonth = YearMonth.parse(month);
+        LocalDate from = yearMonth.atDay(1);
+        LocalDate to = yearMonth.atEndOfMonth();
+
+        // Primero la fila (creada si falta) y su bloqueo, DESPUÉS las sumas: así un registro
+        // simultáneo del mismo mes/tipo espera, o ya está incluido en el COUNT/SUM.
+        rollupRepository.insertIfMissing(month, type);
+        MaintenanceRollup rollup = rollupRepository.findByMonthKeyAndType(month, type).orElse(null);
+        RollupTotals totals = repository.sumByDateRangeAndType(from, to, type);
+
+        // Ya no quedan mantenimientos en ese grupo: borramos el acumulado.
+        if (totals == null || totals.getCount() == null || totals.getCount() == 0) {
+            if (rollup != null) {
+                rollupRepository.delete(rollup);
+            }
+            return;
+        }
+
+        if (rollup == null) {
+            rollup = new MaintenanceRollup(month, type);
+        }
+        List<Long> top = repository.findTopVehicleIds(from, to, type);
+        rollup.setTotalCost(totals.getTotalCost() == null ? 0.0 : totals.getTotalCost());
+        rollup.setMaintenanceCount(totals.getCount());
+        rollup.setMaxCost(totals.getMaxCost() == null ? 0.0 : totals.getMaxCost());
+        rollup.setTopVehicleId(top.isEmpty() ? null : top.get(0));
+        rollupRepository.save(rollup);
+    }
+
+    // Escribe una línea CSV, poniendo comillas solo a los campos que lo necesitan.
+    private static void writeCsvRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String text = (values[i] == null) ? "" : values[i].toString();
+            if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+                text = "\"" + text.replace("\"", "\"\"") + "\"";
+            }
+            writer.write(text);
+        }
+        writer.write("\r\n");
+    }
+
+    // Texto escrito por usuarios: si empieza con = + - @ (o tabulador/retorno) Excel lo toma como
+    // fórmula y la ejecuta al abrir el archivo. Con ' adelante se muestra como texto.
+    private static String text(String value) {
+        if (value == null || value.isEmpty() || "=+-@\t\r".indexOf(value.charAt(0)) < 0) {
+            return value;
+        }
+        return "'" + value;
+    }
+
+    // Números sin notación científica (1.5E7 confundiría a Excel).
+    private static String number(Double value) {
+        return (value == null) ? "" : BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    // Convierte filas (fecha, tipo) en la lista de grupos mes/tipo sin repetir.
+    private static List<MaintenanceRollup> toRollupKeys(List<Object[]> datesAndTypes) {
+        Map<String, MaintenanceRollup> keys = new LinkedHashMap<>();
+        for (Object[] row : datesAndTypes) {
+            if (row[0] == null) {
+                continue;
+            }
+            String month = monthKey((LocalDate) row[0]);
+            String type = rollupType((String) row[1]);
+            keys.putIfAbsent(month + "|" + type, new MaintenanceRollup(month, type));
+        }
+        return new ArrayList<>(keys.values());
+    }
+
+    private static Long vehicleId(Maintenance maintenance) {
+        return (maintenance.getVehicle() == null) ? null : maintenance.getVehicle().getId();
+    }
+
+    private static String monthKey(LocalDate date) {
+        return YearMonth.from(date).toString();
+    }
+
+    private static String rollupType(String type) {
+        return (type == null) ? SIN_TIPO : type;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package uce.edu.GestionFlota.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uce.edu.GestionFlota.Dto.OdometerReading;
+import uce.edu.GestionFlota.Repository.VehicleRepository;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio de Telemetría (odómetros de los rastreadores GPS).
+ * Los rastreadores reportan cada pocos segundos, así que NO vamos a la BD por
+ * cada lectura: las juntamos en memoria, guardamos solo la MAYOR de cada vehículo
+ * y cada 'telemetry.flush-ms' las escribimos todas juntas en un solo lote.
+ */
+@Service
+public class TelemetryService {
+
+    @Autowired
+    private VehicleRepository repository;
+
+    @Autowired
+    private VehicleService vehicleService; // Para sacar de la caché los carros con km nuevo
+
+    @Autowired
+    private MeterRegistry meterRegistry; // Métricas (Actuator): lecturas, rechazos, pendientes
+
+    // Máximo de vehículos distintos esperando en memoria. Si se llena (la BD no da
+    // abasto), rechazamos lecturas nuevas en vez de crecer sin límite.
+    @Value("${telemetry.max-pending:50000}")
+    private int maxPending = 50_000;
+
+    // vehículo -> mayor kilometraje reportado desde la última escritura
+    private final ConcurrentHashMap<Long, Double> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("telemetry.pending", pending, Map::size);
+    }
+
+    /**
+     * Recibe un lote de lecturas. Cada una cuesta O(1) y no toca la BD.
+     *
+     * @return Cuántas lecturas se aceptaron (las inválidas o sin espacio se descartan).
+     */
+    public int ingest(List<OdometerReading> readings) {
+        int accepted = 0;
+        for (OdometerReading reading : readings) {
+            if (offer(reading)) {
+                accepted++;
+            }
+        }
+        meterRegistry.counter("telemetry.readings", "result", "accepted").increment(accepted);
+        meterRegistry.counter("telemetry.readings", "result", "rejected").increment(readings.size() - accepted);
+        return accepted;
+    }
+
+    private boolean offer(OdometerReading reading) {
+        if (reading == null || reading.getVehicleId() == null
+                || reading.getMileage() == null || reading.getMileage() < 0) {
+            return false;
+        }
+        // Un carro que ya está esperando siempre entra (solo se compara el km);
+        // uno nuevo solo si queda espacio.
+        if (!pending.containsKey(reading.getVehicleId()) && pending.size() >= maxPending) {
+            return false;
+        }
+        pending.merge(reading.getVehicleId(), reading.getMileage(), Math::max);
+        return true;
+    }
+
+    // true = no entran más vehículos hasta la próxima escritura
+    public boolean isFull() {
+        return pending.size() >= maxPending;
+    }
+
+    /**
+     * Escribe en la BD lo acumulado: un UPDATE en lote para todos los vehículos.
+     * Las lecturas que llegan mientras escribimos quedan para la siguiente vuelta.
+     */
+    @Scheduled(fixedDelayString = "${telemetry.flush-ms:2000}")
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Double> batch = new HashMap<>();
+        for (Long vehicleId : pending.keySet()) {
+            Double km = pending.remove(vehicleId); // remove es atómico: nada se pierde ni se repite
+            if (km != null) {
+                batch.put(vehicleId, km);
+            }
+        }
+
+        long start = System.nanoTime();
+        int updated;
+        try {
+            updated = repository.updateMileages(batch);
+        } catch (RuntimeException e) {
+            // La BD falló: devolvemos las lecturas a la cola para el próximo intento
+            batch.forEach((vehicleId, km) -> pending.merge(vehicleId, km, Math::max));
+            throw e;
+        }
+        meterRegistry.timer("telemetry.flush").record(Duration.ofNanos(System.nanoTime() - start));
+        meterRegistry.counter("telemetry.vehicles.updated").increment(updated);
+
+        vehicleService.evictCachedVehicles(batch.keySet()); // La búsqueda por placa debe ver el km nuevo
+        return updated;
+    }
+
+    // Al apagar el servidor no perdemos las lecturas que quedaron en memoria
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,200 @@
+package uce.edu.GestionFlota.Service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uce.edu.GestionFlota.Dto.AuthPrincipal;
+import uce.edu.GestionFlota.Model.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Servicio de Tokens de Sesión.
+ * Al hacer login se entrega un token FIRMADO (HMAC-SHA256) con el ID, usuario,
+ * rol, vencimiento y versión de tokens del usuario. Para validarlo basta con recalcular
+ * la firma; que la versión siga vigente lo revisa UserService.isTokenCurrent.
+ * Formato: base64url(datos) + "." + base64url(firma)
+ *
+ * Hay dos tipos de token (no se pueden usar uno por el otro):
+ * - Sesión: va en 'Authorization: Bearer ...' y dura 'auth.token-ttl-minutes'.
+ * - Enlace: dura segundos y va en la URL (?access_token=...) de lo que el navegador abre
+ *   solo, sin poder mandar encabezados: EventSource (/events) y descargas (CSV).
+ */
+@Service
+public class TokenService {
+
+    // Máximo de tokens ya validados que recordamos (los menos usados se van primero).
+    public static final int PRINCIPAL_CACHE_SIZE = 10_000;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    // Tipo de token (va firmado dentro de los datos)
+    private static final String SESSION_SCOPE = "S";
+    private static final String LINK_SCOPE = "L";
+
+    // Clave para firmar. Si no se configura, se genera una al azar en cada arranque
+    // (y los tokens dejan de servir al reiniciar el servidor).
+    @Value("${auth.token-secret:}")
+    private String secret = "";
+
+    // Cuánto dura una sesión
+    @Value("${auth.token-ttl-minutes:480}")
+    private long ttlMinutes = 480;
+
+    // Cuánto dura un token de enlace: solo tiene que alcanzar para abrir la conexión o descarga
+    @Value("${auth.link-token-ttl-seconds:60}")
+    private long linkTtlSeconds = 60;
+
+    private SecretKeySpec key;
+
+    // Mac no se puede compartir entre hilos: cada hilo tiene el suyo
+    private ThreadLocal<Mac> macs;
+
+    // Caché token -> usuario ya validado. LinkedHashMap en orden de acceso = LRU.
+    // Todo acceso va dentro de synchronized(principalCache).
+    private final Map<String, AuthPrincipal> principalCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AuthPrincipal> eldest) {
+            return size() > PRINCIPAL_CACHE_SIZE;
+        }
+    };
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            System.out.println("⚠️ [AUTH] 'auth.token-secret' no está configurado: se usa una clave temporal.");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("No se pudo iniciar " + ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * Crea el token de sesión para un usuario que ya pasó el login.
+     */
+    public String issueToken(User user) {
+        return sign(SESSION_SCOPE, user.getId(), user.getUsername(), user.getRole(), user.getTokenVersion(),
+                Instant.now().plusSeconds(ttlMinutes * 60).getEpochSecond());
+    }
+
+    /**
+     * Crea un token de enlace (corta duración) para un usuario que ya tiene sesión.
+     * Lleva la misma versión que su token de sesión: si esa se revoca, este también.
+     */
+    public String issueLinkToken(AuthPrincipal principal) {
+        return sign(LINK_SCOPE, principal.getUserId(), principal.getUsername(), principal.getRole(),
+                principal.getTokenVersion(), Instant.now().plusSeconds(linkTtlSeconds).getEpochSecond());
+    }
+
+    public long getLinkTtlSeconds() {
+        return linkTtlSeconds;
+    }
+
+    /**
+     * Valida un token de sesión: firma correcta y no vencido.
+     * Los tokens ya validados se responden desde la caché (ni siquiera se recalcula la firma).
+     * La versión (revocación) NO se revisa aquí: ver UserService.isTokenCurrent.
+     *
+     * @return El usuario del token, o vacío si es falso, está mal formado o venció.
+     */
+    public Optional<AuthPrincipal> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        long now = Instant.now().getEpochSecond();
+        synchronized (principalCache) {
+            AuthPrincipal cached = principalCache.get(token);
+            if (cached != null) {
+                if (!cached.isExpired(now)) {
+                    return Optional.of(cached);
+                }
+                principalCache.remove(token);
+                return Optional.empty();
+            }
+        }
+
+        AuthPrincipal principal = parse(token, SESSION_SCOPE, now);
+        if (principal == null) {
+            return Optional.empty(); // Los tokens inválidos NO se guardan (no llenamos la caché con basura)
+        }
+        synchronized (principalCache) {
+            principalCache.put(token, principal);
+        }
+        return Optional.of(principal);
+    }
+
+    /**
+     * Valida un token de enlace (?access_token=...). No se guardan en la caché: duran segundos.
+     *
+     * @return El usuario del token, o vacío si es falso, de sesión o venció.
+     */
+    public Optional<AuthPrincipal> verifyLinkToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(parse(token, LINK_SCOPE, Instant.now().getEpochSecond()));
+    }
+
+    // El usuario va al final porque es el único campo que podría traer '|'
+    private String sign(String scope, Long userId, String username, String role, int tokenVersion,
+            long expiresAt) {
+        String payload = scope + "|" + userId + "|" + (role == null ? "" : role) + "|" + expiresAt + "|"
+                + tokenVersion + "|" + username;
+        return encode(payload.getBytes(StandardCharsets.UTF_8)) + "." + encode(sign(payload));
+    }
+
+    private AuthPrincipal parse(String token, String scope, long now) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return null;
+        }
+        try {
+            byte[] payloadBytes = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            String payload = new String(payloadBytes, StandardCharsets.UTF_8);
+            // Comparación en tiempo constante, para no dar pistas de la firma correcta
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return null;
+            }
+            String[] parts = payload.split("\\|", 6);
+            if (parts.length != 6 || !scope.equals(parts[0])) {
+                return null;
+            }
+            AuthPrincipal principal = new AuthPrincipal(Long.valueOf(parts[1]), parts[5],
+                    parts[2].isEmpty() ? null : parts[2], Long.parseLong(parts[3]), Integer.parseInt(parts[4]));
+            return principal.isExpired(now) ? null : principal;
+        } catch (IllegalArgumentException e) { // Base64 o números mal formados
+            return null;
+        }
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
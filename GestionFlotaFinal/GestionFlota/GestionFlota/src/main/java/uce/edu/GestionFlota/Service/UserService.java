@@ -10,17 +10,209 @@ package uce.edu.GestionFlota.Service;
  */
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import jakarta.transaction.Transactional;
+import uce.edu.GestionFlota.Dto.AuthPrincipal;
 import uce.edu.GestionFlota.Model.User;
 import uce.edu.GestionFlota.Repository.UserRepository;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class UserService {
 
+    // Todos los hash BCrypt empiezan así ($2a$, $2b$, $2y$)
+    private static final String BCRYPT_PREFIX = "$2";
+
+    // Máximo de usuarios cuya versión de tokens recordamos (los menos usados se van primero)
+    public static final int TOKEN_STATE_CACHE_SIZE = 10_000;
+
+    // Cada cuánto se vuelve a leer de la BD la versión de tokens de un usuario.
+    // Los cambios hechos por esta aplicación se notan al instante (se borra de la caché);
+    // los hechos a mano en la BD o en otro servidor, a más tardar en este tiempo.
+    private static final long TOKEN_STATE_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
     @Autowired
     private UserRepository userRepository;
 
+    // BCrypt: guarda la contraseña "picada" con sal, nunca el texto original
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+    // Hash de relleno: si el usuario no existe igual hacemos el trabajo de BCrypt,
+    // así no se puede adivinar qué usuarios existen midiendo el tiempo de respuesta.
+    private final String dummyHash = passwordEncoder.encode("usuario-inexistente");
+
+    // Caché ID de usuario -> versión de tokens y rol vigentes. LinkedHashMap en orden de acceso = LRU.
+    // Todo acceso va dentro de synchronized(tokenStates).
+    private final Map<Long, TokenState> tokenStates = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, TokenState> eldest) {
+            return size() > TOKEN_STATE_CACHE_SIZE;
+        }
+    };
+
+    // Sube con cada revocación (también dentro de synchronized(tokenStates)). Una lectura de la BD
+    // que empezó antes de una revocación NO se guarda: podría traer la versión de antes del cambio.
+    private long tokenStatesGeneration;
+
+    /**
+     * Valida usuario y contraseña.
+     * Las contraseñas viejas (texto plano) se aceptan UNA vez y se guardan en BCrypt.
+     *
+     * @return El usuario si las credenciales son correctas, o null si no.
+     */
     public User validateCredentials(String username, String password) {
-        return userRepository.findByUsernameAndPassword(username, password);
+        if (username == null || password == null) {
+            return null;
+        }
+        User user = userRepository.findByUsername(username);
+        if (user == null || user.getPassword() == null) {
+            passwordEncoder.matches(password, dummyHash);
+            return null;
+        }
+
+        if (user.getPassword().startsWith(BCRYPT_PREFIX)) {
+            return passwordEncoder.matches(password, user.getPassword()) ? user : null;
+        }
+
+        // Contraseña antigua en texto plano: comparamos y la migramos a BCrypt
+        boolean matches = MessageDigest.isEqual(user.getPassword().getBytes(StandardCharsets.UTF_8),
+                password.getBytes(StandardCharsets.UTF_8));
+        if (!matches) {
+            return null;
+        }
+        // Una contraseña en texto plano la puso alguien a mano (reinicio): cierra las sesiones anteriores
+        user.setPassword(passwordEncoder.encode(password));
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        revokeTokens(user.getId());
+        return user;
+    }
+
+    /**
+     * Cambia la contraseña de un usuario que conoce la actual.
+     * Sube su versión de tokens: las sesiones abiertas con la contraseña anterior se cierran.
+     *
+     * @return El usuario actualizado (para darle un token nuevo), o null si la contraseña actual no coincide.
+     */
+    public User changePassword(String username, String currentPassword, String newPassword) {
+        if (newPassword == null || newPassword.isBlank()) {
+            return null;
+        }
+        User user = validateCredentials(username, currentPassword);
+        if (user == null) {
+            return null;
+        }
+        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        revokeTokens(user.getId());
+        return user;
+    }
+
+    /**
+     * Cambia el rol de un usuario (solo lo pide un ADMIN, ver AuthController).
+     * Sube su versión de tokens: sus sesiones abiertas (con el rol anterior) se cierran.
+     *
+     * @return El usuario actualizado, o null si no existe.
+     */
+    public User changeRole(Long userId, String role) {
+        User user = userRepository.findOneById(userId);
+        if (user == null) {
+            return null;
+        }
+        if (!Objects.equals(user.getRole(), role)) {
+            user.setRole(role);
+            user.setTokenVersion(user.getTokenVersion() + 1);
+            userRepository.save(user);
+            revokeTokens(userId);
+        }
+        return user;
+    }
+
+    /**
+     * Revisa que un token (ya con firma válida) no haya sido revocado: la versión y el rol
+     * que lleva deben seguir siendo los del usuario en la BD (y el usuario debe existir).
+     * Lee la BD a lo más una vez cada 30 s por usuario; el resto sale de la caché.
+     */
+    public boolean isTokenCurrent(AuthPrincipal principal) {
+        long now = System.nanoTime();
+        long generation;
+        synchronized (tokenStates) {
+            TokenState state = tokenStates.get(principal.getUserId());
+            if (state != null && now - state.loadedAtNanos < TOKEN_STATE_TTL_NANOS) {
+                return state.matches(principal);
+            }
+            generation = tokenStatesGeneration;
+        }
+
+        User user = userRepository.findOneById(principal.getUserId());
+        TokenState state = (user == null) ? TokenState.deleted(now)
+                : new TokenState(user.getTokenVersion(), user.getRole(), now);
+        synchronized (tokenStates) {
+            if (generation == tokenStatesGeneration) {
+                tokenStates.put(principal.getUserId(), state);
+            }
+        }
+        return state.matches(principal);
+    }
+
+    // Olvida la versión guardada del usuario: su próximo request la vuelve a leer de la BD
+    private void revokeTokens(Long userId) {
+        synchronized (tokenStates) {
+            tokenStates.remove(userId);
+            tokenStatesGeneration++;
+        }
+    }
+
+    /**
+     * Al arrancar, pasa a BCrypt las contraseñas que sigan en texto plano
+     * (ej: usuarios creados a mano en la BD).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void hashLegacyPasswords() {
+        List<User> legacyUsers = userRepository.findByPasswordNotLike(BCRYPT_PREFIX + "%");
+        for (User user : legacyUsers) {
+            user.setPassword(passwordEncoder.encode(user.getPassword()));
+            user.setTokenVersion(user.getTokenVersion() + 1); // Contraseña puesta a mano: cierra sus sesiones
+        }
+        userRepository.saveAll(legacyUsers);
+        legacyUsers.forEach(user -> revokeTokens(user.getId()));
+        if (!legacyUsers.isEmpty()) {
+            System.out.println("✅ [INIT] Se cifraron " + legacyUsers.size() + " contraseñas con BCrypt.");
+        }
+    }
+
+    // Versión de tokens y rol de un usuario, tal como estaban en la BD al leerlos
+    private static final class TokenState {
+        private final int tokenVersion; // -1 = el usuario ya no existe
+        private final String role;
+        private final long loadedAtNanos;
+
+        private TokenState(int tokenVersion, String role, long loadedAtNanos) {
+            this.tokenVersion = tokenVersion;
+            this.role = role;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+
+        private static TokenState deleted(long loadedAtNanos) {
+            return new TokenState(-1, null, loadedAtNanos);
+        }
+
+        private boolean matches(AuthPrincipal principal) {
+            return tokenVersion >= 0 && tokenVersion == principal.getTokenVersion()
+                    && Objects.equals(role, principal.getRole());
+        }
     }
 }
@@ -0,0 +1,450 @@
+package uce.edu.GestionFlota.Service;
+
+import org.springframework.stereotype.Service;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice de Búsqueda Aproximada (en memoria) sobre placa, marca y modelo.
+ * Cada texto se parte en "trigramas" (grupos de 3 letras, igual que pg_trgm de PostgreSQL):
+ * "HINO" -> "  H", " HI", "HIN", "INO", "NO ". Para buscar, se cuentan cuántos trigramas
+ * de la consulta tiene cada vehículo; así "hilu", "d max" o "abc123" encuentran
+ * "HILUX", "D-MAX" y "ABC-1234" sin recorrer toda la flota.
+ * Lo mantiene al día VehicleService (al guardar, importar y borrar, después del commit).
+ * OJO: vive en la memoria de ESTE servidor; con varias instancias cada una arma el suyo
+ * al arrancar y solo ve los cambios que pasan por ella.
+ */
+@Service
+public class VehicleSearchIndex {
+
+    // Alfabeto normalizado: espacio (relleno), 0-9 y A-Z = 37 símbolos -> 37^3 trigramas posibles
+    private static final int ALPHABET = 37;
+    private static final int TRIGRAMS = ALPHABET * ALPHABET * ALPHABET;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Documento = posición en estos arreglos (un vehículo puede tener varios si se editó: el viejo queda
+    // "muerto" hasta la próxima compactación)
+    private long[] vehicleIds = new long[1024];
+    private String[] plates = new String[1024];        // Placa normalizada, para el desempate
+    private short[] trigramCounts = new short[1024];   // Trigramas distintos del documento
+    private boolean[] alive = new boolean[1024];
+    private int docCount;
+    private int deadCount;
+    private Map<Long, Integer> docByVehicle = new HashMap<>();
+
+    // Trigrama -> documentos que lo tienen (en orden creciente)
+    private IntList[] postings = new IntList[TRIGRAMS];
+
+    // Contador de coincidencias por documento, reutilizado en cada búsqueda del mismo hilo
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[0]);
+
+    // Mientras rebuild() arma el índice nuevo: lo que se guarda (vehículo) o se saca (null)
+    // para repetirlo sobre el nuevo antes de cambiarlo. null = no hay un rearmado en curso.
+    private Map<Long, Vehicle> changesDuringRebuild;
+
+    /**
+     * Resultado de una búsqueda: los IDs de la página pedida (los más parecidos primero)
+     * y cuántos vehículos coinciden en total.
+     */
+    public static class Result {
+
+        private final List<Long> ids;
+        private final int total;
+
+        public Result(List<Long> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    // ==========================================
+    // MANTENIMIENTO DEL ÍNDICE
+    // ==========================================
+
+    /**
+     * Agrega o actualiza un vehículo (placa, marca o modelo pudieron cambiar).
+     */
+    public void put(Vehicle vehicle) {
+        if (vehicle == null || vehicle.getId() == null) {
+            return;
+        }
+        int[] trigrams = documentTrigrams(vehicle);
+        lock.writeLock().lock();
+        try {
+            removeDocument(vehicle.getId());
+            int doc = docCount++;
+            ensureDocCapacity(docCount);
+            vehicleIds[doc] = vehicle.getId();
+            plates[doc] = normalize(vehicle.getLicensePlate()).replace(" ", "");
+            trigramCounts[doc] = (short) Math.min(Short.MAX_VALUE, trigrams.length);
+            alive[doc] = true;
+            docByVehicle.put(vehicle.getId(), doc);
+            for (int trigram : trigrams) {
+                if (postings[trigram] == null) {
+                    postings[trigram] = new IntList();
+                }
+                postings[trigram].add(doc);
+            }
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(vehicle.getId(), vehicle);
+            }
+            // Cada edición deja un documento muerto: sin esto crecerían sin límite
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(Collection<Vehicle> vehicles) {
+        vehicles.forEach(this::put);
+    }
+
+    /**
+     * Saca vehículos del índice (borrados o dados de baja).
+     */
+    public void removeAll(Collection<Long> vehicleIds) {
+        lock.writeLock().lock();
+        try {
+            vehicleIds.forEach(this::removeDocument);
+            if (changesDuringRebuild != null) {
+                vehicleIds.forEach(id -> changesDuringRebuild.put(id, null));
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a armar el índice con toda la flota SIN vaciar el actual: las búsquedas siguen
+     * usando el de siempre mientras 'loader' entrega los vehículos a uno nuevo, y al final se
+     * cambian de una vez. Los put/removeAll que lleguen mientras tanto se repiten sobre el nuevo.
+     *
+     * @param loader Recorre la flota y entrega cada vehículo (ej: VehicleService::streamAllVehicles).
+     */
+    public void rebuild(Consumer<Consumer<Vehicle>> loader) {
+        VehicleSearchIndex fresh = new VehicleSearchIndex();
+        Map<Long, Vehicle> changes = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            loader.accept(fresh::put);
+            lock.writeLock().lock();
+            try {
+                changes.forEach((id, vehicle) -> {
+                    if (vehicle == null) {
+                        fresh.removeAll(List.of(id));
+                    } else {
+                        fresh.put(vehicle);
+                    }
+                });
+                vehicleIds = fresh.vehicleIds;
+                plates = fresh.plates;
+                trigramCounts = fresh.trigramCounts;
+                alive = fresh.alive;
+                docCount = fresh.docCount;
+                deadCount = fresh.deadCount;
+                docByVehicle = fresh.docByVehicle;
+                postings = fresh.postings;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            // También si 'loader' falló: deja de anotar cambios (el índice viejo sigue en uso)
+            lock.writeLock().lock();
+            try {
+                if (changesDuringRebuild == changes) {
+                    changesDuringRebuild = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByVehicle.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Documentos vivos + muertos (para las pruebas: no debe crecer sin límite)
+    int documentCount() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==========================================
+    // BÚSQUEDA
+    // ==========================================
+
+    /**
+     * Busca vehículos parecidos al texto, ordenados de más a menos parecido.
+     * Similitud = trigramas de la consulta que tiene el vehículo / trigramas de la consulta.
+     * Orden: similitud, luego si la placa contiene el texto tal cual, luego el
+     * documento más "corto" (más específico) y al final el más antiguo en el índice.
+     *
+     * @param query  Texto libre (ej: "hino fc", "abc-12", "hilu").
+     * @param offset Cuántos resultados saltar (página * tamaño).
+     * @param limit  Cuántos devolver.
+     */
+    public Result search(String query, int offset, int limit) {
+        String normalizedQuery = normalize(query);
+        int[] queryTrigrams = queryTrigrams(normalizedQuery);
+        if (queryTrigrams.length == 0) {
+            return new Result(List.of(), 0);
+        }
+        String compactQuery = normalizedQuery.replace(" ", "");
+        // Debe tener MÁS de la mitad de los trigramas de la consulta ("hilu" no trae "HINO")
+        int minMatches = queryTrigrams.length / 2 + 1;
+
+        lock.readLock().lock();
+        try {
+            int[] counts = scratch.get();
+            if (counts.length < docCount) {
+                counts = new int[vehicleIds.length];
+                scratch.set(counts);
+            }
+            IntList touched = new IntList();
+            for (int trigram : queryTrigrams) {
+                IntList docs = postings[trigram];
+                if (docs == null) {
+                    continue;
+                }
+                for (int i = 0; i < docs.size; i++) {
+                    int doc = docs.values[i];
+                    if (counts[doc]++ == 0) {
+                        touched.add(doc);
+                    }
+                }
+            }
+
+            // Clave de orden en un long (sin crear objetos): rango en los 32 bits altos y el documento
+            // "invertido" en los bajos, así a igual rango gana el documento más antiguo
+            long[] ranked = new long[touched.size];
+            int total = 0;
+            for (int i = 0; i < touched.size; i++) {
+                int doc = touched.values[i];
+                int matches = counts[doc];
+                counts[doc] = 0; // Limpio para la próxima búsqueda
+                if (!alive[doc] || matches < minMatches) {
+                    continue;
+                }
+                long similarity = matches * 1000L / queryTrigrams.length;            // 0..1000
+                long plateMatch = plates[doc].contains(compactQuery) ? 1 : 0;
+                long specificity = matches * 1000L / Math.max(matches, trigramCounts[doc]); // 0..1000
+                long rank = (similarity << 21) | (plateMatch << 20) | (specificity << 10);
+                ranked[total++] = (rank << 32) | (Integer.MAX_VALUE - doc);
+            }
+
+            int from = Math.min(offset, total);
+            int to = Math.min(total, from + limit);
+            List<Long> ids = new ArrayList<>(to - from);
+            if (from < to) {
+                Arrays.sort(ranked, 0, total);
+                for (int i = from; i < to; i++) {
+                    int doc = Integer.MAX_VALUE - (int) ranked[total - 1 - i];
+                    ids.add(vehicleIds[doc]);
+                }
+            }
+            return new Result(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==========================================
+    // MÉTODOS DE AYUDA
+    // ==========================================
+
+    // Mayúsculas, sin tildes (Ñ -> N) y solo letras y números; lo demás separa palabras.
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toUpperCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(plain.length());
+        for (int i = 0; i < plain.length(); i++) {
+            char c = plain.charAt(i);
+            sb.append((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ? c : ' ');
+        }
+        return sb.toString().trim().replaceAll(" +", " ");
+    }
+
+    // Trigramas del vehículo: cada palabra de placa, marca y modelo, y cada campo
+    // completo sin guiones ("ABC1234", "DMAX"), porque así se suele escribir al buscar.
+    private static int[] documentTrigrams(Vehicle vehicle) {
+        IntList trigrams = new IntList();
+        for (String field : new String[] { vehicle.getLicensePlate(), vehicle.getBrand(), vehicle.getModel() }) {
+            String normalized = normalize(field);
+            for (String word : normalized.split(" ")) {
+                addWordTrigrams(trigrams, word, true);
+            }
+            addWordTrigrams(trigrams, normalized.replace(" ", ""), true);
+        }
+        return distinct(trigrams);
+    }
+
+    // Trigramas de la consulta: sin el relleno final, para que "HIL" encuentre "HILUX"
+    // mientras el usuario sigue escribiendo. "ABC-12" se busca como "ABC12".
+    private static int[] queryTrigrams(String normalizedQuery) {
+        IntList trigrams = new IntList();
+        if (!normalizedQuery.isEmpty()) {
+            for (String word : normalizedQuery.split(" ")) {
+                addWordTrigrams(trigrams, word, false);
+            }
+            String joined = normalizedQuery.replace(" ", "");
+            if (!joined.equals(normalizedQuery)) {
+                // "abc 123" también debe encontrar la placa "ABC-123"
+                IntList joinedTrigrams = new IntList();
+                addWordTrigrams(joinedTrigrams, joined, false);
+                int[] asWords = distinct(trigrams);
+                int[] asPlate = distinct(joinedTrigrams);
+                return asPlate.length > asWords.length ? asPlate : asWords;
+            }
+        }
+        return distinct(trigrams);
+    }
+
+    private static void addWordTrigrams(IntList trigrams, String word, boolean padEnd) {
+        if (word.isEmpty()) {
+            return;
+        }
+        String padded = "  " + word + (padEnd ? " " : "");
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(code(padded.charAt(i)) * ALPHABET * ALPHABET
+                    + code(padded.charAt(i + 1)) * ALPHABET + code(padded.charAt(i + 2)));
+        }
+    }
+
+    private static int code(char c) {
+        if (c >= '0' && c <= '9') {
+            return 1 + (c - '0');
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return 11 + (c - 'A');
+        }
+        return 0; // Espacio (relleno)
+    }
+
+    private static int[] distinct(IntList list) {
+        int[] values = Arrays.copyOf(list.values, list.size);
+        return Arrays.stream(values).distinct().toArray();
+    }
+
+    private void removeDocument(Long vehicleId) {
+        Integer doc = docByVehicle.remove(vehicleId);
+        if (doc != null) {
+            alive[doc] = false;
+            deadCount++;
+        }
+    }
+
+    // Muchos documentos muertos: rearmamos las listas para que no frenen las búsquedas
+    private void compactIfNeeded() {
+        if (deadCount > 1000 && deadCount > docCount / 4) {
+            compact();
+        }
+    }
+
+    // Rearma los arreglos solo con los documentos vivos (los IDs internos cambian)
+    private void compact() {
+        long[] oldIds = vehicleIds;
+        String[] oldPlates = plates;
+        short[] oldCounts = trigramCounts;
+        boolean[] oldAlive = alive;
+        int oldCount = docCount;
+        int[] newDoc = new int[oldCount];
+        int next = 0;
+        for (int doc = 0; doc < oldCount; doc++) {
+            newDoc[doc] = oldAlive[doc] ? next++ : -1;
+        }
+
+        vehicleIds = new long[Math.max(1024, next)];
+        plates = new String[vehicleIds.length];
+        trigramCounts = new short[vehicleIds.length];
+        alive = new boolean[vehicleIds.length];
+        docByVehicle.clear();
+        for (int doc = 0; doc < oldCount; doc++) {
+            int target = newDoc[doc];
+            if (target >= 0) {
+                vehicleIds[target] = oldIds[doc];
+                plates[target] = oldPlates[doc];
+                trigramCounts[target] = oldCounts[doc];
+                alive[target] = true;
+                docByVehicle.put(oldIds[doc], target);
+            }
+        }
+        for (IntList docs : postings) {
+            if (docs != null) {
+                int kept = 0;
+                for (int i = 0; i < docs.size; i++) {
+                    int target = newDoc[docs.values[i]];
+                    if (target >= 0) {
+                        docs.values[kept++] = target;
+                    }
+                }
+                docs.size = kept;
+            }
+        }
+        docCount = next;
+        deadCount = 0;
+    }
+
+    private void ensureDocCapacity(int capacity) {
+        if (capacity > vehicleIds.length) {
+            int newLength = Math.max(capacity, vehicleIds.length * 2);
+            vehicleIds = Arrays.copyOf(vehicleIds, newLength);
+            plates = Arrays.copyOf(plates, newLength);
+            trigramCounts = Arrays.copyOf(trigramCounts, newLength);
+            alive = Arrays.copyOf(alive, newLength);
+        }
+    }
+
+    // Lista de int sin "boxing" (mucho más liviana que List<Integer> para 100k vehículos)
+    private static class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
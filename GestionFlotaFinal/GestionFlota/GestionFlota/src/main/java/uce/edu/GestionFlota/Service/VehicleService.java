@@ -7,16 +7,45 @@ package uce.edu.GestionFlota.Service;
  */
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 import uce.edu.GestionFlota.Model.Vehicle; // OJO: 'model' en minúscula
 import uce.edu.GestionFlota.Repository.VehicleRepository; // OJO: 'repository' en minúscula
 import uce.edu.GestionFlota.Repository.MaintenanceRepository;
+import uce.edu.GestionFlota.Model.MaintenanceRollup;
+import uce.edu.GestionFlota.Dto.AlertCount;
+import uce.edu.GestionFlota.Dto.FacetCount;
+import uce.edu.GestionFlota.Dto.FleetEvent;
+import uce.edu.GestionFlota.Dto.ImportResult;
+import uce.edu.GestionFlota.Dto.VehicleAlert;
+import uce.edu.GestionFlota.Dto.VehicleChange;
+import uce.edu.GestionFlota.Dto.VehicleFilter;
 import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import jakarta.annotation.PostConstruct;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import jakarta.annotation.PostConstruct;
 
 /**
  * Servicio de Vehículos (La Lógica de Negocio).
@@ -33,30 +62,122 @@ public class VehicleService {
     @Autowired
     private MaintenanceRepository maintenanceRepository;
 
+    @Autowired
+    private MaintenanceService maintenanceService; // Para mantener al día los acumulados de costos
+
+    @Autowired
+    private MeterRegistry meterRegistry; // Métricas (Actuator): tiempos de arranque
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // Avisos en vivo a los navegadores (SSE)
+
+    @Autowired
+    private VehicleSearchIndex searchIndex; // Búsqueda aproximada por placa, marca y modelo
+
+    // Lo usamos solo para "soltar" (detach) las entidades ya enviadas durante el streaming.
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Tamaño máximo de página permitido, para que nadie pida 1 millón de filas de golpe.
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // Cuántos vehículos procesa la carga masiva en cada transacción.
+    public static final int IMPORT_CHUNK_SIZE = 500;
+
+    // Máximo de vehículos por cada baja masiva (el IN (...) del DELETE tiene un límite razonable).
+    public static final int MAX_RETIRE_SIZE = 1000;
+
+    // Máximo de resultados por página en la búsqueda aproximada
+    public static final int MAX_SEARCH_SIZE = 100;
+
+    // Campos por los que el Inventario puede ordenar (cualquier otro es un 400 en el controlador)
+    public static final Set<String> SORT_FIELDS = Set.of(
+            "licensePlate", "brand", "model", "year", "mileage", "status", "maintenanceUsage", "createdAt");
+
+    // Máximo de placas que guardamos en memoria (las menos usadas se van primero).
+    public static final int PLATE_CACHE_SIZE = 10_000;
+
+    // Caché de búsquedas por placa: placa -> vehículo, o Optional.empty() si NO existe
+    // (caché negativa: las placas inexistentes tampoco vuelven a ir a la BD).
+    // LinkedHashMap en orden de acceso = LRU. Todo acceso va dentro de synchronized(plateCache).
+    private final Map<String, Optional<Vehicle>> plateCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Optional<Vehicle>> eldest) {
+            return size() > PLATE_CACHE_SIZE;
+        }
+    };
+
+    // Sube con cada invalidación (también va dentro de synchronized(plateCache)).
+    // Una lectura de la BD que empezó antes de una invalidación NO se guarda en la caché:
+    // podría traer el vehículo de antes del cambio (o un "no existe" que ya no es cierto).
+    private long plateCacheGeneration;
+
+    // Tamaño de la caché (Actuator). Los aciertos/fallos van en 'vehicles.plate_cache.requests'
+    // con la etiqueta result=hit|miss, ej: /actuator/metrics/vehicles.plate_cache.requests?tag=result:hit
+    @PostConstruct
+    void registerPlateCacheMetrics() {
+        meterRegistry.gauge("vehicles.plate_cache.size", plateCache, cache -> {
+            synchronized (cache) {
+                return cache.size();
+            }
+        });
+    }
+
     /**
      * Método de Inicialización Automática.
-     * Se ejecuta UNA SOLA VEZ cuando Spring Boot arranca el servidor.
-     * Actualiza todos los vehículos que no tienen fecha de registro.
+     * Se ejecuta UNA SOLA VEZ cuando Spring Boot terminó de arrancar el servidor.
+     * Completa, con un solo UPDATE en la BD por paso, lo que les falta a los vehículos
+     * de versiones anteriores (antes: cargaba toda la flota y guardaba carro por carro):
+     * - created_at: fecha de registro;
+     * - maintenance_schedule: próximo mantenimiento y % de uso (semáforo);
+     * - maintenance_summary: resumen de mantenimientos, sumado desde todo el historial.
+     * Cada paso mide su tiempo en la métrica 'vehicles.backfill' con la etiqueta 'step',
+     * ej: /actuator/metrics/vehicles.backfill?tag=step:created_at
      */
-    @PostConstruct
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
     public void initializeExistingVehicles() {
-        List<Vehicle> allVehicles = repository.findAll();
-        int updatedCount = 0;
-
-        for (Vehicle vehicle : allVehicles) {
-            // Si el vehículo no tiene fecha de registro, le asignamos la fecha actual
-            if (vehicle.getCreatedAt() == null) {
-                vehicle.setCreatedAt(LocalDateTime.now());
-                repository.save(vehicle);
-                updatedCount++;
-            }
-        }
+        LocalDateTime now = LocalDateTime.now();
+        int updatedCount = timeBackfill("created_at", () -> repository.fillMissingCreatedAt(now));
+        int scheduledCount = timeBackfill("maintenance_schedule", () -> repository.fillMissingMaintenanceSchedule(now));
+        int summarizedCount = timeBackfill("maintenance_summary", repository::fillMissingMaintenanceSummary);
 
         if (updatedCount > 0) {
             System.out.println("✅ [INIT] Se actualizaron " + updatedCount + " vehículos con fecha de registro.");
         } else {
             System.out.println("✅ [INIT] Todos los vehículos ya tienen fecha de registro.");
         }
+        if (scheduledCount > 0) {
+            System.out.println("✅ [INIT] Se calculó el próximo mantenimiento de " + scheduledCount + " vehículos.");
+        }
+        if (summarizedCount > 0) {
+            System.out.println("✅ [INIT] Se calculó el resumen de mantenimientos de " + summarizedCount + " vehículos.");
+        }
+    }
+
+    // Corre un paso de la carga inicial y guarda cuánto tardó en 'vehicles.backfill' (etiqueta step)
+    private int timeBackfill(String step, IntSupplier backfill) {
+        long start = System.nanoTime();
+        int count = backfill.getAsInt();
+        meterRegistry.timer("vehicles.backfill", "step", step).record(Duration.ofNanos(System.nanoTime() - start));
+        return count;
+    }
+
+    /**
+     * Arma el índice de búsqueda (placa, marca, modelo) al arrancar, recorriendo la
+     * flota con el cursor de streamAllVehicles (sin cargarla entera en memoria).
+     * Se arma uno nuevo y se cambia al final: mientras tanto las búsquedas usan el anterior.
+     * Luego se mantiene solo: saveVehicle, importVehicles y las bajas lo actualizan.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void buildSearchIndex() {
+        long start = System.nanoTime();
+        searchIndex.rebuild(this::streamAllVehicles);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        meterRegistry.timer("vehicles.search_index.build").record(elapsed);
+        System.out.println("✅ [INIT] Índice de búsqueda listo: " + searchIndex.size() + " vehículos ("
+                + elapsed.toMillis() + " ms).");
     }
 
     // ==========================================
@@ -71,6 +192,45 @@ public class VehicleService {
         return repository.findAll();
     }
 
+    /**
+     * ETag de la flota completa: cambia apenas se crea, edita o borra un vehículo.
+     * Se calcula con 1 consulta de agregados (COUNT/MAX), sin cargar ningún vehículo.
+     */
+    public String getFleetETag() {
+        return repository.findFleetVersion().toETag();
+    }
+
+    /**
+     * Obtiene una página de vehículos usando paginación por cursor (keyset).
+     * En vez de "saltar N filas" (OFFSET), pedimos los carros con ID mayor al
+     * último que ya vio el cliente. Así cada página cuesta lo mismo sin importar
+     * qué tan lejos estemos en la lista.
+     *
+     * @param afterId Último ID recibido (null = empezar desde el principio).
+     * @param size    Cuántos vehículos traer (se limita a MAX_PAGE_SIZE).
+     */
+    public List<Vehicle> getVehiclesPage(Long afterId, int size) {
+        long cursor = (afterId == null) ? 0L : afterId;
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return repository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(limit));
+    }
+
+    /**
+     * Recorre toda la flota SIN armar una lista gigante en memoria.
+     * Cada vehículo se entrega al 'consumer' (ej: el que escribe el JSON) apenas
+     * llega de la BD, y luego se suelta del contexto de Hibernate para que el
+     * Garbage Collector lo pueda limpiar.
+     */
+    @Transactional
+    public void streamAllVehicles(Consumer<Vehicle> consumer) {
+        try (Stream<Vehicle> vehicles = repository.streamAll()) {
+            vehicles.forEach(vehicle -> {
+                consumer.accept(vehicle);
+                entityManager.detach(vehicle);
+            });
+        }
+    }
+
     /**
      * Guardar un vehículo nuevo o actualizar uno existente.
      * Spring sabe que si el objeto trae ID es "Update", y si no trae ID es
@@ -79,43 +239,347 @@ public class VehicleService {
     public Vehicle saveVehicle(Vehicle vehicle) {
         // AQUÍ podrías poner validaciones extra en el futuro.
         // Ejemplo: if (vehicle.getYear() < 1990) throw new Error("Auto muy viejo");
-        return repository.save(vehicle);
+        Vehicle saved = repository.save(vehicle);
+        // Si cambió la placa, la vieja y la nueva quedan desactualizadas en la caché
+        evictPlatesAfterCommit(Set.of(saved.getId()), List.of(saved.getLicensePlate()));
+        runAfterCommit(() -> searchIndex.put(saved));
+        eventPublisher.publishEvent(new FleetEvent(FleetEvent.VEHICLE_SAVED, saved.getId(), new VehicleChange(saved)));
+        return saved;
     }
 
     /**
-     * Elimina un vehículo de la base de datos por su ID.
+     * Carga Masiva de Vehículos (un bloque).
+     * 1. Valida TODO el bloque de una vez: campos obligatorios, placas repetidas
+     *    dentro del archivo y placas que ya existen en la BD (1 sola consulta).
+     * 2. Inserta los válidos en lotes (JDBC batch), no uno por uno.
+     * 3. Devuelve el resultado de cada fila (creado con su ID, o error con el motivo).
+     *
+     * @param vehiclesByRow Vehículos del bloque, con su número de fila (en orden).
      */
+    @Transactional
+    public List<ImportResult> importVehicles(Map<Integer, Vehicle> vehiclesByRow) {
+        Set<String> plates = new HashSet<>();
+        for (Vehicle vehicle : vehiclesByRow.values()) {
+            if (vehicle.getLicensePlate() != null && !vehicle.getLicensePlate().isBlank()) {
+                plates.add(vehicle.getLicensePlate().trim());
+            }
+        }
+        Set<String> existing = plates.isEmpty() ? new HashSet<>() : new HashSet<>(repository.findExistingPlates(plates));
+
+        List<ImportResult> results = new ArrayList<>();
+        List<Vehicle> toInsert = new ArrayList<>();
+        List<Integer> insertedRows = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (Map.Entry<Integer, Vehicle> entry : vehiclesByRow.entrySet()) {
+            int row = entry.getKey();
+            Vehicle vehicle = entry.getValue();
+            String plate = (vehicle.getLicensePlate() == null) ? null : vehicle.getLicensePlate().trim();
+
+            if (plate == null || plate.isEmpty()) {
+                results.add(ImportResult.error(row, plate, "La placa es obligatoria"));
+            } else if (vehicle.getBrand() == null || vehicle.getBrand().isBlank()) {
+                results.add(ImportResult.error(row, plate, "La marca es obligatoria"));
+            } else if (existing.contains(plate)) {
+                results.add(ImportResult.error(row, plate, "La placa ya está registrada"));
+            } else if (!seen.add(plate)) {
+                results.add(ImportResult.error(row, plate, "La placa está repetida en la carga"));
+            } else {
+                vehicle.setId(null); // La carga masiva solo CREA, nunca edita
+                vehicle.setLicensePlate(plate);
+                toInsert.add(vehicle);
+                insertedRows.add(row);
+            }
+        }
+
+        // saveAll + flush: Hibernate manda los INSERT agrupados de a 50 (batch_size)
+        repository.saveAll(toInsert);
+        entityManager.flush();
+        for (int i = 0; i < toInsert.size(); i++) {
+            results.add(ImportResult.created(insertedRows.get(i), toInsert.get(i).getLicensePlate(), toInsert.get(i).getId()));
+        }
+        entityManager.clear(); // Soltamos el bloque para que la memoria no crezca
+
+        // Estas placas pudieron quedar en la caché como "no existe"
+        evictPlatesAfterCommit(Set.of(), seen);
+        runAfterCommit(() -> searchIndex.putAll(toInsert));
+        if (!toInsert.isEmpty()) {
+            // Un solo aviso por bloque: los navegadores recargan la lista una vez
+            eventPublisher.publishEvent(new FleetEvent(FleetEvent.VEHICLES_IMPORTED, null, toInsert.size()));
+        }
+
+        results.sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+        return results;
+    }
+
     /**
      * Elimina un vehículo de la base de datos por su ID.
      * Ahora es TRANSACCIONAL: Si falla algo, se deshace todo.
+     *
+     * @return false si el vehículo no existe (no se borra nada).
      */
     @Transactional
-    public void deleteVehicle(Long id) {
-        // 1. Primero borramos los hijos (Mantenimientos)
-        maintenanceRepository.deleteByVehicleId(id);
+    public boolean deleteVehicle(Long id) {
+        if (deleteVehiclesWithHistory(List.of(id)) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new FleetEvent(FleetEvent.VEHICLE_DELETED, id, null));
+        return true;
+    }
 
-        // 2. Luego borramos el padre (Vehículo)
-        repository.deleteById(id);
+    /**
+     * Baja Masiva de Vehículos.
+     * Borra cientos de vehículos y su historial en UNA transacción, con la misma
+     * cantidad de DELETE sin importar cuántos sean (ver deleteVehiclesWithHistory).
+     * Los IDs que no existen se ignoran.
+     *
+     * @return cuántos vehículos se borraron.
+     */
+    @Transactional
+    public int retireVehicles(Collection<Long> ids) {
+        Set<Long> unique = new HashSet<>(ids);
+        if (unique.isEmpty()) {
+            return 0;
+        }
+        int retired = deleteVehiclesWithHistory(unique);
+        if (retired > 0) {
+            // Un solo aviso: los navegadores quitan esas filas de la lista
+            eventPublisher.publishEvent(new FleetEvent(FleetEvent.VEHICLES_RETIRED, null, unique));
+        }
+        return retired;
+    }
+
+    /**
+     * Borra vehículos y sus mantenimientos por conjunto, sin cargar entidades:
+     * 1 SELECT (grupos mes/tipo afectados) + 2 DELETE de mantenimientos (activos y archivados)
+     * + 1 DELETE de vehículos.
+     * Luego recalcula los acumulados de esos grupos con 4 sentencias por conjunto: en total
+     * son 8, sin importar cuántos vehículos, mantenimientos o meses/tipos toque.
+     */
+    private int deleteVehiclesWithHistory(Collection<Long> ids) {
+        // 0. Anotamos qué acumulados (mes/tipo) tocan los mantenimientos de estos carros
+        List<MaintenanceRollup> affectedRollups = maintenanceService.findRollupsByVehicles(ids);
+
+        // 1. Primero borramos los hijos (Mantenimientos, también los archivados) y 2. luego los padres (Vehículos)
+        maintenanceRepository.deleteByVehicleIds(ids);
+        maintenanceRepository.deleteArchivedByVehicleIds(ids);
+        int deleted = repository.deleteByIds(ids);
+
+        // 3. Recalculamos esos acumulados sin los mantenimientos borrados (todos juntos)
+        maintenanceService.rebuildRollups(affectedRollups);
+
+        // 4. Sacamos los carros de la caché de placas y del buscador (recién cuando el borrado se confirma)
+        evictPlatesAfterCommit(ids, List.of());
+        runAfterCommit(() -> searchIndex.removeAll(ids));
+        return deleted;
     }
 
     // ==========================================
-    // MÉTODOS DE AYUDA Y BÚSQUEDA
+    // INVENTARIO (Filtros, Orden y Facetas en la BD)
     // ==========================================
 
     /**
-     * Verifica si un vehículo existe antes de intentar borrarlo o editarlo.
-     * Evita errores feos de "NullPointerException".
+     * Consulta del Inventario: una página filtrada y ordenada en la BD, más los conteos
+     * por estado y por marca ("facetas") para armar los filtros sin descargar la flota.
+     * Son 2 consultas:
+     * 1. UN GROUP BY (estado, marca) con los filtros de año y kilometraje. De esas filas salen
+     *    los conteos por estado (respetando la marca elegida), por marca (respetando el estado
+     *    elegido) y el total; así cada opción del filtro dice cuántos carros traería.
+     * 2. La página pedida (LIMIT/OFFSET). Si ya sabemos que no hay nada, ni se consulta.
+     *
+     * @param filter Filtros opcionales (estado, marca, rango de años y de kilometraje).
+     * @param sort   Orden (campos de SORT_FIELDS, validados en el controlador).
+     * @param page   Número de página (desde 0).
+     * @param size   Vehículos por página (se limita a MAX_PAGE_SIZE).
+     * @return { "items", "total", "page", "size", "facets": { "status": {...}, "brand": {...} } }
      */
-    public boolean existsById(Long id) {
-        return repository.existsById(id);
+    public Map<String, Object> queryVehicles(VehicleFilter filter, Sort sort, int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int offset = Math.max(0, page) * limit;
+
+        Map<String, Long> byStatus = new HashMap<>();
+        Map<String, Long> byBrand = new HashMap<>();
+        long total = 0;
+        for (FacetCount row : repository.countByStatusAndBrand(filter.withoutFacets())) {
+            boolean statusMatches = filter.getStatus() == null || filter.getStatus().equals(facetKey(row.getStatus()));
+            boolean brandMatches = filter.getBrand() == null || filter.getBrand().equals(facetKey(row.getBrand()));
+            if (brandMatches) {
+                byStatus.merge(facetKey(row.getStatus()), row.getCount(), Long::sum);
+            }
+            if (statusMatches) {
+                byBrand.merge(facetKey(row.getBrand()), row.getCount(), Long::sum);
+            }
+            if (statusMatches && brandMatches) {
+                total += row.getCount();
+            }
+        }
+
+        List<Vehicle> items = (offset < total)
+                ? repository.findByFilter(filter, sort, offset, limit)
+                : List.of();
+
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("status", sortedByCount(byStatus));
+        facets.put("brand", sortedByCount(byBrand));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", items);
+        response.put("total", total);
+        response.put("page", Math.max(0, page));
+        response.put("size", limit);
+        response.put("facets", facets);
+        return response;
+    }
+
+    // Vehículos viejos pueden no tener estado: JSON no admite una llave null. Se usa
+    // VehicleFilter.NONE, que el filtro acepta de vuelta (?status=_none = "sin estado").
+    private static String facetKey(String value) {
+        return (value == null) ? VehicleFilter.NONE : value;
+    }
+
+    // Las opciones con más vehículos primero (empate: orden alfabético)
+    private static Map<String, Long> sortedByCount(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
     }
 
+    // ==========================================
+    // CENTRO DE ALERTAS (Semáforo de Mantenimiento)
+    // ==========================================
+
+    /**
+     * Devuelve los vehículos con mantenimiento vencido (ROJO) o próximo (AMARILLO),
+     * los más urgentes primero y como máximo 'limit', más el conteo por nivel de TODA
+     * la flota. Antes el Frontend descargaba toda la flota y calculaba el semáforo
+     * carro por carro en cada pantalla.
+     *
+     * @param limit Cuántas alertas traer (se limita a MAX_PAGE_SIZE).
+     * @return { "counts": {ROJO, AMARILLO, VERDE}, "items": [...más urgentes primero...] }
+     */
+    public Map<String, Object> getMaintenanceAlerts(int limit) {
+        List<VehicleAlert> alerts = repository.findAlerts(Vehicle.WARNING_USAGE,
+                Limit.of(Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+
+        // Los tres niveles siempre aparecen, aunque no haya carros en alguno
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("ROJO", 0L);
+        counts.put("AMARILLO", 0L);
+        counts.put("VERDE", 0L);
+        for (AlertCount row : repository.countByMaintenanceLevel()) {
+            counts.put(row.getLevel(), row.getCount());
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("counts", counts);
+        response.put("items", alerts);
+        return response;
+    }
+
+    // ==========================================
+    // MÉTODOS DE AYUDA Y BÚSQUEDA
+    // ==========================================
+
     /**
      * Buscar por Placa.
      * Retorna un "Optional" porque puede que el vehículo exista o puede que no.
      * Esto obliga al Controlador a manejar el caso "404 Not Found" elegantemente.
      */
     public Optional<Vehicle> getByLicensePlate(String licensePlate) {
-        return repository.findByLicensePlate(licensePlate);
+        long generation;
+        synchronized (plateCache) {
+            Optional<Vehicle> cached = plateCache.get(licensePlate);
+            if (cached != null) {
+                meterRegistry.counter("vehicles.plate_cache.requests", "result", "hit").increment();
+                return cached;
+            }
+            generation = plateCacheGeneration;
+        }
+
+        // No está en memoria: vamos a la BD (fuera del lock para no frenar a los demás)
+        meterRegistry.counter("vehicles.plate_cache.requests", "result", "miss").increment();
+        Optional<Vehicle> found = repository.findByLicensePlate(licensePlate);
+        synchronized (plateCache) {
+            // Si hubo una invalidación mientras leíamos, este resultado puede ser viejo: no se guarda
+            if (generation == plateCacheGeneration) {
+                plateCache.put(licensePlate, found);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Búsqueda Aproximada (tolera errores de tipeo, guiones y texto a medio escribir).
+     * El índice en memoria decide QUÉ carros y en qué orden; luego se traen de la BD
+     * solo los de la página pedida (1 consulta por ID, la mayoría salen de la caché).
+     *
+     * @param query Texto libre (ej: "hino fc", "abc-12", "hilu").
+     * @param page  Número de página (desde 0).
+     * @param size  Resultados por página (se limita a MAX_SEARCH_SIZE).
+     * @return { "items": [...los más parecidos primero...], "total", "page", "size" }
+     */
+    public Map<String, Object> searchVehicles(String query, int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_SEARCH_SIZE));
+        int offset = Math.max(0, page) * limit;
+        VehicleSearchIndex.Result result = searchIndex.search(query, offset, limit);
+
+        // findAllById no respeta el orden: lo reordenamos según el ranking del índice
+        Map<Long, Vehicle> byId = new LinkedHashMap<>();
+        repository.findAllById(result.getIds()).forEach(v -> byId.put(v.getId(), v));
+        List<Vehicle> items = new ArrayList<>();
+        for (Long id : result.getIds()) {
+            Vehicle vehicle = byId.get(id);
+            if (vehicle != null) {
+                items.add(vehicle);
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", items);
+        response.put("total", result.getTotal());
+        response.put("page", Math.max(0, page));
+        response.put("size", limit);
+        return response;
+    }
+
+    /**
+     * Saca de la caché de placas a estos vehículos (ej: la telemetría les cambió el km).
+     */
+    public void evictCachedVehicles(Collection<Long> vehicleIds) {
+        synchronized (plateCache) {
+            plateCacheGeneration++;
+            plateCache.values().removeIf(v -> v.isPresent() && vehicleIds.contains(v.get().getId()));
+        }
+    }
+
+    /**
+     * Borra de la caché de placas las entradas de los vehículos 'vehicleIds' y las
+     * placas indicadas (que pudieron quedar guardadas como "no existe").
+     * Si hay una transacción abierta, espera a que se confirme (commit) para no
+     * dejar en memoria datos que luego se deshacen (rollback).
+     */
+    private void evictPlatesAfterCommit(Collection<Long> vehicleIds, Collection<String> plates) {
+        runAfterCommit(() -> {
+            synchronized (plateCache) {
+                plateCache.keySet().removeAll(plates);
+                evictCachedVehicles(vehicleIds);
+            }
+        });
+    }
+
+    // Ejecuta 'action' cuando la transacción se confirma (o ya mismo si no hay transacción).
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
@@ -0,0 +1,8 @@
+-- =====================================================================
+-- V11: Versión de los tokens de sesión de cada usuario
+-- =====================================================================
+-- Va dentro de cada token firmado. Cambiar la contraseña o el rol la sube en 1:
+-- los tokens entregados antes dejan de valer (AuthTokenFilter responde 401).
+-- Para cerrar a mano todas las sesiones de alguien:
+--   UPDATE users SET token_version = token_version + 1 WHERE username = '...';
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
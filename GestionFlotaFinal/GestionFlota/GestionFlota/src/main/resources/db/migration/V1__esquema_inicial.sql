@@ -0,0 +1,41 @@
+-- =====================================================================
+-- V1: Esquema inicial (el mismo que creaba 'ddl-auto=update' antes de Flyway)
+-- =====================================================================
+-- BD nuevas: Flyway crea las tablas desde aquí y sigue con V2, V3...
+-- BD existentes (creadas por Hibernate): Flyway NO ejecuta este archivo, las marca
+-- como "versión 1" (spring.flyway.baseline-on-migrate) y sigue con V2 en adelante.
+-- Por eso este archivo NO se toca: cada tabla o columna nueva va en su propia migración.
+-- Escrito en SQL estándar: corre igual en PostgreSQL y en H2 (pruebas).
+
+CREATE TABLE users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role     VARCHAR(255),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE vehicles (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    license_plate           VARCHAR(255) NOT NULL,
+    brand                   VARCHAR(255) NOT NULL,
+    model                   VARCHAR(255),
+    production_year         INTEGER,
+    mileage                 FLOAT(53),
+    status                  VARCHAR(255),
+    last_maintenance_km     FLOAT(53),
+    maintenance_interval_km INTEGER,
+    created_at              TIMESTAMP(6),
+    CONSTRAINT uk_vehicles_license_plate UNIQUE (license_plate)
+);
+
+CREATE TABLE maintenances (
+    id                     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    date                   DATE,
+    type                   VARCHAR(255),
+    cost                   FLOAT(53),
+    description            VARCHAR(255),
+    mileage_at_maintenance FLOAT(53),
+    vehicle_id             BIGINT,
+    CONSTRAINT fk_maintenances_vehicle FOREIGN KEY (vehicle_id) REFERENCES vehicles (id)
+);
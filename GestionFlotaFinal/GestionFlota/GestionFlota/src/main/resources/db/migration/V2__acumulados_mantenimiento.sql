@@ -0,0 +1,16 @@
+-- =====================================================================
+-- V2: Acumulados de mantenimiento por mes y tipo (Dashboard y Reportes)
+-- =====================================================================
+-- Una fila por (mes, tipo) con el total, la cantidad y el mantenimiento más caro.
+-- Se llena sola al arrancar (MaintenanceService.initializeRollups) si ya hay mantenimientos.
+-- IF NOT EXISTS: las BD que 'ddl-auto=update' ya había actualizado la tienen.
+CREATE TABLE IF NOT EXISTS maintenance_rollups (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    month_key         VARCHAR(7) NOT NULL,
+    type              VARCHAR(255) NOT NULL,
+    total_cost        FLOAT(53) NOT NULL,
+    maintenance_count BIGINT NOT NULL,
+    max_cost          FLOAT(53) NOT NULL,
+    top_vehicle_id    BIGINT,
+    CONSTRAINT uk_maintenance_rollups_month_type UNIQUE (month_key, type)
+);
@@ -0,0 +1,10 @@
+-- =====================================================================
+-- V4: Semáforo de mantenimiento calculado en el servidor (Centro de Alertas)
+-- =====================================================================
+-- Kilometraje del próximo mantenimiento y porcentaje del intervalo ya recorrido.
+-- Los carros existentes se calculan al arrancar (VehicleService.initializeExistingVehicles).
+ALTER TABLE vehicles ADD COLUMN IF NOT EXISTS next_maintenance_km FLOAT(53);
+ALTER TABLE vehicles ADD COLUMN IF NOT EXISTS maintenance_usage FLOAT(53);
+
+-- Centro de Alertas: "carros con uso >= 70%"
+CREATE INDEX IF NOT EXISTS idx_vehicles_maintenance_usage ON vehicles (maintenance_usage);
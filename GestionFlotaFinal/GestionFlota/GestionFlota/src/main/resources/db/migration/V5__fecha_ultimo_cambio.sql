@@ -0,0 +1,7 @@
+-- =====================================================================
+-- V5: Fecha del último cambio (ETag de la flota y del historial)
+-- =====================================================================
+-- La pone Hibernate en cada INSERT/UPDATE (@UpdateTimestamp). Las filas viejas quedan
+-- en NULL hasta su próximo cambio: el ETag cuenta además las filas y el ID más alto.
+ALTER TABLE vehicles ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6);
+ALTER TABLE maintenances ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6);
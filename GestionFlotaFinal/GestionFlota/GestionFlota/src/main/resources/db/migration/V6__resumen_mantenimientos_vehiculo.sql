@@ -0,0 +1,10 @@
+-- =====================================================================
+-- V6: Resumen de mantenimientos en cada vehículo (GET /api/vehicles/{id}/summary)
+-- =====================================================================
+-- Copia de la tabla 'maintenances' para no leer todo el historial.
+-- Se calcula al arrancar para los carros que no lo tienen (VehicleService.initializeExistingVehicles).
+ALTER TABLE vehicles ADD COLUMN IF NOT EXISTS maintenance_count INTEGER;
+ALTER TABLE vehicles ADD COLUMN IF NOT EXISTS preventive_count INTEGER;
+ALTER TABLE vehicles ADD COLUMN IF NOT EXISTS corrective_count INTEGER;
+ALTER TABLE vehicles ADD COLUMN IF NOT EXISTS maintenance_total_cost FLOAT(53);
+ALTER TABLE vehicles ADD COLUMN IF NOT EXISTS last_maintenance_date DATE;
@@ -0,0 +1,19 @@
+-- =====================================================================
+-- V7: Índices para las consultas más usadas + llaves foráneas
+-- =====================================================================
+
+-- Hoja de Vida: "mantenimientos del carro X, los más recientes primero"
+-- (findByVehicleIdOrderByDateDesc, historial por placa, ETag del historial y deleteByVehicleId).
+-- Con (vehicle_id, date DESC) la BD lee solo las filas de ese carro y ya ordenadas.
+CREATE INDEX IF NOT EXISTS idx_maintenances_vehicle_date ON maintenances (vehicle_id, date DESC);
+
+-- Reporte global ordenado por fecha, exportación CSV por mes y reconstrucción de acumulados.
+CREATE INDEX IF NOT EXISTS idx_maintenances_date ON maintenances (date);
+
+-- El vehículo "más caro" de cada acumulado debe existir. Si se borra el carro queda en NULL
+-- (y luego deleteVehicle recalcula el acumulado). Antes limpiamos referencias viejas.
+UPDATE maintenance_rollups SET top_vehicle_id = NULL
+WHERE top_vehicle_id IS NOT NULL AND top_vehicle_id NOT IN (SELECT id FROM vehicles);
+
+ALTER TABLE maintenance_rollups ADD CONSTRAINT fk_maintenance_rollups_top_vehicle
+    FOREIGN KEY (top_vehicle_id) REFERENCES vehicles (id) ON DELETE SET NULL;
@@ -0,0 +1,8 @@
+-- =====================================================================
+-- V8: Índice para los filtros y conteos del Inventario (GET /api/vehicles/query)
+-- =====================================================================
+
+-- Filtros "estado = X" / "estado = X y marca = Y" y el conteo por (estado, marca) en un solo GROUP BY.
+-- Sin otros filtros, el conteo puede salir solo del índice (index-only scan). Con filtros de año o
+-- kilometraje esas columnas no están en el índice y PostgreSQL igual tiene que leer la tabla.
+CREATE INDEX IF NOT EXISTS idx_vehicles_status_brand ON vehicles (status, brand);
@@ -0,0 +1,371 @@
+package uce.edu.GestionFlota;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.Vehicle;
+import uce.edu.GestionFlota.Repository.MaintenanceRepository;
+import uce.edu.GestionFlota.Repository.VehicleRepository;
+import uce.edu.GestionFlota.Service.MaintenanceService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de Carga de la API: levanta la aplicación REAL (Tomcat + Spring + Hibernate + Flyway)
+ * sobre H2 en modo PostgreSQL y la golpea con varios "navegadores" a la vez, con el tráfico
+ * típico del Dashboard. Reporta p50 / p99 y peticiones por segundo de cada endpoint, y FALLA
+ * si algún p99 pasa su presupuesto o si alguna petición responde con error.
+ * NO corre con 'mvn test' normal; se ejecuta a mano:
+ *   mvn test -Dtest=ApiLoadTest -Dloadtest=true
+ * Opciones (con -D): loadtest.users (8), loadtest.seconds (20), loadtest.vehicles (500),
+ * loadtest.budget.<endpoint> = p99 máximo en ms (ej: -Dloadtest.budget.fleet=300),
+ * loadtest.virtual-threads (false) y loadtest.bulkhead (igual que virtual-threads) para
+ * comparar los modos de hilos: ej. -Dloadtest.virtual-threads=true -Dloadtest.users=64,
+ * loadtest.l2cache (true) = cache de segundo nivel y de consultas de Hibernate, para medir
+ * cuántas consultas SQL se ahorran: ej. -Dloadtest.l2cache=false
+ *
+ * Segunda prueba: compara las formas de leer la flota (GET /vehicles completo, /vehicles/stream,
+ * recorrer /vehicles/page y 1 sola página) con p50 / p99 y la memoria que reserva el servidor
+ * por petición (bytes asignados en el heap por todos los hilos del servidor, como el perfilador
+ * 'gc' de JMH). Un solo cliente, peticiones seguidas:
+ *   mvn test -Dtest=ApiLoadTest#fleetListingModes_ShouldReportLatencyAndHeap -Dloadtest=true
+ *       -Dloadtest.vehicles=20000 -Dloadtest.listing.requests=30
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class ApiLoadTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 8);
+    private static final int SECONDS = Integer.getInteger("loadtest.seconds", 20);
+    private static final int WARMUP_SECONDS = 5;
+    private static final int VEHICLES = Integer.getInteger("loadtest.vehicles", 500);
+    private static final int MAINTENANCES_PER_VEHICLE = 10;
+    private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("loadtest.virtual-threads");
+    private static final boolean BULKHEAD = Boolean.parseBoolean(
+            System.getProperty("loadtest.bulkhead", String.valueOf(VIRTUAL_THREADS)));
+    private static final boolean L2_CACHE = Boolean.parseBoolean(System.getProperty("loadtest.l2cache", "true"));
+    private static final int LISTING_REQUESTS = Integer.getInteger("loadtest.listing.requests", 30);
+    private static final int PAGE_SIZE = 500; // VehicleService.MAX_PAGE_SIZE
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"nextCursor\":(\\d+)");
+
+    // Tráfico del Dashboard: % de peticiones y p99 máximo (ms) de cada endpoint
+    private static final List<Endpoint> ENDPOINTS = List.of(
+            new Endpoint("fleet", 35, 500),          // GET  /api/vehicles
+            new Endpoint("maintenances", 15, 1500),  // GET  /api/vehicles/maintenances/all
+            new Endpoint("exportCsv", 5, 2000),      // GET  /api/vehicles/maintenances/export (reporte)
+            new Endpoint("plate", 35, 100),          // GET  /api/vehicles/search/{placa}
+            new Endpoint("saveMaintenance", 10, 300) // POST /api/vehicles/maintenances
+    );
+
+    private static ConfigurableApplicationContext context;
+    private static String baseUrl;
+    private static List<Long> vehicleIds;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @BeforeAll
+    static void startApplication() {
+        // Argumentos de línea de comandos: tienen prioridad sobre application.properties (PostgreSQL)
+        context = new SpringApplicationBuilder(GestionFlotaApplication.class)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--spring.threads.virtual.enabled=" + VIRTUAL_THREADS,
+                        "--bulkhead.enabled=" + BULKHEAD,
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + L2_CACHE);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+        seedFleet();
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Carga del Dashboard: p99 de cada endpoint dentro del presupuesto y sin errores")
+    void dashboardTraffic_ShouldStayWithinBudget() throws Exception {
+        run(WARMUP_SECONDS); // Calentamiento (JIT, pool de conexiones, cachés); no se cuenta
+        Statistics hibernate = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        hibernate.clear();
+        Map<String, Stats> stats = run(SECONDS);
+
+        System.out.printf("%n[LOADTEST] %d usuarios, %d s, %d vehículos x %d mantenimientos, "
+                + "hilos %s (Java %d), bulkhead %s%n", USERS, SECONDS, VEHICLES, MAINTENANCES_PER_VEHICLE,
+                VIRTUAL_THREADS ? "virtuales" : "normales", Runtime.version().feature(), BULKHEAD ? "sí" : "no");
+        System.out.printf("[LOADTEST] %-16s %8s %8s %9s %9s %9s %7s%n",
+                "endpoint", "peticion", "req/s", "p50 ms", "p99 ms", "budget", "errores");
+        List<String> overBudget = new ArrayList<>();
+        for (Endpoint endpoint : ENDPOINTS) {
+            Stats s = stats.get(endpoint.name);
+            double p99 = s.percentileMillis(99);
+            long budget = Long.getLong("loadtest.budget." + endpoint.name, endpoint.p99BudgetMs);
+            System.out.printf("[LOADTEST] %-16s %8d %8.1f %9.2f %9.2f %9d %7d%n", endpoint.name, s.count(),
+                    s.count() / (double) SECONDS, s.percentileMillis(50), p99, budget, s.errors.get());
+            if (p99 > budget) {
+                overBudget.add(endpoint.name + " p99=" + Math.round(p99) + "ms > " + budget + "ms");
+            }
+        }
+
+        long requests = stats.values().stream().mapToLong(Stats::count).sum();
+        System.out.printf("[LOADTEST] Hibernate (cache %s): %d consultas SQL (%.2f por petición), "
+                + "cache 2º nivel %d aciertos / %d fallos (%.0f%%)%n",
+                L2_CACHE ? "sí" : "no", hibernate.getPrepareStatementCount(),
+                hibernate.getPrepareStatementCount() / (double) Math.max(1, requests),
+                hibernate.getSecondLevelCacheHitCount(), hibernate.getSecondLevelCacheMissCount(),
+                ratio(hibernate.getSecondLevelCacheHitCount(), hibernate.getSecondLevelCacheMissCount()));
+
+        assertThat(stats.values()).allSatisfy(s -> assertThat(s.errors.get()).isZero());
+        assertThat(overBudget).as("Endpoints fuera de presupuesto").isEmpty();
+    }
+
+    @Test
+    @DisplayName("Lectura de la flota: /vehicles vs /stream vs /page, con latencia y heap por petición")
+    void fleetListingModes_ShouldReportLatencyAndHeap() throws Exception {
+        Map<String, Callable<Integer>> modes = new LinkedHashMap<>();
+        modes.put("fleet", () -> countVehicles(get("/vehicles")));          // Todo en una lista
+        modes.put("stream", () -> countVehicles(get("/vehicles/stream")));  // Fila por fila desde el cursor
+        modes.put("pageWalk", this::walkPages);                             // Todas las páginas de a 500
+        modes.put("firstPage", () -> countVehicles(get("/vehicles/page?size=100"))); // Lo que ve la pantalla
+
+        System.out.printf("%n[LISTADO] %d vehículos, %d peticiones por modo, hilos %s%n", VEHICLES,
+                LISTING_REQUESTS, VIRTUAL_THREADS ? "virtuales" : "normales");
+        System.out.printf("[LISTADO] %-10s %9s %9s %9s %14s%n", "modo", "vehículos", "p50 ms", "p99 ms", "heap KB/pet");
+        for (Map.Entry<String, Callable<Integer>> mode : modes.entrySet()) {
+            for (int i = 0; i < Math.max(5, LISTING_REQUESTS / 3); i++) {
+                mode.getValue().call(); // Calentamiento (JIT, cachés); no se cuenta
+            }
+            Stats stats = new Stats();
+            int vehicles = 0;
+            long allocatedBefore = serverAllocatedBytes();
+            for (int i = 0; i < LISTING_REQUESTS; i++) {
+                long start = System.nanoTime();
+                vehicles = mode.getValue().call();
+                stats.record(System.nanoTime() - start, true);
+            }
+            long allocatedPerRequest = (serverAllocatedBytes() - allocatedBefore) / LISTING_REQUESTS;
+            System.out.printf("[LISTADO] %-10s %9d %9.2f %9.2f %14d%n", mode.getKey(), vehicles,
+                    stats.percentileMillis(50), stats.percentileMillis(99), allocatedPerRequest / 1024);
+
+            assertThat(vehicles).isEqualTo(mode.getKey().equals("firstPage") ? Math.min(100, VEHICLES) : VEHICLES);
+        }
+    }
+
+    private String get(String path) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60)).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as(path).isEqualTo(200);
+        return response.body();
+    }
+
+    // Sigue 'nextCursor' hasta el final; devuelve cuántos vehículos llegaron en total
+    private int walkPages() throws Exception {
+        int vehicles = 0;
+        String after = "";
+        while (true) {
+            String body = get("/vehicles/page?size=" + PAGE_SIZE + after);
+            vehicles += countVehicles(body);
+            Matcher cursor = NEXT_CURSOR.matcher(body);
+            if (!cursor.find()) {
+                return vehicles;
+            }
+            after = "&after=" + cursor.group(1);
+        }
+    }
+
+    private static int countVehicles(String json) {
+        int count = 0;
+        for (int i = json.indexOf("\"licensePlate\""); i >= 0; i = json.indexOf("\"licensePlate\"", i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    // Bytes reservados en el heap por los hilos del servidor (Tomcat, tareas async, BD en memoria):
+    // todos menos el de la prueba y los del HttpClient que hace de navegador.
+    private static long serverAllocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || info.getThreadId() == Thread.currentThread().getId()
+                    || info.getThreadName().startsWith("HttpClient")) {
+                continue;
+            }
+            total += Math.max(0, threads.getThreadAllocatedBytes(info.getThreadId()));
+        }
+        return total;
+    }
+
+    // Cada "usuario" elige endpoints al azar según el % del tráfico, sin pausas, durante 'seconds'
+    private Map<String, Stats> run(int seconds) throws InterruptedException {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        ENDPOINTS.forEach(e -> stats.put(e.name, new Stats()));
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService users = Executors.newFixedThreadPool(USERS);
+        for (int u = 0; u < USERS; u++) {
+            users.submit(() -> {
+                while (System.nanoTime() < end) {
+                    Endpoint endpoint = pick();
+                    HttpRequest request = request(endpoint.name);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        stats.get(endpoint.name).record(System.nanoTime() - start, response.statusCode() < 400);
+                    } catch (Exception e) {
+                        stats.get(endpoint.name).record(System.nanoTime() - start, false);
+                    }
+                }
+            });
+        }
+        users.shutdown();
+        assertThat(users.awaitTermination(seconds + 60L, TimeUnit.SECONDS)).isTrue();
+        return stats;
+    }
+
+    private static Endpoint pick() {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        for (Endpoint endpoint : ENDPOINTS) {
+            roll -= endpoint.weight;
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        return ENDPOINTS.get(0);
+    }
+
+    private HttpRequest request(String endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+        switch (endpoint) {
+            case "fleet":
+                return builder.uri(URI.create(baseUrl + "/vehicles")).GET().build();
+            case "maintenances":
+                return builder.uri(URI.create(baseUrl + "/vehicles/maintenances/all")).GET().build();
+            case "exportCsv":
+                return builder.uri(URI.create(baseUrl + "/vehicles/maintenances/export")).GET().build();
+            case "plate":
+                return builder.uri(URI.create(baseUrl + "/vehicles/search/" + plate(random.nextInt(VEHICLES))))
+                        .GET().build();
+            default:
+                String body = "{\"vehicle\":{\"id\":" + vehicleIds.get(random.nextInt(vehicleIds.size())) + "},"
+                        + "\"type\":\"" + (random.nextBoolean() ? "Preventivo" : "Correctivo") + "\","
+                        + "\"cost\":" + (50 + random.nextInt(900)) + ",\"date\":\"" + LocalDate.now() + "\","
+                        + "\"description\":\"Prueba de carga\",\"mileageAtMaintenance\":" + random.nextInt(200_000) + "}";
+                return builder.uri(URI.create(baseUrl + "/vehicles/maintenances"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        }
+    }
+
+    // Flota de prueba: placas LT-0000.., 10 mantenimientos por carro, acumulados listos
+    private static void seedFleet() {
+        VehicleRepository vehicleRepository = context.getBean(VehicleRepository.class);
+        MaintenanceRepository maintenanceRepository = context.getBean(MaintenanceRepository.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < VEHICLES; i++) {
+            Vehicle vehicle = new Vehicle(plate(i), "HINO", "FC", 2015 + i % 10, 10000.0 + random.nextInt(90_000),
+                    "Available");
+            vehicle.setLastMaintenanceKm(vehicle.getMileage() - random.nextInt(6000));
+            vehicles.add(vehicle);
+        }
+        vehicles = vehicleRepository.saveAll(vehicles);
+
+        List<Maintenance> maintenances = new ArrayList<>();
+        for (Vehicle vehicle : vehicles) {
+            for (int i = 0; i < MAINTENANCES_PER_VEHICLE; i++) {
+                Maintenance maintenance = new Maintenance();
+                maintenance.setVehicle(vehicle);
+                maintenance.setDate(LocalDate.now().minusDays(random.nextInt(365)));
+                maintenance.setType(i % 3 == 0 ? "Correctivo" : "Preventivo");
+                maintenance.setCost(50.0 + random.nextInt(900));
+                maintenance.setDescription("Cambio de aceite y filtros");
+                maintenance.setMileageAtMaintenance(vehicle.getMileage() - random.nextInt(20_000));
+                maintenances.add(maintenance);
+            }
+        }
+        maintenanceRepository.saveAll(maintenances);
+        context.getBean(MaintenanceService.class).initializeRollups();
+        vehicleIds = vehicles.stream().map(Vehicle::getId).toList();
+    }
+
+    private static double ratio(long hits, long misses) {
+        return (hits + misses == 0) ? 0 : hits * 100.0 / (hits + misses);
+    }
+
+    private static String plate(int index) {
+        return String.format("LT-%04d", index);
+    }
+
+    private record Endpoint(String name, int weight, long p99BudgetMs) {
+    }
+
+    // Tiempos de un endpoint (en nanosegundos) y cuántas peticiones fallaron
+    private static class Stats {
+
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        void record(long nanos, boolean ok) {
+            latencies.add(nanos);
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+
+        int count() {
+            return latencies.size();
+        }
+
+        double percentileMillis(int percentile) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            if (sorted.length == 0) {
+                return 0;
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -10,13 +10,19 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import uce.edu.GestionFlota.Model.User;
+import uce.edu.GestionFlota.Service.FleetEventService;
+import uce.edu.GestionFlota.Service.MaintenancePartitionService;
 import uce.edu.GestionFlota.Service.MaintenanceService;
+import uce.edu.GestionFlota.Service.TelemetryService;
+import uce.edu.GestionFlota.Service.TokenService;
 import uce.edu.GestionFlota.Service.UserService;
 import uce.edu.GestionFlota.Service.VehicleService;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
@@ -29,6 +35,9 @@ public class AuthControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private TokenService tokenService; // El real: firma y valida sin BD
+
     @MockBean
     private UserService userService;
 
@@ -38,6 +47,15 @@ public class AuthControllerTest {
     @MockBean
     private MaintenanceService maintenanceService;
 
+    @MockBean
+    private TelemetryService telemetryService;
+
+    @MockBean
+    private FleetEventService fleetEventService;
+
+    @MockBean
+    private MaintenancePartitionService maintenancePartitionService;
+
     private User adminUser;
 
     @BeforeEach
@@ -65,7 +83,67 @@ public class AuthControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("ok"))
                 .andExpect(jsonPath("$.role").value("ADMIN"))
-                .andExpect(jsonPath("$.message").exists());
+                .andExpect(jsonPath("$.message").exists())
+                .andExpect(jsonPath("$.token").isString());
+    }
+
+    @Test
+    @DisplayName("El filtro debe rechazar con 401 un token falso o alterado")
+    void request_ShouldReturnUnauthorized_WhenTokenIsForged() throws Exception {
+        String token = tokenService.issueToken(adminUser);
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        mockMvc.perform(post("/api/auth/login")
+                .header("Authorization", "Bearer " + forged)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.status").value("error"));
+    }
+
+    @Test
+    @DisplayName("El filtro debe rechazar con 401 un token bien firmado pero revocado")
+    void request_ShouldReturnUnauthorized_WhenTokenIsRevoked() throws Exception {
+        String token = tokenService.issueToken(adminUser);
+        given(userService.isTokenCurrent(any())).willReturn(false); // Cambió la contraseña o el rol
+
+        mockMvc.perform(post("/api/auth/link-token").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/link-token - Debe dar un token de enlace solo con sesión")
+    void linkToken_ShouldRequireSession() throws Exception {
+        given(userService.isTokenCurrent(any())).willReturn(true);
+
+        mockMvc.perform(post("/api/auth/link-token")
+                .header("Authorization", "Bearer " + tokenService.issueToken(adminUser)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isString())
+                .andExpect(jsonPath("$.expiresIn").value(tokenService.getLinkTtlSeconds()));
+        mockMvc.perform(post("/api/auth/link-token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("PUT /api/auth/users/{id}/role - Solo un ADMIN puede cambiar roles")
+    void changeRole_ShouldRequireAdmin() throws Exception {
+        User operator = new User("operador", "hash", "USER");
+        operator.setId(2L);
+        given(userService.isTokenCurrent(any())).willReturn(true);
+        given(userService.changeRole(2L, "ADMIN")).willReturn(operator);
+
+        mockMvc.perform(put("/api/auth/users/2/role")
+                .header("Authorization", "Bearer " + tokenService.issueToken(operator))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"role\":\"ADMIN\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/auth/users/2/role")
+                .header("Authorization", "Bearer " + tokenService.issueToken(adminUser))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"role\":\"ADMIN\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("ok"));
     }
 
     @Test
@@ -0,0 +1,78 @@
+package uce.edu.GestionFlota.Controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas Unitarias del Bulkhead: con 1 solo permiso, la segunda petición
+ * simultánea espera 'max-wait-ms' y recibe 503; al liberarse, vuelve a entrar.
+ */
+public class RequestBulkheadFilterTest {
+
+    private RequestBulkheadFilter filter;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RequestBulkheadFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "permits", 1);
+        ReflectionTestUtils.setField(filter, "maxWaitMs", 50L);
+        filter.init();
+    }
+
+    private MockHttpServletResponse perform(String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", path), response, (req, res) -> { });
+        return response;
+    }
+
+    @Test
+    @DisplayName("Debe responder 503 cuando todos los permisos están ocupados y liberar al terminar")
+    void doFilter_ShouldRejectWhenFullAndReleaseAfterwards() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        // Petición lenta que ocupa el único permiso (como un reporte pesado)
+        Thread slow = new Thread(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/vehicles/maintenances/all"),
+                        new MockHttpServletResponse(), (req, res) -> {
+                            inside.countDown();
+                            try {
+                                finish.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        slow.start();
+        assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = perform("/api/vehicles");
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.counter("http.bulkhead.rejected").count()).isEqualTo(1.0);
+        // Fuera de /api y el canal de eventos no pasan por el bulkhead
+        assertThat(perform("/actuator/health").getStatus()).isEqualTo(200);
+        assertThat(perform("/api/vehicles/events").getStatus()).isEqualTo(200);
+
+        finish.countDown();
+        slow.join(5000);
+        assertThat(perform("/api/vehicles").getStatus()).isEqualTo(200);
+    }
+}
@@ -6,20 +6,40 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import uce.edu.GestionFlota.Dto.AuthPrincipal;
+import uce.edu.GestionFlota.Dto.CostSummary;
+import uce.edu.GestionFlota.Dto.ImportResult;
+import uce.edu.GestionFlota.Dto.MaintenanceSummary;
+import uce.edu.GestionFlota.Dto.MaintenanceView;
+import uce.edu.GestionFlota.Dto.VehicleFilter;
+import uce.edu.GestionFlota.Model.User;
 import uce.edu.GestionFlota.Model.Vehicle;
+import uce.edu.GestionFlota.Service.FleetEventService;
+import uce.edu.GestionFlota.Service.MaintenancePartitionService;
 import uce.edu.GestionFlota.Service.MaintenanceService;
+import uce.edu.GestionFlota.Service.TelemetryService;
+import uce.edu.GestionFlota.Service.TokenService;
 import uce.edu.GestionFlota.Service.UserService;
 import uce.edu.GestionFlota.Service.VehicleService;
 
+import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,6 +54,9 @@ public class VehicleControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private TokenService tokenService; // El real: firma y valida sin BD
+
     @MockBean
     private VehicleService vehicleService;
 
@@ -43,6 +66,15 @@ public class VehicleControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private TelemetryService telemetryService;
+
+    @MockBean
+    private FleetEventService fleetEventService;
+
+    @MockBean
+    private MaintenancePartitionService maintenancePartitionService;
+
     private Vehicle vehicle;
 
     @BeforeEach
@@ -66,6 +98,44 @@ public class VehicleControllerTest {
                 .andExpect(jsonPath("$[0].brand").value("HINO"));
     }
 
+    @Test
+    @DisplayName("GET /api/vehicles - Debe responder 304 sin cargar la flota si el ETag no cambió")
+    void getAllVehicles_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        given(vehicleService.getFleetETag()).willReturn("\"3-12-abc\"");
+        given(vehicleService.getAllVehicles()).willReturn(Arrays.asList(vehicle));
+
+        mockMvc.perform(get("/api/vehicles"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3-12-abc\""));
+        mockMvc.perform(get("/api/vehicles").header("If-None-Match", "\"3-12-abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(vehicleService, times(1)).getAllVehicles(); // Solo en la primera petición
+    }
+
+    @Test
+    @DisplayName("GET /api/vehicles/{id}/history - Debe responder 304 si el historial no cambió")
+    void getHistory_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        given(maintenanceService.getHistoryETag(1L)).willReturn("\"2-40-def\"");
+
+        mockMvc.perform(get("/api/vehicles/1/history").header("If-None-Match", "\"2-40-def\""))
+                .andExpect(status().isNotModified());
+
+        verify(maintenanceService, never()).getHistoryViewsByVehicle(any());
+    }
+
+    @Test
+    @DisplayName("GET /api/vehicles/page - Debe retornar la página y el siguiente cursor")
+    void getPage_ShouldReturnItemsAndNextCursor() throws Exception {
+        given(vehicleService.getVehiclesPage(null, 1)).willReturn(List.of(vehicle));
+
+        mockMvc.perform(get("/api/vehicles/page").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].licensePlate").value("ABC-1234"))
+                .andExpect(jsonPath("$.nextCursor").value(1));
+    }
+
     @Test
     @DisplayName("GET /api/vehicles/search/{plate} - Debe retornar vehículo si existe")
     void searchByPlate_ShouldReturnVehicle() throws Exception {
@@ -76,6 +146,43 @@ public class VehicleControllerTest {
                 .andExpect(jsonPath("$.licensePlate").value("ABC-1234"));
     }
 
+    @Test
+    @DisplayName("GET /api/vehicles/search/{plate}/history - Debe retornar vehículo e historial juntos")
+    void searchHistoryByPlate_ShouldReturnVehicleAndHistory() throws Exception {
+        MaintenanceView row = new MaintenanceView(7L, LocalDate.of(2026, 3, 1), "Preventivo", 120.0, null, 15000.0,
+                1L, "ABC-1234", "HINO", "FC");
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("vehicle", row.getVehicle());
+        response.put("history", List.of(row));
+        given(maintenanceService.getHistoryByPlate("ABC-1234", LocalDate.of(2026, 1, 1), null, 10))
+                .willReturn(Optional.of(response));
+        given(maintenanceService.getHistoryByPlate(eq("ZZZ-9999"), any(), any(), any())).willReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/vehicles/search/ABC-1234/history").param("from", "2026-01-01").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vehicle.id").value(1))
+                .andExpect(jsonPath("$.history[0].type").value("Preventivo"));
+        mockMvc.perform(get("/api/vehicles/search/ZZZ-9999/history"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("POST /api/vehicles/telemetry - Debe aceptar lecturas (202) y pedir reintento si la cola está llena (503)")
+    void ingestTelemetry_ShouldAcceptOrAskToRetry() throws Exception {
+        String readings = "[{\"vehicleId\":1,\"mileage\":15000.5},{\"vehicleId\":2,\"mileage\":800}]";
+        given(telemetryService.ingest(any())).willReturn(2, 1);
+        given(telemetryService.isFull()).willReturn(true);
+
+        mockMvc.perform(post("/api/vehicles/telemetry").contentType(MediaType.APPLICATION_JSON).content(readings))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(0));
+        mockMvc.perform(post("/api/vehicles/telemetry").contentType(MediaType.APPLICATION_JSON).content(readings))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+
     @Test
     @DisplayName("POST /api/vehicles - Debe guardar y retornar vehículo")
     void saveVehicle_ShouldReturnSavedVehicle() throws Exception {
@@ -94,10 +201,194 @@ public class VehicleControllerTest {
     @Test
     @DisplayName("DELETE /api/vehicles/{id} - Debe eliminar si existe")
     void deleteVehicle_ShouldReturnOk() throws Exception {
-        given(vehicleService.existsById(1L)).willReturn(true);
-        doNothing().when(vehicleService).deleteVehicle(1L);
+        given(vehicleService.deleteVehicle(1L)).willReturn(true);
 
         mockMvc.perform(delete("/api/vehicles/1"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    @DisplayName("DELETE /api/vehicles/{id} - Debe retornar 404 si no existe")
+    void deleteVehicle_ShouldReturnNotFound() throws Exception {
+        given(vehicleService.deleteVehicle(99L)).willReturn(false);
+
+        mockMvc.perform(delete("/api/vehicles/99"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Borrar, dar de baja e importar deben responder 403 a un usuario que no es ADMIN")
+    void destructiveEndpoints_ShouldReturnForbidden_ForNonAdmin() throws Exception {
+        User operator = new User("operador", "hash", "USER");
+        operator.setId(2L);
+        String bearer = "Bearer " + tokenService.issueToken(operator);
+        given(userService.isTokenCurrent(any())).willReturn(true);
+
+        mockMvc.perform(delete("/api/vehicles/1").header("Authorization", bearer))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/vehicles/retire").header("Authorization", bearer)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/vehicles/bulk").header("Authorization", bearer)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"licensePlate\":\"ABC-1234\", \"brand\":\"HINO\"}\n"))
+                .andExpect(status().isForbidden());
+
+        verify(vehicleService, never()).deleteVehicle(any());
+        verify(vehicleService, never()).retireVehicles(any());
+        verify(vehicleService, never()).importVehicles(any());
+    }
+
+    @Test
+    @DisplayName("GET /api/vehicles/maintenances/export - Debe aceptar un token de enlace en la URL")
+    void exportMaintenances_ShouldAcceptLinkTokenInQuery() throws Exception {
+        User admin = new User("admin", "hash", "ADMIN");
+        admin.setId(1L);
+        String session = tokenService.issueToken(admin);
+        AuthPrincipal principal = tokenService.verify(session).orElseThrow();
+        given(userService.isTokenCurrent(any())).willReturn(true);
+
+        mockMvc.perform(get("/api/vehicles/maintenances/export")
+                .param("access_token", tokenService.issueLinkToken(principal)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/vehicles/maintenances/export").param("access_token", session))
+                .andExpect(status().isUnauthorized()); // Un token de sesión no va en la URL
+    }
+
+    @Test
+    @DisplayName("POST /api/vehicles/retire - Debe dar de baja la lista de vehículos")
+    void retireVehicles_ShouldReturnCounts() throws Exception {
+        given(vehicleService.retireVehicles(List.of(1L, 2L, 3L))).willReturn(2);
+
+        mockMvc.perform(post("/api/vehicles/retire")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(3))
+                .andExpect(jsonPath("$.retired").value(2));
+
+        mockMvc.perform(post("/api/vehicles/retire")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/vehicles/search?q= - Debe devolver la página de resultados aproximados")
+    void search_ShouldReturnRankedPage() throws Exception {
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", List.of(vehicle));
+        page.put("total", 1);
+        page.put("page", 0);
+        page.put("size", 20);
+        given(vehicleService.searchVehicles("hino fc", 0, 20)).willReturn(page);
+
+        mockMvc.perform(get("/api/vehicles/search").param("q", "hino fc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].licensePlate").value("ABC-1234"))
+                .andExpect(jsonPath("$.total").value(1));
+        mockMvc.perform(get("/api/vehicles/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/vehicles/query - Debe pasar filtros y orden al servicio y validar los rangos")
+    void query_ShouldBindFiltersAndValidate() throws Exception {
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", List.of(vehicle));
+        page.put("total", 1L);
+        page.put("facets", Map.of("status", Map.of("Available", 1L)));
+        given(vehicleService.queryVehicles(any(VehicleFilter.class), eq(Sort.by(Sort.Direction.DESC, "mileage")),
+                eq(0), eq(50))).willReturn(page);
+
+        mockMvc.perform(get("/api/vehicles/query")
+                .param("status", "Available").param("yearFrom", "2018").param("sort", "mileage,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].licensePlate").value("ABC-1234"))
+                .andExpect(jsonPath("$.facets.status.Available").value(1));
+        verify(vehicleService).queryVehicles(argThat(f -> "Available".equals(f.getStatus()) && f.getYearFrom() == 2018),
+                any(), eq(0), eq(50));
+
+        mockMvc.perform(get("/api/vehicles/query").param("yearFrom", "2024").param("yearTo", "2020"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/vehicles/query").param("sort", "password,asc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/vehicles/{id}/summary - Debe retornar el resumen sin el historial")
+    void getSummary_ShouldReturnCounts() throws Exception {
+        given(maintenanceService.getSummaryByVehicle(1L)).willReturn(Optional.of(
+                new MaintenanceSummary(1L, "ABC-1234", 3, 2, 1, 450.0, LocalDate.of(2026, 3, 1))));
+
+        mockMvc.perform(get("/api/vehicles/1/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.preventive").value(2))
+                .andExpect(jsonPath("$.corrective").value(1))
+                .andExpect(jsonPath("$.lastMaintenanceDate").value("2026-03-01"));
+        mockMvc.perform(get("/api/vehicles/2/summary"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /api/vehicles/maintenances/analytics - Debe retornar los acumulados")
+    void getMaintenanceAnalytics_ShouldReturnRollups() throws Exception {
+        CostSummary marzo = new CostSummary("2026-03");
+        marzo.merge(350.0, 2, 300.0, 1L, "ABC-1234");
+        given(maintenanceService.getCostAnalytics())
+                .willReturn(Map.of("byMonth", List.of(marzo), "byType", List.of()));
+
+        mockMvc.perform(get("/api/vehicles/maintenances/analytics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byMonth[0].key").value("2026-03"))
+                .andExpect(jsonPath("$.byMonth[0].totalCost").value(350.0))
+                .andExpect(jsonPath("$.byMonth[0].topVehiclePlate").value("ABC-1234"));
+    }
+
+    @Test
+    @DisplayName("GET /api/vehicles/maintenances/report - Debe validar el rango y pasar los filtros")
+    void getMaintenanceReport_ShouldValidateRange() throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("count", 1L);
+        report.put("totalCost", 50.0);
+        report.put("rows", List.of(new MaintenanceView(1L, LocalDate.of(2026, 3, 10), "Preventivo", 50.0,
+                "Aceite", null, 1L, "ABC-1234", "HINO", "FC")));
+        given(maintenanceService.getMaintenanceReport(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), null, 1L))
+                .willReturn(report);
+
+        mockMvc.perform(get("/api/vehicles/maintenances/report")
+                        .param("from", "2026-03-01").param("to", "2026-03-31").param("type", " ").param("vehicleId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCost").value(50.0))
+                .andExpect(jsonPath("$.rows[0].vehicle.licensePlate").value("ABC-1234"));
+
+        // Rango al revés, de más de un año, o sin fechas: 400
+        mockMvc.perform(get("/api/vehicles/maintenances/report").param("from", "2026-03-31").param("to", "2026-03-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/vehicles/maintenances/report").param("from", "2024-01-01").param("to", "2026-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/vehicles/maintenances/report").param("from", "2026-03-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/vehicles/bulk - Debe retornar el resultado por fila")
+    void bulkImport_ShouldReturnPerRowResults() throws Exception {
+        given(vehicleService.importVehicles(any())).willReturn(List.of(
+                ImportResult.created(1, "ABC-1234", 1L),
+                ImportResult.error(2, "ABC-1234", "La placa está repetida en la carga")));
+
+        String ndjson = "{\"licensePlate\":\"ABC-1234\", \"brand\":\"HINO\"}\n"
+                + "{\"licensePlate\":\"ABC-1234\", \"brand\":\"HINO\"}\n";
+
+        mockMvc.perform(post("/api/vehicles/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.errors").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("error"));
+    }
 }
@@ -0,0 +1,108 @@
+package uce.edu.GestionFlota;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import uce.edu.GestionFlota.Model.User;
+import uce.edu.GestionFlota.Repository.UserRepository;
+import uce.edu.GestionFlota.Service.TokenService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de Integración de las métricas: levanta la aplicación REAL sobre H2 y revisa
+ * que /actuator/prometheus publique la latencia por endpoint (histograma), las
+ * estadísticas de Hibernate y la saturación del pool de conexiones (Hikari).
+ * Corre con 'auth.enforce=true': las métricas solo las ve un ADMIN (health queda abierto).
+ */
+public class MetricsEndpointTest {
+
+    private static ConfigurableApplicationContext context;
+    private static String baseUrl;
+    private static String adminToken;
+    private static String userToken;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void startApplication() {
+        // Argumentos de línea de comandos: tienen prioridad sobre application.properties (PostgreSQL)
+        context = new SpringApplicationBuilder(GestionFlotaApplication.class)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:metricstest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--auth.enforce=true",
+                        "--logging.level.root=WARN");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+        // Usuarios reales en la BD: el filtro revisa su versión de tokens
+        UserRepository users = context.getBean(UserRepository.class);
+        TokenService tokens = context.getBean(TokenService.class);
+        adminToken = tokens.issueToken(users.save(new User("metricas-admin", "$2a$10$x", "ADMIN")));
+        userToken = tokens.issueToken(users.save(new User("metricas-user", "$2a$10$x", "USER")));
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return get(path, null);
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @DisplayName("Las métricas deben pedir sesión de ADMIN; health debe quedar abierto")
+    void actuator_ShouldRequireAdmin_WhenAuthIsEnforced() throws Exception {
+        assertThat(get("/actuator/prometheus").statusCode()).isEqualTo(401);
+        assertThat(get("/actuator/metrics").statusCode()).isEqualTo(401);
+        assertThat(get("/actuator/prometheus", userToken).statusCode()).isEqualTo(403);
+        assertThat(get("/actuator/health").statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Debe publicar latencia por endpoint, estadísticas de Hibernate y del pool en Prometheus")
+    void prometheus_ShouldExposePersistenceMetrics() throws Exception {
+        assertThat(get("/api/vehicles", adminToken).statusCode()).isEqualTo(200);
+
+        HttpResponse<String> response = get("/actuator/prometheus", adminToken);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body())
+                // Histograma de latencia con la uri del endpoint (para p95/p99)
+                .containsPattern("http_server_requests_seconds_bucket\\{[^}]*uri=\"/api/vehicles\"")
+                // Hibernate: consultas ejecutadas (y la más lenta) y entidades cargadas
+                .contains("hibernate_query_executions_total")
+                .contains("hibernate_query_executions_max_seconds")
+                .contains("hibernate_entities_loads_total")
+                // Aciertos/fallos de la caché de segundo nivel de Vehicle (ver ehcache.xml)
+                .containsPattern("hibernate_second_level_cache_requests_total\\{[^}]*region=\"uce.edu.GestionFlota.Model.Vehicle\"")
+                // Hikari: conexiones ocupadas, en espera y tiempo de espera por conexión
+                .contains("hikaricp_connections_active")
+                .contains("hikaricp_connections_pending")
+                .contains("hikaricp_connections_acquire_seconds_bucket");
+    }
+}
@@ -0,0 +1,271 @@
+package uce.edu.GestionFlota;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.MaintenanceRollup;
+import uce.edu.GestionFlota.Model.Vehicle;
+import uce.edu.GestionFlota.Repository.MaintenanceRollupRepository;
+import uce.edu.GestionFlota.Repository.VehicleRepository;
+import uce.edu.GestionFlota.Service.MaintenancePartitionService;
+import uce.edu.GestionFlota.Service.MaintenanceService;
+import uce.edu.GestionFlota.Service.VehicleService;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas de Integración contra un PostgreSQL REAL: lo que H2 no puede simular
+ * (ON CONFLICT entre transacciones, particiones, funciones PL/pgSQL de db/vendor/postgresql).
+ * Son opcionales (necesitan la BD levantada). Para correrlas:
+ *   mvn test -Dtest=PostgreSqlIntegrationTest -Dpostgres.url=jdbc:postgresql://localhost:5433/GestionFlota
+ *   (usuario/clave: -Dpostgres.user / -Dpostgres.password, por defecto los de application.properties)
+ * Cada corrida crea un esquema nuevo como lo dejaba Hibernate antes de Flyway (db/esquema_a4ed686.sql,
+ * con datos), la aplicación lo actualiza al arrancar (baseline + V2 en adelante) y al final se borra.
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+public class PostgreSqlIntegrationTest {
+
+    private static final String SCHEMA = "prueba_" + System.currentTimeMillis();
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startApplication() {
+        // La BD de "producción" de antes de Flyway: tablas de Hibernate y algunos datos
+        DriverManagerDataSource oldDatabase = dataSource(SCHEMA);
+        new JdbcTemplate(oldDatabase).execute("CREATE SCHEMA " + SCHEMA);
+        new ResourceDatabasePopulator(new ClassPathResource("db/esquema_a4ed686.sql")).execute(oldDatabase);
+
+        context = new SpringApplicationBuilder(GestionFlotaApplication.class)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + schemaUrl(SCHEMA),
+                        "--spring.datasource.username=" + System.getProperty("postgres.user", "postgres"),
+                        "--spring.datasource.password=" + System.getProperty("postgres.password", "1234"),
+                        "--spring.flyway.schemas=" + SCHEMA,
+                        "--logging.level.root=WARN");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+            context.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Una BD creada por Hibernate debe quedar marcada como versión 1 y migrada, sin perder datos")
+    void baselinedDatabase_ShouldMigrateAndKeepRows() {
+        List<String> baseline = jdbcTemplate.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE type = 'BASELINE'", String.class);
+        List<String> applied = jdbcTemplate.queryForList("SELECT version FROM flyway_schema_history "
+                + "WHERE type = 'SQL' AND success ORDER BY installed_rank", String.class);
+
+        assertThat(baseline).containsExactly("1");
+        assertThat(applied).containsExactly("2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12");
+        // Las filas viejas pasaron a su partición del mes (V9)
+        assertThat(jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM maintenances "
+                + "WHERE description = 'Cambio de aceite'", String.class)).isEqualTo("maintenances_2025_01");
+        // Los cálculos de arranque llenaron lo que las columnas/tablas nuevas no tenían
+        assertThat(jdbcTemplate.queryForObject("SELECT maintenance_count FROM vehicles WHERE license_plate = 'OLD-0001'",
+                Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT total_cost FROM maintenance_rollups "
+                + "WHERE month_key = '2025-01' AND type = 'Preventivo'", Double.class)).isEqualTo(150.0);
+    }
+
+    @Test
+    @DisplayName("Los vehículos nuevos deben recibir IDs después de los que ya existían (secuencia de V3)")
+    void baselinedDatabase_ShouldContinueVehicleIdsAfterExistingOnes() {
+        Vehicle saved = context.getBean(VehicleRepository.class)
+                .save(new Vehicle("NEW-0001", "HINO", "FC", 2024, 0.0, "Available"));
+
+        assertThat(saved.getId()).isGreaterThan(2L);
+    }
+
+    @Test
+    @DisplayName("El semáforo debe contar ROJO, AMARILLO y VERDE con una consulta agrupada en PostgreSQL")
+    @SuppressWarnings("unchecked")
+    void maintenanceAlerts_ShouldGroupCountsInPostgres() {
+        VehicleRepository vehicleRepository = context.getBean(VehicleRepository.class);
+        Vehicle due = new Vehicle("SEM-0001", "HINO", "FC", 2023, 16000.0, "Available");
+        due.setLastMaintenanceKm(10000.0); // 120% -> ROJO
+        vehicleRepository.save(due);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource(SCHEMA));
+
+        Map<String, Object> alerts = context.getBean(VehicleService.class).getMaintenanceAlerts(1);
+        Map<String, Long> counts = (Map<String, Long>) alerts.get("counts");
+
+        assertThat(counts.get("ROJO")).isEqualTo(jdbc.queryForObject(
+                "SELECT COUNT(*) FROM vehicles WHERE maintenance_usage >= 100", Long.class));
+        assertThat(counts.get("AMARILLO")).isEqualTo(jdbc.queryForObject(
+                "SELECT COUNT(*) FROM vehicles WHERE maintenance_usage >= 70 AND maintenance_usage < 100", Long.class));
+        assertThat(counts.values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(jdbc.queryForObject("SELECT COUNT(*) FROM vehicles", Long.class));
+        assertThat((List<?>) alerts.get("items")).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("En una BD vacía las migraciones deben correr todas desde V1")
+    void emptyDatabase_ShouldRunAllMigrations() {
+        String schema = SCHEMA + "_vacia";
+        DriverManagerDataSource emptyDatabase = dataSource(schema);
+        try {
+            MigrateResult result = Flyway.configure().dataSource(emptyDatabase).schemas(schema)
+                    .locations("classpath:db/migration", "classpath:db/vendor/postgresql").load().migrate();
+
+            assertThat(result.migrationsExecuted).isEqualTo(12);
+            assertThat(result.targetSchemaVersion).isEqualTo("12");
+        } finally {
+            new JdbcTemplate(emptyDatabase).execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+        }
+    }
+
+    @Test
+    @DisplayName("Dos primeros mantenimientos simultáneos del mismo mes/tipo deben sumarse sin chocar con la llave única")
+    void addToRollup_ShouldNotFailOnConcurrentFirstInsert() throws Exception {
+        MaintenanceRollupRepository rollupRepository = context.getBean(MaintenanceRollupRepository.class);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+        VehicleRepository vehicleRepository = context.getBean(VehicleRepository.class);
+        Long cheap = vehicleRepository.save(new Vehicle("RLP-0001", "HINO", "FC", 2023, 0.0, "Available")).getId();
+        Long expensive = vehicleRepository.save(new Vehicle("RLP-0002", "HINO", "FC", 2023, 0.0, "Available")).getId();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch firstInserted = new CountDownLatch(1);
+        CountDownLatch commitFirst = new CountDownLatch(1);
+        try {
+            // La primera transacción crea la fila y NO confirma todavía...
+            Future<?> first = pool.submit(() -> tx.executeWithoutResult(status -> {
+                rollupRepository.addToRollup("1999-01", "Correctivo", 100.0, cheap);
+                firstInserted.countDown();
+                await(commitFirst);
+            }));
+            firstInserted.await(10, TimeUnit.SECONDS);
+            // ...la segunda intenta crear la misma fila: espera a la primera y suma sobre ella
+            Future<?> second = pool.submit(() -> tx.executeWithoutResult(
+                    status -> rollupRepository.addToRollup("1999-01", "Correctivo", 300.0, expensive)));
+            Thread.sleep(300);
+            commitFirst.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        MaintenanceRollup rollup = rollupRepository.findAll().stream()
+                .filter(r -> r.getMonthKey().equals("1999-01")).findFirst().orElseThrow();
+        assertThat(rollup.getTotalCost()).isEqualTo(400.0);
+        assertThat(rollup.getMaintenanceCount()).isEqualTo(2L);
+        assertThat(rollup.getTopVehicleId()).isEqualTo(expensive);
+    }
+
+    @Test
+    @DisplayName("Un mes separado debe pasar al archivo sin llave foránea y seguir contando en acumulados y resumen")
+    void detachPartitions_ShouldArchiveMonthWithoutForeignKey() throws IOException {
+        VehicleRepository vehicleRepository = context.getBean(VehicleRepository.class);
+        MaintenanceService maintenanceService = context.getBean(MaintenanceService.class);
+        VehicleService vehicleService = context.getBean(VehicleService.class);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+        Vehicle deleted = vehicleRepository.save(new Vehicle("ARC-0001", "HINO", "FC", 2018, 0.0, "Available"));
+        Vehicle retired = vehicleRepository.save(new Vehicle("ARC-0002", "HINO", "FC", 2018, 0.0, "Available"));
+
+        // Marzo 2019: primero en 'maintenances_default', create_maintenance_partition lo mueve a su mes
+        saveMaintenance(maintenanceService, deleted, LocalDate.of(2019, 3, 5), 300.0);
+        saveMaintenance(maintenanceService, retired, LocalDate.of(2019, 3, 20), 100.0);
+        assertThat(jdbcTemplate.queryForObject("SELECT create_maintenance_partition(DATE '2019-03-01')", String.class))
+                .isEqualTo("maintenances_2019_03");
+
+        List<String> detached = context.getBean(MaintenancePartitionService.class)
+                .detachPartitionsBefore(YearMonth.of(2019, 4));
+
+        assertThat(detached).containsExactly("maintenances_2019_03");
+        assertThat(jdbcTemplate.queryForObject("SELECT i.inhparent::regclass::text FROM pg_inherits i "
+                + "WHERE i.inhrelid = 'maintenances_2019_03'::regclass", String.class)).isEqualTo("maintenances_archive");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_constraint "
+                + "WHERE conrelid = 'maintenances_2019_03'::regclass AND contype = 'f'", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM maintenances WHERE date < DATE '2019-04-01'",
+                Integer.class)).isZero();
+
+        // Recalcular el acumulado del mes y el resumen del carro no debe perder el mes archivado
+        maintenanceService.rebuildRollups(List.of(new MaintenanceRollup("2019-03", "Preventivo")));
+        tx.executeWithoutResult(status -> vehicleRepository.refreshMaintenanceSummary(deleted.getId()));
+        assertThat(rollup("2019-03").getMaintenanceCount()).isEqualTo(2L);
+        assertThat(rollup("2019-03").getTopVehicleId()).isEqualTo(deleted.getId());
+        assertThat(maintenanceService.getSummaryByVehicle(deleted.getId()).orElseThrow().getTotalCost())
+                .isEqualTo(300.0);
+
+        // El reporte y la exportación del mes archivado cuadran con el acumulado del Dashboard
+        Map<String, Object> report = maintenanceService.getMaintenanceReport(LocalDate.of(2019, 3, 1),
+                LocalDate.of(2019, 3, 31), null, null);
+        assertThat(report.get("totalCost")).isEqualTo(rollup("2019-03").getTotalCost()).isEqualTo(400.0);
+        StringWriter csv = new StringWriter();
+        maintenanceService.exportMaintenancesCsv(YearMonth.of(2019, 3), null, csv);
+        assertThat(csv.toString()).contains("ARC-0001", "ARC-0002", "TOTAL GENERAL,,,,,400");
+
+        // Borrar y dar de baja carros con meses archivados (antes: fk_maintenances_vehicle lo impedía)
+        assertThat(vehicleService.deleteVehicle(deleted.getId())).isTrue();
+        assertThat(rollup("2019-03").getMaintenanceCount()).isEqualTo(1L);
+        assertThat(vehicleService.retireVehicles(List.of(retired.getId()))).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM maintenances_2019_03", Integer.class)).isZero();
+        assertThat(context.getBean(MaintenanceRollupRepository.class).findAll())
+                .noneMatch(r -> r.getMonthKey().equals("2019-03"));
+    }
+
+    private static void saveMaintenance(MaintenanceService service, Vehicle vehicle, LocalDate date, double cost) {
+        Maintenance maintenance = new Maintenance();
+        maintenance.setVehicle(vehicle);
+        maintenance.setType("Preventivo");
+        maintenance.setCost(cost);
+        maintenance.setDate(date);
+        service.saveMaintenance(maintenance);
+    }
+
+    private static MaintenanceRollup rollup(String month) {
+        return context.getBean(MaintenanceRollupRepository.class).findAll().stream()
+                .filter(r -> r.getMonthKey().equals(month) && r.getType().equals("Preventivo"))
+                .findFirst().orElseThrow();
+    }
+
+    private static String schemaUrl(String schema) {
+        String url = System.getProperty("postgres.url");
+        return url + (url.contains("?") ? "&" : "?") + "currentSchema=" + schema;
+    }
+
+    private static DriverManagerDataSource dataSource(String schema) {
+        return new DriverManagerDataSource(schemaUrl(schema), System.getProperty("postgres.user", "postgres"),
+                System.getProperty("postgres.password", "1234"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package uce.edu.GestionFlota.Repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import uce.edu.GestionFlota.GestionFlotaApplication;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de la actualización de una BD de producción (H2 en memoria).
+ * Antes de Flyway, Hibernate creaba las tablas ('ddl-auto=update', versión a4ed686).
+ * Aquí se crea ESE esquema con datos (db/esquema_a4ed686.sql) y recién después corre
+ * Flyway: lo marca como versión 1 (baseline) y aplica de V2 en adelante.
+ * 'ddl-auto=validate': si a la BD actualizada le falta algo de las entidades, no arranca.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+public class BaselineMigrationTest {
+
+    // Configuración mínima: solo entidades y repositorios (sin controladores ni servicios).
+    @Configuration
+    @AutoConfigurationPackage(basePackageClasses = GestionFlotaApplication.class)
+    static class JpaOnlyConfig {
+
+        // Primero el esquema viejo (como lo dejó Hibernate), luego las migraciones
+        @Bean
+        FlywayMigrationStrategy baselineThenMigrate() {
+            return flyway -> {
+                new ResourceDatabasePopulator(new ClassPathResource("db/esquema_a4ed686.sql"))
+                        .execute(flyway.getConfiguration().getDataSource());
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Test
+    @DisplayName("La BD vieja debe quedar marcada como versión 1 y migrada hasta la última versión")
+    void baselinedDatabase_ShouldReachLatestVersion() {
+        List<String> baseline = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"type\" = 'BASELINE'", String.class);
+        List<String> applied = jdbcTemplate.queryForList("SELECT \"version\" FROM \"flyway_schema_history\" "
+                + "WHERE \"type\" = 'SQL' AND \"success\" = TRUE ORDER BY \"installed_rank\"", String.class);
+
+        assertThat(baseline).containsExactly("1"); // V1 NO se ejecuta: esas tablas ya existían
+        assertThat(applied).containsExactly("2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12");
+    }
+
+    @Test
+    @DisplayName("Los datos de antes de la migración deben seguir ahí, con las columnas nuevas")
+    void baselinedDatabase_ShouldKeepExistingRows() {
+        assertThat(vehicleRepository.findAll()).extracting("licensePlate")
+                .containsExactlyInAnyOrder("OLD-0001", "OLD-0002");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM maintenances WHERE date IS NOT NULL",
+                Integer.class)).isEqualTo(2); // V9: la que no tenía fecha recibe una
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM maintenance_rollups", Integer.class))
+                .isZero(); // V2: tabla nueva (se llena al arrancar la aplicación)
+    }
+}
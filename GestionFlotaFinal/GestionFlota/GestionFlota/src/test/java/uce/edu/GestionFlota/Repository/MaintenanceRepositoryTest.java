@@ -0,0 +1,248 @@
+package uce.edu.GestionFlota.Repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.json.JsonMapper;
+import uce.edu.GestionFlota.GestionFlotaApplication;
+import uce.edu.GestionFlota.Dto.CollectionVersion;
+import uce.edu.GestionFlota.Dto.MaintenanceView;
+import uce.edu.GestionFlota.Dto.RollupTotals;
+import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas de Integración para MaintenanceRepository (BD H2 en memoria).
+ * Cuentan las sentencias SQL que ejecuta cada listado: si alguien vuelve a
+ * introducir el problema N+1 (un SELECT extra por vehículo), la prueba falla.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class MaintenanceRepositoryTest {
+
+    // Configuración mínima: solo entidades y repositorios (sin controladores ni servicios).
+    @Configuration
+    @AutoConfigurationPackage(basePackageClasses = GestionFlotaApplication.class)
+    static class JpaOnlyConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MaintenanceRepository maintenanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    private Vehicle firstVehicle;
+
+    @BeforeEach
+    void setUp() {
+        // 3 vehículos con 2 mantenimientos cada uno
+        for (int i = 1; i <= 3; i++) {
+            Vehicle vehicle = entityManager.persist(new Vehicle("ABC-000" + i, "HINO", "FC", 2023, 1000.0 * i, "Available"));
+            if (firstVehicle == null) {
+                firstVehicle = vehicle;
+            }
+            for (int j = 1; j <= 2; j++) {
+                Maintenance maintenance = new Maintenance();
+                maintenance.setDate(LocalDate.of(2026, i, j));
+                maintenance.setType(j == 1 ? "Preventivo" : "Correctivo");
+                maintenance.setCost(100.0 * j);
+                maintenance.setVehicle(vehicle);
+                entityManager.persist(maintenance);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear(); // Así Hibernate tiene que ir a la BD de verdad
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("El reporte global debe traer mantenimientos y vehículos en 1 sola consulta")
+    void findAllSorted_ShouldUseSingleStatement() {
+        List<Maintenance> all = maintenanceRepository.findAll(Sort.by(Sort.Direction.DESC, "date"));
+        all.forEach(m -> m.getVehicle().getLicensePlate());
+
+        assertThat(all).hasSize(6);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("El historial de un vehículo debe ejecutarse en 1 sola consulta")
+    void findByVehicleId_ShouldUseSingleStatement() {
+        List<Maintenance> history = maintenanceRepository.findByVehicleIdOrderByDateDesc(firstVehicle.getId());
+        history.forEach(m -> m.getVehicle().getLicensePlate());
+
+        assertThat(history).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Buscar un mantenimiento por ID no debe cargar su vehículo (LAZY) y debe poder pasarse a JSON")
+    void findById_ShouldNotLoadVehicle() {
+        Long id = maintenanceRepository.findByVehicleIdOrderByDateDesc(firstVehicle.getId()).get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        Maintenance maintenance = maintenanceRepository.findById(id).orElseThrow();
+
+        // El ID del vehículo sale del proxy, sin ir a la BD (lo usan guardar y borrar)
+        assertThat(maintenance.getVehicle().getId()).isEqualTo(firstVehicle.getId());
+        assertThat(Hibernate.isInitialized(maintenance.getVehicle())).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+
+        // Como la respuesta de POST /api/vehicles/maintenances tras una edición (sesión abierta)
+        String json = JsonMapper.builder().build().writeValueAsString(maintenance);
+        assertThat(json).contains("\"licensePlate\":\"ABC-0001\"").doesNotContain("hibernateLazyInitializer");
+    }
+
+    @Test
+    @DisplayName("Las vistas livianas no deben cargar entidades y usar 1 consulta cada una")
+    void views_ShouldUseSingleStatementAndNoEntities() {
+        List<MaintenanceView> all = maintenanceRepository.findAllViews();
+        List<MaintenanceView> history = maintenanceRepository.findViewsByVehicleId(firstVehicle.getId());
+
+        assertThat(all).hasSize(6);
+        assertThat(all.get(0).getVehicle().getLicensePlate()).isEqualTo("ABC-0003");
+        assertThat(history).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("La huella del historial debe cambiar con un mantenimiento nuevo, sin cargar entidades")
+    void findHistoryVersion_ShouldChangeWhenHistoryChanges() {
+        CollectionVersion before = maintenanceRepository.findHistoryVersion(firstVehicle.getId());
+        String etag = before.toETag();
+        assertThat(before.getCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        Maintenance nuevo = new Maintenance();
+        nuevo.setDate(LocalDate.of(2026, 5, 1));
+        nuevo.setVehicle(entityManager.find(Vehicle.class, firstVehicle.getId()));
+        entityManager.persistAndFlush(nuevo);
+
+        assertThat(maintenanceRepository.findHistoryVersion(firstVehicle.getId()).toETag()).isNotEqualTo(etag);
+        assertThat(maintenanceRepository.findHistoryVersion(firstVehicle.getId()).getCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Placa -> historial debe resolverse en 1 sola consulta, con rango de fechas y límite")
+    void findViewsByPlate_ShouldUseSingleStatement() {
+        List<MaintenanceView> latest = maintenanceRepository.findViewsByPlateAndDateBetween("ABC-0001",
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), Limit.of(1));
+        List<MaintenanceView> outOfRange = maintenanceRepository.findViewsByPlateAndDateBetween("ABC-0001",
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), Limit.unlimited());
+        List<MaintenanceView> unknown = maintenanceRepository.findViewsByPlateAndDateBetween("ZZZ-9999",
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), Limit.unlimited());
+
+        assertThat(latest).hasSize(1);
+        assertThat(latest.get(0).getDate()).isEqualTo(LocalDate.of(2026, 1, 2));
+        // Sin mantenimientos en el rango: 1 fila con solo los datos del vehículo
+        assertThat(outOfRange).hasSize(1);
+        assertThat(outOfRange.get(0).getId()).isNull();
+        assertThat(outOfRange.get(0).getVehicle().getLicensePlate()).isEqualTo("ABC-0001");
+        assertThat(unknown).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("El reporte debe filtrar por rango, tipo y vehículo, con los más recientes primero")
+    void findReportRows_ShouldFilterByRangeTypeAndVehicle() {
+        List<MaintenanceView> rango = maintenanceRepository.findReportRows(
+                LocalDate.of(2026, 1, 2), LocalDate.of(2026, 2, 28), null, null);
+        List<MaintenanceView> preventivos = maintenanceRepository.findReportRows(
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), "Preventivo", null);
+        List<MaintenanceView> unVehiculo = maintenanceRepository.findReportRows(
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), null, firstVehicle.getId());
+
+        assertThat(rango).extracting(MaintenanceView::getDate).containsExactly(
+                LocalDate.of(2026, 2, 2), LocalDate.of(2026, 2, 1), LocalDate.of(2026, 1, 2));
+        assertThat(rango.get(0).getVehicle().getLicensePlate()).isEqualTo("ABC-0002");
+        assertThat(preventivos).hasSize(3).allMatch(m -> "Preventivo".equals(m.getType()));
+        assertThat(unVehiculo).hasSize(2)
+                .allMatch(m -> m.getVehicle().getId().equals(firstVehicle.getId()));
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Los acumulados deben reconstruirse también con los meses archivados (maintenances_archive)")
+    void rollupQueries_ShouldIncludeArchivedMonths() {
+        // Diciembre 2025 ya separado de 'maintenances' (MaintenancePartitionService.detachPartitionsBefore)
+        jdbcTemplate.update("INSERT INTO maintenances_archive (id, date, type, cost, vehicle_id) VALUES "
+                + "(900001, DATE '2025-12-05', 'Preventivo', 300.0, ?), "
+                + "(900002, DATE '2025-12-20', 'Preventivo', 50.0, ?)", firstVehicle.getId(), firstVehicle.getId() + 1);
+        LocalDate from = LocalDate.of(2025, 12, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+
+        RollupTotals totals = maintenanceRepository.sumByDateRangeAndType(from, to, "Preventivo");
+        assertThat(totals.getCount()).isEqualTo(2);
+        assertThat(totals.getTotalCost()).isEqualTo(350.0);
+        assertThat(totals.getMaxCost()).isEqualTo(300.0);
+        assertThat(maintenanceRepository.findTopVehicleIds(from, to, "Preventivo")).containsExactly(firstVehicle.getId());
+        // Los meses activos siguen sumando igual
+        assertThat(maintenanceRepository.sumByDateRangeAndType(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 31),
+                "Correctivo").getCount()).isEqualTo(1);
+
+        // Al borrar el carro, sus meses archivados también cuentan como acumulados afectados
+        List<Long> ids = List.of(firstVehicle.getId());
+        assertThat(maintenanceRepository.findDatesAndTypesByVehicleIds(ids)).extracting(row -> row[0])
+                .contains(LocalDate.of(2025, 12, 5), LocalDate.of(2026, 1, 1));
+        assertThat(maintenanceRepository.deleteArchivedByVehicleIds(ids)).isEqualTo(1);
+        assertThat(maintenanceRepository.sumByDateRangeAndType(from, to, "Preventivo").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("El reporte, los historiales y la exportación deben mostrar el mes archivado que suman los acumulados")
+    void readPaths_ShouldMatchRollupsForArchivedMonth() {
+        jdbcTemplate.update("INSERT INTO maintenances_archive (id, date, type, cost, vehicle_id) VALUES "
+                + "(900001, DATE '2025-12-05', 'Preventivo', 300.0, ?), "
+                + "(900002, DATE '2025-12-20', 'Correctivo', 50.0, ?)", firstVehicle.getId(), firstVehicle.getId());
+        LocalDate from = LocalDate.of(2025, 12, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+
+        // Total del Dashboard (acumulados) vs. total del reporte del mismo mes
+        double rollupTotal = maintenanceRepository.sumByDateRangeAndType(from, to, "Preventivo").getTotalCost()
+                + maintenanceRepository.sumByDateRangeAndType(from, to, "Correctivo").getTotalCost();
+        List<MaintenanceView> report = maintenanceRepository.findReportRows(from, to, null, null);
+        assertThat(report.stream().mapToDouble(MaintenanceView::getCost).sum()).isEqualTo(rollupTotal).isEqualTo(350.0);
+        assertThat(report.get(0).getVehicle().getLicensePlate()).isEqualTo("ABC-0001");
+
+        // Exportación CSV, historial del carro, reporte global, placa -> historial y su ETag
+        try (var exported = maintenanceRepository.streamByDateBetween(from, to)) {
+            assertThat(exported.mapToDouble(MaintenanceView::getCost).sum()).isEqualTo(rollupTotal);
+        }
+        assertThat(maintenanceRepository.findViewsByVehicleId(firstVehicle.getId())).hasSize(4);
+        assertThat(maintenanceRepository.findAllViews()).hasSize(8);
+        assertThat(maintenanceRepository.findViewsByPlateAndDateBetween("ABC-0001", from, to, Limit.unlimited()))
+                .extracting(MaintenanceView::getId).containsExactly(900002L, 900001L);
+        assertThat(maintenanceRepository.findHistoryVersion(firstVehicle.getId()).getCount()).isEqualTo(4);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
@@ -0,0 +1,162 @@
+package uce.edu.GestionFlota.Repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import uce.edu.GestionFlota.GestionFlotaApplication;
+import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.MaintenanceRollup;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas de los upsert de acumulados sobre H2 (MERGE). El caso de dos transacciones
+ * simultáneas con ON CONFLICT se prueba contra PostgreSQL en PostgreSqlIntegrationTest.
+ * La reconstrucción por conjunto cuenta sus sentencias SQL con las estadísticas de Hibernate.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class MaintenanceRollupRepositoryTest {
+
+    // Configuración mínima: solo entidades y repositorios (sin controladores ni servicios).
+    @Configuration
+    @AutoConfigurationPackage(basePackageClasses = GestionFlotaApplication.class)
+    static class JpaOnlyConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MaintenanceRollupRepository rollupRepository;
+
+    @Autowired
+    private MaintenanceRepository maintenanceRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Sin el bloqueo de findByMonthKeyAndType: H2 no entiende el FOR NO KEY UPDATE del dialecto de PostgreSQL
+    private MaintenanceRollup find(String month, String type) {
+        entityManager.clear(); // Los upsert van por JDBC: leer lo que quedó en la BD
+        return rollupRepository.findAll().stream()
+                .filter(r -> r.getMonthKey().equals(month) && r.getType().equals(type))
+                .findFirst().orElseThrow();
+    }
+
+    private Long vehicleId(String plate) {
+        return entityManager.persistAndFlush(new Vehicle(plate, "HINO", "FC", 2023, 0.0, "Available")).getId();
+    }
+
+    @Test
+    @DisplayName("El primer mantenimiento crea el acumulado y los siguientes suman sobre la misma fila")
+    void addToRollup_ShouldCreateThenIncrement() {
+        Long first = vehicleId("ABC-0001");
+        Long second = vehicleId("ABC-0002");
+        rollupRepository.addToRollup("2026-03", "Correctivo", 100.0, first);
+        rollupRepository.addToRollup("2026-03", "Correctivo", 300.0, second);
+        rollupRepository.addToRollup("2026-03", "Correctivo", 50.0, null);
+
+        MaintenanceRollup rollup = find("2026-03", "Correctivo");
+        assertThat(rollup.getTotalCost()).isEqualTo(450.0);
+        assertThat(rollup.getMaintenanceCount()).isEqualTo(3L);
+        assertThat(rollup.getMaxCost()).isEqualTo(300.0);
+        assertThat(rollup.getTopVehicleId()).isEqualTo(second);
+        assertThat(rollupRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("insertIfMissing crea la fila en cero y no toca una que ya existe")
+    void insertIfMissing_ShouldNotOverwrite() {
+        rollupRepository.insertIfMissing("2026-04", "Preventivo");
+        assertThat(find("2026-04", "Preventivo").getMaintenanceCount()).isZero();
+
+        Long vehicle = vehicleId("ABC-0003");
+        rollupRepository.addToRollup("2026-04", "Preventivo", 80.0, vehicle);
+        rollupRepository.insertIfMissing("2026-04", "Preventivo");
+
+        MaintenanceRollup rollup = find("2026-04", "Preventivo");
+        assertThat(rollup.getTotalCost()).isEqualTo(80.0);
+        assertThat(rollup.getTopVehicleId()).isEqualTo(vehicle);
+    }
+
+    @Test
+    @DisplayName("La baja masiva debe recalcular los acumulados con las mismas sentencias para 2 grupos que para 24")
+    void bulkRetire_ShouldRebuildRollupsWithConstantStatements() {
+        long fewGroups = retireAndCountStatements(2024, 1);
+        long manyGroups = retireAndCountStatements(2025, 12);
+
+        assertThat(manyGroups).isEqualTo(fewGroups).isEqualTo(8);
+        // Lo que queda: solo el carro que no se dio de baja, en sus grupos Preventivo
+        entityManager.clear();
+        assertThat(rollupRepository.findAll()).hasSize(13).allSatisfy(rollup -> {
+            assertThat(rollup.getType()).isEqualTo("Preventivo");
+            assertThat(rollup.getMaintenanceCount()).isEqualTo(1L);
+            assertThat(rollup.getTotalCost()).isEqualTo(10.0);
+            assertThat(rollup.getTopVehicleId()).isNotNull();
+        });
+    }
+
+    // Igual que VehicleService.deleteVehiclesWithHistory: 10 carros con mantenimientos Preventivo y
+    // Correctivo en 'months' meses, más un carro que se queda. Devuelve cuántas sentencias SQL se usaron.
+    private long retireAndCountStatements(int year, int months) {
+        Vehicle kept = entityManager.persist(new Vehicle("KEEP-" + year, "HINO", "FC", 2023, 0.0, "Available"));
+        List<Long> retired = new ArrayList<>();
+        List<MaintenanceRollup> allGroups = new ArrayList<>();
+        for (int month = 1; month <= months; month++) {
+            allGroups.add(new MaintenanceRollup(YearMonth.of(year, month).toString(), "Preventivo"));
+            allGroups.add(new MaintenanceRollup(YearMonth.of(year, month).toString(), "Correctivo"));
+            persistMaintenance(kept, LocalDate.of(year, month, 1), "Preventivo", 10.0);
+        }
+        for (int i = 0; i < 10; i++) {
+            Vehicle vehicle = entityManager.persist(new Vehicle("RET-" + year + "-" + i, "HINO", "FC", 2023, 0.0,
+                    "Available"));
+            retired.add(vehicle.getId());
+            for (int month = 1; month <= months; month++) {
+                persistMaintenance(vehicle, LocalDate.of(year, month, 2), "Preventivo", 100.0 + i);
+                persistMaintenance(vehicle, LocalDate.of(year, month, 3), "Correctivo", 200.0 + i);
+            }
+        }
+        entityManager.flush();
+        rollupRepository.rebuildFromHistory(allGroups); // Acumulados al día antes de la baja
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<MaintenanceRollup> affected = new ArrayList<>();
+        for (Object[] row : maintenanceRepository.findDatesAndTypesByVehicleIds(retired)) {
+            affected.add(new MaintenanceRollup(YearMonth.from((LocalDate) row[0]).toString(), (String) row[1]));
+        }
+        maintenanceRepository.deleteByVehicleIds(retired);
+        maintenanceRepository.deleteArchivedByVehicleIds(retired);
+        vehicleRepository.deleteByIds(retired);
+        rollupRepository.rebuildFromHistory(affected);
+
+        assertThat(affected).hasSize(months * 2); // Un Preventivo y un Correctivo por mes
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void persistMaintenance(Vehicle vehicle, LocalDate date, String type, double cost) {
+        Maintenance maintenance = new Maintenance();
+        maintenance.setVehicle(vehicle);
+        maintenance.setDate(date);
+        maintenance.setType(type);
+        maintenance.setCost(cost);
+        entityManager.persist(maintenance);
+    }
+}
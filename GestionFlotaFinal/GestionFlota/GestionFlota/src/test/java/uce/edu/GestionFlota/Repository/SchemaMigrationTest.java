@@ -0,0 +1,105 @@
+package uce.edu.GestionFlota.Repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import uce.edu.GestionFlota.GestionFlotaApplication;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas de las Migraciones (Flyway) sobre H2 en memoria.
+ * - 'ddl-auto=validate': si una entidad no coincide con las tablas de db/migration, el contexto no arranca.
+ * - EXPLAIN: las consultas más usadas deben ir por índice, no recorrer toda la tabla.
+ * OJO: H2 crea solo un índice para cada llave foránea (PostgreSQL no), así que en H2 el
+ * historial puede ir por ese índice de vehicle_id; en PostgreSQL el único es el de V7.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+public class SchemaMigrationTest {
+
+    // Configuración mínima: solo entidades y repositorios (sin controladores ni servicios).
+    @Configuration
+    @AutoConfigurationPackage(basePackageClasses = GestionFlotaApplication.class)
+    static class JpaOnlyConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    // Plan de ejecución de la BD (en H2 dice qué índice usa, ej: /* PUBLIC.IDX_...: VEHICLE_ID = 7 */)
+    private String explain(String sql) {
+        return entityManager.getEntityManager().createNativeQuery("EXPLAIN " + sql).getSingleResult()
+                .toString().toLowerCase();
+    }
+
+    @Test
+    @DisplayName("Las migraciones deben quedar en la versión 10 y coincidir con las entidades")
+    void migrations_ShouldMatchEntities() {
+        Object version = entityManager.getEntityManager()
+                .createNativeQuery("SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" = TRUE "
+                        + "ORDER BY \"installed_rank\" DESC LIMIT 1") // MAX(version) no sirve: es texto ("9" > "10")
+                .getSingleResult();
+
+        assertThat(version).hasToString("12");
+    }
+
+    @Test
+    @DisplayName("La fecha del mantenimiento debe ser obligatoria (decide la partición en PostgreSQL)")
+    void maintenanceDate_ShouldBeNotNull() {
+        Object nullable = entityManager.getEntityManager().createNativeQuery(
+                "SELECT IS_NULLABLE FROM INFORMATION_SCHEMA.COLUMNS "
+                        + "WHERE TABLE_NAME = 'MAINTENANCES' AND COLUMN_NAME = 'DATE'")
+                .getSingleResult();
+
+        assertThat(nullable).hasToString("NO");
+    }
+
+    @Test
+    @DisplayName("Debe existir el índice (vehicle_id, date DESC) para el historial")
+    void compositeIndex_ShouldExistWithDateDescending() {
+        List<?> columns = entityManager.getEntityManager().createNativeQuery(
+                "SELECT c.COLUMN_NAME, c.ORDERING_SPECIFICATION FROM INFORMATION_SCHEMA.INDEX_COLUMNS c "
+                        + "WHERE c.INDEX_NAME = 'IDX_MAINTENANCES_VEHICLE_DATE' ORDER BY c.ORDINAL_POSITION")
+                .getResultList();
+
+        assertThat(columns).extracting(row -> ((Object[]) row)[0] + " " + ((Object[]) row)[1])
+                .containsExactly("VEHICLE_ID ASC", "DATE DESC");
+    }
+
+    @Test
+    @DisplayName("El historial y el borrado por vehículo deben buscar por índice, no recorrer la tabla")
+    void historyByVehicle_ShouldUseIndexOnVehicleId() {
+        // Comentario del plan en H2: /* public.<índice>: vehicle_id = ... */  (sin índice diría 'tableScan')
+        assertThat(explain("SELECT * FROM maintenances WHERE vehicle_id = 7 ORDER BY date DESC"))
+                .containsPattern(": vehicle_id = ").doesNotContain("tablescan");
+        assertThat(explain("DELETE FROM maintenances WHERE vehicle_id = 7"))
+                .containsPattern(": vehicle_id = ").doesNotContain("tablescan");
+    }
+
+    @Test
+    @DisplayName("Los filtros y conteos del Inventario deben usar el índice (status, brand)")
+    void inventoryFacets_ShouldUseStatusBrandIndex() {
+        assertThat(explain("SELECT status, brand, COUNT(*) FROM vehicles GROUP BY status, brand"))
+                .contains("idx_vehicles_status_brand").contains("group sorted");
+        assertThat(explain("SELECT * FROM vehicles WHERE status = 'Available' AND brand = 'HINO'"))
+                .contains("idx_vehicles_status_brand").doesNotContain("tablescan");
+    }
+
+    @Test
+    @DisplayName("El reporte por fechas (y por tipo) debe usar el índice del reporte")
+    void reportByDate_ShouldUseReportIndex() {
+        assertThat(explain("SELECT * FROM maintenances WHERE date BETWEEN DATE '2026-01-01' AND DATE '2026-01-31'"))
+                .contains("idx_maintenances_report");
+        assertThat(explain("SELECT * FROM maintenances WHERE date BETWEEN DATE '2026-01-01' AND DATE '2026-01-31' "
+                + "AND type = 'Preventivo'"))
+                .contains("idx_maintenances_report").containsPattern("type = 'preventivo'");
+        assertThat(explain("SELECT * FROM maintenances ORDER BY date DESC"))
+                .contains("idx_maintenances_report").contains("index sorted");
+    }
+}
@@ -0,0 +1,345 @@
+package uce.edu.GestionFlota.Repository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uce.edu.GestionFlota.Dto.AlertCount;
+import uce.edu.GestionFlota.Dto.FacetCount;
+import uce.edu.GestionFlota.Dto.MaintenanceSummary;
+import uce.edu.GestionFlota.Dto.VehicleAlert;
+import uce.edu.GestionFlota.Dto.VehicleFilter;
+import uce.edu.GestionFlota.GestionFlotaApplication;
+import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Pruebas de Integración para VehicleRepository (BD H2 en memoria).
+ */
+@DataJpaTest
+public class VehicleRepositoryTest {
+
+    // Configuración mínima: solo entidades y repositorios (sin controladores ni servicios).
+    @Configuration
+    @AutoConfigurationPackage(basePackageClasses = GestionFlotaApplication.class)
+    static class JpaOnlyConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MaintenanceRepository maintenanceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Vehicle persistVehicle(String plate, double mileage) {
+        Vehicle vehicle = new Vehicle(plate, "HINO", "FC", 2023, mileage, "Available");
+        vehicle.setLastMaintenanceKm(10000.0); // Próximo mantenimiento a los 15000 km
+        return entityManager.persist(vehicle);
+    }
+
+    @Test
+    @DisplayName("Las alertas deben traer solo los vehículos AMARILLO y ROJO, los más urgentes primero y con límite")
+    void findAlerts_ShouldReturnOnlyDueOrNearDue() {
+        persistVehicle("VER-0001", 12000.0);  // 40% -> VERDE
+        persistVehicle("AMA-0001", 13500.0);  // 70% -> AMARILLO
+        persistVehicle("ROJ-0001", 16000.0);  // 120% -> ROJO
+        persistVehicle("ROJ-0002", 15000.0);  // 100% -> ROJO
+        entityManager.flush();
+        entityManager.clear();
+
+        List<VehicleAlert> alerts = vehicleRepository.findAlerts(Vehicle.WARNING_USAGE, Limit.of(10));
+        List<VehicleAlert> firstTwo = vehicleRepository.findAlerts(Vehicle.WARNING_USAGE, Limit.of(2));
+
+        assertThat(alerts).extracting(VehicleAlert::getLicensePlate)
+                .containsExactly("ROJ-0001", "ROJ-0002", "AMA-0001");
+        assertThat(alerts).extracting(VehicleAlert::getMaintenanceLevel).containsExactly("ROJO", "ROJO", "AMARILLO");
+        assertThat(alerts.get(0).getNextMaintenanceKm()).isEqualTo(15000.0);
+        assertThat(firstTwo).extracting(VehicleAlert::getLicensePlate).containsExactly("ROJ-0001", "ROJ-0002");
+    }
+
+    @Test
+    @DisplayName("El conteo del semáforo debe salir de una sola consulta agrupada")
+    void countByMaintenanceLevel_ShouldGroupInOneQuery() {
+        persistVehicle("VER-0001", 12000.0);  // 40% -> VERDE
+        persistVehicle("VER-0002", 10000.0);  // 0% -> VERDE
+        persistVehicle("AMA-0001", 13500.0);  // 70% -> AMARILLO
+        persistVehicle("ROJ-0001", 16000.0);  // 120% -> ROJO
+        entityManager.flush();
+        entityManager.clear();
+
+        List<AlertCount> counts = vehicleRepository.countByMaintenanceLevel();
+
+        assertThat(counts).extracting(AlertCount::getLevel, AlertCount::getCount)
+                .containsExactlyInAnyOrder(tuple("ROJO", 1L), tuple("AMARILLO", 1L), tuple("VERDE", 2L));
+    }
+
+    @Test
+    @DisplayName("El UPDATE masivo debe calcular el semáforo de los vehículos antiguos")
+    void fillMissingMaintenanceSchedule_ShouldComputeNextKmAndUsage() {
+        Vehicle old = persistVehicle("OLD-0001", 14000.0);
+        entityManager.flush();
+        // Simulamos un registro anterior a estas columnas
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Vehicle v SET v.nextMaintenanceKm = NULL, v.maintenanceUsage = NULL")
+                .executeUpdate();
+        entityManager.clear();
+
+        int updated = vehicleRepository.fillMissingMaintenanceSchedule(LocalDateTime.now());
+        Vehicle reloaded = vehicleRepository.findById(old.getId()).orElseThrow();
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(reloaded.getNextMaintenanceKm()).isEqualTo(15000.0);
+        assertThat(reloaded.getMaintenanceUsage()).isEqualTo(80.0);
+    }
+
+    @Test
+    @DisplayName("El ETag de la flota debe cambiar al crear o editar un vehículo")
+    void findFleetVersion_ShouldChangeOnInsertAndUpdate() {
+        Vehicle vehicle = persistVehicle("ETG-0001", 12000.0);
+        entityManager.flush();
+        String afterInsert = vehicleRepository.findFleetVersion().toETag();
+
+        vehicle.setBrand("ISUZU");
+        entityManager.flush(); // UPDATE: @UpdateTimestamp pone una hora nueva
+        String afterUpdate = vehicleRepository.findFleetVersion().toETag();
+
+        assertThat(vehicleRepository.findFleetVersion().getCount()).isEqualTo(1);
+        assertThat(afterUpdate).isNotEqualTo(afterInsert);
+        assertThat(vehicleRepository.findFleetVersion().toETag()).isEqualTo(afterUpdate); // Sin cambios = mismo ETag
+    }
+
+    @Test
+    @DisplayName("El Inventario debe filtrar, ordenar y paginar en la BD y contar por estado y marca")
+    void findByFilterAndFacets_ShouldFilterSortAndGroup() {
+        entityManager.persist(new Vehicle("INV-0001", "HINO", "FC", 2018, 90000.0, "Available"));
+        entityManager.persist(new Vehicle("INV-0002", "HINO", "FC", 2022, 30000.0, "Available"));
+        entityManager.persist(new Vehicle("INV-0003", "HINO", "FC", 2023, 10000.0, "Maintenance"));
+        entityManager.persist(new Vehicle("INV-0004", "ISUZU", "NPR", 2021, 50000.0, "Available"));
+        entityManager.persist(new Vehicle("INV-0005", "ISUZU", "NPR", 2010, 250000.0, "Available"));
+        entityManager.flush();
+        entityManager.clear();
+
+        VehicleFilter filter = new VehicleFilter();
+        filter.setStatus("Available");
+        filter.setYearFrom(2015);
+        filter.setMaxMileage(100000.0);
+        List<Vehicle> firstPage = vehicleRepository.findByFilter(filter, Sort.by(Sort.Direction.DESC, "mileage"), 0, 2);
+        List<Vehicle> secondPage = vehicleRepository.findByFilter(filter, Sort.by(Sort.Direction.DESC, "mileage"), 2, 2);
+        List<FacetCount> facets = vehicleRepository.countByStatusAndBrand(filter.withoutFacets());
+
+        assertThat(firstPage).extracting(Vehicle::getLicensePlate).containsExactly("INV-0001", "INV-0004");
+        assertThat(secondPage).extracting(Vehicle::getLicensePlate).containsExactly("INV-0002");
+        // Sin el filtro de estado: el 2010 (por año) y nada más queda fuera
+        assertThat(facets).extracting(f -> f.getStatus() + "/" + f.getBrand() + "=" + f.getCount())
+                .containsExactlyInAnyOrder("Available/HINO=2", "Maintenance/HINO=1", "Available/ISUZU=1");
+    }
+
+    @Test
+    @DisplayName("El filtro '_none' debe traer y contar los vehículos sin estado")
+    void findByFilter_ShouldMatchNullStatus_WhenFilterIsNone() {
+        entityManager.persist(new Vehicle("NUL-0001", "HINO", "FC", 2018, 90000.0, null));
+        entityManager.persist(new Vehicle("NUL-0002", "HINO", "FC", 2022, 30000.0, "Available"));
+        entityManager.flush();
+        entityManager.clear();
+
+        VehicleFilter filter = new VehicleFilter();
+        filter.setStatus(VehicleFilter.NONE);
+
+        assertThat(vehicleRepository.findByFilter(filter, Sort.by("licensePlate"), 0, 10))
+                .extracting(Vehicle::getLicensePlate).containsExactly("NUL-0001");
+        assertThat(vehicleRepository.countByStatusAndBrand(filter))
+                .extracting(f -> f.getStatus() + "/" + f.getBrand() + "=" + f.getCount())
+                .containsExactly("null/HINO=1");
+    }
+
+    @Test
+    @DisplayName("La telemetría debe subir el km y el % de uso, pero nunca bajar el odómetro")
+    void updateMileages_ShouldOnlyIncreaseMileage() {
+        Vehicle first = persistVehicle("TEL-0001", 12000.0);
+        Vehicle second = persistVehicle("TEL-0002", 14000.0);
+        entityManager.flush();
+        entityManager.clear();
+
+        int updated = vehicleRepository.updateMileages(Map.of(first.getId(), 15500.0, second.getId(), 13000.0));
+
+        assertThat(updated).isEqualTo(1);
+        Vehicle raised = vehicleRepository.findById(first.getId()).orElseThrow();
+        assertThat(raised.getMileage()).isEqualTo(15500.0);
+        assertThat(raised.getMaintenanceUsage()).isEqualTo(110.0);
+        assertThat(raised.getMaintenanceLevel()).isEqualTo("ROJO");
+        assertThat(vehicleRepository.findById(second.getId()).orElseThrow().getMileage()).isEqualTo(14000.0);
+    }
+
+    @Test
+    @DisplayName("La baja masiva debe borrar vehículos e historial con un DELETE por tabla")
+    void deleteByIds_ShouldRemoveVehiclesAndHistoryBySet() {
+        Vehicle first = persistVehicle("BAJ-0001", 12000.0);
+        Vehicle second = persistVehicle("BAJ-0002", 12000.0);
+        Vehicle kept = persistVehicle("BAJ-0003", 12000.0);
+        for (Vehicle vehicle : List.of(first, first, second, kept)) {
+            Maintenance maintenance = new Maintenance();
+            maintenance.setVehicle(vehicle);
+            maintenance.setType("Preventivo");
+            maintenance.setCost(100.0);
+            maintenance.setDate(LocalDate.of(2026, 3, 1));
+            entityManager.persist(maintenance);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        List<Long> retired = List.of(first.getId(), second.getId(), -1L); // -1 no existe
+
+        assertThat(maintenanceRepository.deleteByVehicleIds(retired)).isEqualTo(3);
+        assertThat(vehicleRepository.deleteByIds(retired)).isEqualTo(2);
+        assertThat(vehicleRepository.findAll()).extracting(Vehicle::getLicensePlate).containsExactly("BAJ-0003");
+        assertThat(maintenanceRepository.findByVehicleIdOrderByDateDesc(kept.getId())).hasSize(1);
+    }
+
+    // Sin la transacción de la prueba: la cache de segundo nivel guarda lo ya confirmado (commit)
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("La cache de segundo nivel debe servir el vehículo sin SQL y soltar lo que cambia por JDBC")
+    void secondLevelCache_ShouldServeRepeatedReadsAndEvictJdbcUpdates() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Vehicle vehicle = vehicleRepository.save(new Vehicle("CAC-0001", "HINO", "FC", 2023, 12000.0, "Available"));
+        try {
+            // Por ID (como el @ManyToOne de cada mantenimiento): sale de la cache de segundo nivel
+            stats.clear();
+            assertThat(vehicleRepository.findById(vehicle.getId()).orElseThrow().getMileage()).isEqualTo(12000.0);
+            assertThat(stats.getSecondLevelCacheHitCount()).isEqualTo(1);
+
+            // La telemetría escribe por JDBC: la siguiente lectura debe ver el km nuevo
+            vehicleRepository.updateMileages(Map.of(vehicle.getId(), 13000.0));
+            assertThat(vehicleRepository.findById(vehicle.getId()).orElseThrow().getMileage()).isEqualTo(13000.0);
+
+            // Al borrar, la placa deja de existir
+            vehicleRepository.deleteById(vehicle.getId());
+            assertThat(vehicleRepository.findByLicensePlate("CAC-0001")).isEmpty();
+        } finally {
+            vehicleRepository.findByLicensePlate("CAC-0001").ifPresent(vehicleRepository::delete);
+        }
+    }
+
+    // Sin la transacción de la prueba: el vehículo debe estar confirmado (y en la cache) antes
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Dentro de la misma transacción, la lectura después de un UPDATE por JDBC no debe salir de la cache")
+    void addToMaintenanceSummary_ShouldEvictBeforeTheJdbcUpdate() {
+        Vehicle vehicle = vehicleRepository.save(new Vehicle("CAC-0002", "HINO", "FC", 2023, 12000.0, "Available"));
+        Cache cache = entityManagerFactory.getCache();
+        try {
+            vehicleRepository.findById(vehicle.getId()).orElseThrow();
+            assertThat(cache.contains(Vehicle.class, vehicle.getId())).isTrue();
+
+            Integer count = new TransactionTemplate(transactionManager).execute(status -> {
+                vehicleRepository.addToMaintenanceSummary(vehicle.getId(), 1, 0, 50.0, LocalDate.of(2026, 3, 1));
+                assertThat(cache.contains(Vehicle.class, vehicle.getId())).isFalse(); // Sin esperar al commit
+                return vehicleRepository.findById(vehicle.getId()).orElseThrow().getMaintenanceCount();
+            });
+
+            assertThat(count).isEqualTo(1); // La fila nueva de la BD, no la vieja de la cache
+        } finally {
+            vehicleRepository.deleteById(vehicle.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("El resumen de mantenimientos debe sumarse, recalcularse y no pisarse al editar el vehículo")
+    void maintenanceSummary_ShouldTrackHistory() {
+        Vehicle vehicle = persistVehicle("RES-0001", 12000.0);
+        entityManager.flush();
+        vehicleRepository.addToMaintenanceSummary(vehicle.getId(), 1, 0, 50.0, LocalDate.of(2026, 3, 1));
+        vehicleRepository.addToMaintenanceSummary(vehicle.getId(), 0, 1, 120.0, LocalDate.of(2026, 1, 5));
+        entityManager.clear();
+
+        MaintenanceSummary summary = vehicleRepository.findMaintenanceSummary(vehicle.getId()).orElseThrow();
+        assertThat(summary.getTotal()).isEqualTo(2);
+        assertThat(summary.getPreventive()).isEqualTo(1);
+        assertThat(summary.getCorrective()).isEqualTo(1);
+        assertThat(summary.getTotalCost()).isEqualTo(170.0);
+        assertThat(summary.getLastMaintenanceDate()).isEqualTo(LocalDate.of(2026, 3, 1)); // La más reciente
+
+        // Guardar el vehículo con contadores viejos (como hace el Frontend) no debe pisar el resumen
+        Vehicle stale = vehicleRepository.findById(vehicle.getId()).orElseThrow();
+        stale.setMaintenanceCount(0);
+        stale.setBrand("ISUZU");
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(vehicleRepository.findMaintenanceSummary(vehicle.getId()).orElseThrow().getTotal()).isEqualTo(2);
+
+        // Recalcular desde el historial real (aquí: 1 solo mantenimiento guardado)
+        Maintenance maintenance = new Maintenance();
+        maintenance.setVehicle(entityManager.find(Vehicle.class, vehicle.getId()));
+        maintenance.setType("Preventivo");
+        maintenance.setCost(80.0);
+        maintenance.setDate(LocalDate.of(2026, 2, 10));
+        entityManager.persist(maintenance);
+        vehicleRepository.refreshMaintenanceSummary(vehicle.getId());
+        entityManager.clear();
+
+        summary = vehicleRepository.findMaintenanceSummary(vehicle.getId()).orElseThrow();
+        assertThat(summary.getTotal()).isEqualTo(1);
+        assertThat(summary.getCorrective()).isZero();
+        assertThat(summary.getTotalCost()).isEqualTo(80.0);
+        assertThat(summary.getLastMaintenanceDate()).isEqualTo(LocalDate.of(2026, 2, 10));
+    }
+
+    @Test
+    @DisplayName("Recalcular el resumen debe contar también los meses archivados (maintenances_archive)")
+    void refreshMaintenanceSummary_ShouldIncludeArchivedMonths() {
+        Vehicle vehicle = persistVehicle("ARC-0001", 12000.0);
+        Maintenance maintenance = new Maintenance();
+        maintenance.setVehicle(vehicle);
+        maintenance.setType("Preventivo");
+        maintenance.setCost(80.0);
+        maintenance.setDate(LocalDate.of(2026, 2, 10));
+        entityManager.persist(maintenance);
+        entityManager.flush();
+        // Un mes viejo ya separado de 'maintenances' (MaintenancePartitionService.detachPartitionsBefore)
+        jdbcTemplate.update("INSERT INTO maintenances_archive (id, date, type, cost, vehicle_id) "
+                + "VALUES (900001, DATE '2024-01-15', 'Correctivo', 500.0, ?)", vehicle.getId());
+
+        vehicleRepository.refreshMaintenanceSummary(vehicle.getId());
+        entityManager.clear();
+
+        MaintenanceSummary summary = vehicleRepository.findMaintenanceSummary(vehicle.getId()).orElseThrow();
+        assertThat(summary.getTotal()).isEqualTo(2);
+        assertThat(summary.getPreventive()).isEqualTo(1);
+        assertThat(summary.getCorrective()).isEqualTo(1);
+        assertThat(summary.getTotalCost()).isEqualTo(580.0);
+        assertThat(summary.getLastMaintenanceDate()).isEqualTo(LocalDate.of(2026, 2, 10));
+    }
+}
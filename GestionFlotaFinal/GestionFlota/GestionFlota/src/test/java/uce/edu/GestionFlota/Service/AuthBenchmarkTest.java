@@ -0,0 +1,83 @@
+package uce.edu.GestionFlota.Service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import uce.edu.GestionFlota.Model.User;
+import uce.edu.GestionFlota.Repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark de Login y Validación de Tokens (operaciones por segundo, 1 hilo).
+ * NO corre con 'mvn test' normal; se ejecuta a mano:
+ *   mvn test -Dtest=AuthBenchmarkTest -Dbenchmark=true
+ * La BD está simulada, así que mide solo el costo de CPU (BCrypt / HMAC / caché).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class AuthBenchmarkTest {
+
+    private static final long WARMUP_NANOS = 1_000_000_000L;  // 1 s de calentamiento (JIT)
+    private static final long MEASURE_NANOS = 3_000_000_000L; // 3 s de medición
+
+    @Test
+    @DisplayName("Benchmark: login (BCrypt) vs token sin caché (HMAC) vs token en caché")
+    void benchmarkLoginAndTokenVerification() {
+        User admin = new User("admin", new BCryptPasswordEncoder().encode("1234"), "ADMIN");
+        admin.setId(1L);
+        UserRepository repository = mock(UserRepository.class);
+        when(repository.findByUsername("admin")).thenReturn(admin);
+        UserService userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", repository);
+
+        TokenService tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "secret", "clave-benchmark");
+        tokenService.init();
+
+        // Más tokens distintos que el tamaño de la caché: cada validación recalcula la firma
+        List<String> freshTokens = new ArrayList<>();
+        for (int i = 0; i < TokenService.PRINCIPAL_CACHE_SIZE * 2; i++) {
+            User user = new User("user" + i, "x", "USER");
+            user.setId((long) i);
+            freshTokens.add(tokenService.issueToken(user));
+        }
+        String hotToken = tokenService.issueToken(admin);
+
+        double login = measure(i -> userService.validateCredentials("admin", "1234") != null);
+        double uncached = measure(i -> tokenService.verify(freshTokens.get(i % freshTokens.size())).isPresent());
+        double cached = measure(i -> tokenService.verify(hotToken).isPresent());
+
+        System.out.printf("%n[BENCHMARK] login (BCrypt):           %,12.0f ops/s%n", login);
+        System.out.printf("[BENCHMARK] token sin caché (HMAC):   %,12.0f ops/s%n", uncached);
+        System.out.printf("[BENCHMARK] token en caché:           %,12.0f ops/s%n", cached);
+
+        assertThat(cached).isGreaterThan(login);
+    }
+
+    // Repite la operación durante MEASURE_NANOS (después de calentar) y devuelve ops/s
+    private static double measure(IntPredicate operation) {
+        run(operation, WARMUP_NANOS);
+        long start = System.nanoTime();
+        long count = run(operation, MEASURE_NANOS);
+        return count / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static long run(IntPredicate operation, long durationNanos) {
+        long end = System.nanoTime() + durationNanos;
+        int i = 0;
+        while (System.nanoTime() < end) {
+            if (!operation.test(i++)) {
+                throw new IllegalStateException("La operación falló en la iteración " + i);
+            }
+        }
+        return i;
+    }
+}
@@ -0,0 +1,111 @@
+package uce.edu.GestionFlota.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uce.edu.GestionFlota.Dto.FleetEvent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * Pruebas Unitarias para FleetEventService (reparto de eventos SSE).
+ */
+@ExtendWith(MockitoExtension.class)
+public class FleetEventServiceTest {
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private FleetEventService fleetEventService;
+
+    @AfterEach
+    void tearDown() {
+        fleetEventService.shutdown();
+    }
+
+    // Cliente simulado: cuenta lo que recibe y puede quedarse "colgado" en el envío
+    private static class CountingEmitter extends SseEmitter {
+        private final AtomicInteger received = new AtomicInteger();
+        private final CountDownLatch allReceived;
+        private final CountDownLatch release;
+
+        CountingEmitter(int expected, CountDownLatch release) {
+            this.allReceived = new CountDownLatch(expected);
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                release.await(); // Un cliente lento se queda aquí
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.incrementAndGet();
+            allReceived.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Un cliente lento no debe frenar a los demás y debe ser desconectado")
+    void publish_ShouldNotLetSlowClientBlockOthers() throws Exception {
+        int events = FleetEventService.CLIENT_QUEUE_SIZE + 10;
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        CountingEmitter fast = new CountingEmitter(events, new CountDownLatch(0));
+        CountingEmitter slow = new CountingEmitter(events, neverReleased);
+        fleetEventService.subscribe(fast);
+        fleetEventService.subscribe(slow);
+
+        for (long i = 0; i < events; i++) {
+            fleetEventService.publish(new FleetEvent(FleetEvent.VEHICLE_SAVED, i, null));
+        }
+
+        assertThat(fast.allReceived.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fast.received.get()).isEqualTo(events);
+        assertThat(fleetEventService.getClientCount()).isEqualTo(1); // El lento quedó fuera
+        assertThat(meterRegistry.counter("fleet.events.dropped.clients").count()).isEqualTo(1);
+        neverReleased.countDown();
+    }
+
+    @Test
+    @DisplayName("Clientes con la escritura trabada no deben dejar sin eventos a los demás y se desconectan por tiempo")
+    void publish_ShouldDropClientsWhoseWriteStalls() throws Exception {
+        ReflectionTestUtils.setField(fleetEventService, "sendTimeoutMs", 200L);
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        // Más clientes trabados que hilos tenía el envío compartido de antes (2)
+        CountingEmitter stalled1 = new CountingEmitter(1, neverReleased);
+        CountingEmitter stalled2 = new CountingEmitter(1, neverReleased);
+        CountingEmitter stalled3 = new CountingEmitter(1, neverReleased);
+        CountingEmitter fast = new CountingEmitter(3, new CountDownLatch(0));
+        fleetEventService.subscribe(stalled1);
+        fleetEventService.subscribe(stalled2);
+        fleetEventService.subscribe(stalled3);
+        fleetEventService.subscribe(fast);
+
+        for (long i = 0; i < 3; i++) {
+            fleetEventService.publish(new FleetEvent(FleetEvent.VEHICLE_SAVED, i, null));
+        }
+
+        assertThat(fast.allReceived.await(5, TimeUnit.SECONDS)).isTrue();
+        // El watchdog interrumpe las escrituras trabadas y suelta a esos clientes
+        long deadline = System.currentTimeMillis() + 5000;
+        while (fleetEventService.getClientCount() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(fleetEventService.getClientCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("fleet.events.dropped.clients").count()).isEqualTo(3);
+    }
+}
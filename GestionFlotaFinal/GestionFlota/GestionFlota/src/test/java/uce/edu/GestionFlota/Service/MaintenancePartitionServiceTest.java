@@ -0,0 +1,67 @@
+package uce.edu.GestionFlota.Service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import uce.edu.GestionFlota.Repository.MaintenanceRepository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas Unitarias para MaintenancePartitionService (particiones mensuales).
+ */
+@ExtendWith(MockitoExtension.class)
+public class MaintenancePartitionServiceTest {
+
+    @Mock
+    private MaintenanceRepository repository;
+
+    @InjectMocks
+    private MaintenancePartitionService partitionService;
+
+    @Test
+    @DisplayName("Debe crear por adelantado las particiones que falten, del mes actual en adelante")
+    void maintainPartitions_ShouldCreateUpcomingMonths() {
+        YearMonth current = YearMonth.now();
+        when(repository.supportsPartitions()).thenReturn(true);
+        when(repository.createMonthlyPartition(any(LocalDate.class))).thenReturn(null); // Ya existen
+        when(repository.createMonthlyPartition(current.plusMonths(3).atDay(1))).thenReturn("maintenances_nuevo");
+
+        List<String> created = partitionService.maintainPartitions();
+
+        assertThat(created).containsExactly("maintenances_nuevo");
+        for (int i = 0; i <= 3; i++) {
+            verify(repository).createMonthlyPartition(current.plusMonths(i).atDay(1));
+        }
+        verify(repository, never()).detachPartitionsBefore(any()); // Sin retención configurada
+    }
+
+    @Test
+    @DisplayName("Con retención debe separar los meses viejos; sin particiones (H2) no debe hacer nada")
+    void maintainPartitions_ShouldDetachOldMonthsOnlyWhenPartitioned() {
+        ReflectionTestUtils.setField(partitionService, "retentionMonths", 24);
+        when(repository.supportsPartitions()).thenReturn(true);
+        when(repository.detachPartitionsBefore(YearMonth.now().minusMonths(24).atDay(1)))
+                .thenReturn(List.of("maintenances_2020_01"));
+
+        partitionService.maintainPartitions();
+        verify(repository).detachPartitionsBefore(YearMonth.now().minusMonths(24).atDay(1));
+
+        reset(repository);
+        when(repository.supportsPartitions()).thenReturn(false);
+        assertThat(partitionService.maintainPartitions()).isEmpty();
+        assertThat(partitionService.detachPartitionsBefore(YearMonth.now())).isEmpty();
+        verify(repository, never()).createMonthlyPartition(any());
+        verify(repository, never()).detachPartitionsBefore(any());
+    }
+}
@@ -7,16 +7,31 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import uce.edu.GestionFlota.Dto.FleetEvent;
+import uce.edu.GestionFlota.Dto.MaintenanceChange;
+import uce.edu.GestionFlota.Dto.MaintenanceView;
 import uce.edu.GestionFlota.Model.Maintenance;
+import uce.edu.GestionFlota.Model.MaintenanceRollup;
+import uce.edu.GestionFlota.Model.Vehicle;
 import uce.edu.GestionFlota.Repository.MaintenanceRepository;
+import uce.edu.GestionFlota.Repository.MaintenanceRollupRepository;
+import uce.edu.GestionFlota.Repository.VehicleRepository;
 
+import java.io.StringWriter;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import uce.edu.GestionFlota.Dto.CostSummary;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -29,6 +44,15 @@ public class MaintenanceServiceTest {
     @Mock
     private MaintenanceRepository maintenanceRepository;
 
+    @Mock
+    private MaintenanceRollupRepository rollupRepository;
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private MaintenanceService maintenanceService;
 
@@ -58,6 +82,9 @@ public class MaintenanceServiceTest {
         assertThat(saved).isNotNull();
         assertThat(saved.getDescription()).isEqualTo("Cambio de Aceite");
         verify(maintenanceRepository, times(1)).save(maintenance);
+        // Aviso en vivo (SSE): solo IDs y los campos que mueven los totales, no la entidad
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof FleetEvent
+                && ((FleetEvent) e).getData() instanceof MaintenanceChange change && change.getCost() == 50.0));
     }
 
     @Test
@@ -92,4 +119,155 @@ public class MaintenanceServiceTest {
         assertThat(all).hasSize(1);
         verify(maintenanceRepository, times(1)).findAll(any(Sort.class));
     }
+
+    @Test
+    @DisplayName("Debe sumar el mantenimiento nuevo al acumulado de su mes y tipo")
+    void saveMaintenance_ShouldUpdateRollupIncrementally() {
+        // Arrange
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(7L);
+        Maintenance nuevo = new Maintenance();
+        nuevo.setType("Correctivo");
+        nuevo.setCost(300.0);
+        nuevo.setDate(LocalDate.of(2026, 3, 15));
+        nuevo.setVehicle(vehicle);
+
+        when(maintenanceRepository.save(nuevo)).thenReturn(nuevo);
+
+        // Act
+        maintenanceService.saveMaintenance(nuevo);
+
+        // Assert: un solo upsert en la BD, sin leer ni bloquear el acumulado antes
+        verify(rollupRepository, times(1)).addToRollup("2026-03", "Correctivo", 300.0, 7L);
+        verify(rollupRepository, never()).findByMonthKeyAndType(any(), any());
+        // Y el resumen del vehículo: +1 correctivo, sin recorrer su historial
+        verify(vehicleRepository).addToMaintenanceSummary(7L, 0, 1, 300.0, LocalDate.of(2026, 3, 15));
+        verify(vehicleRepository, never()).refreshMaintenanceSummary(any());
+    }
+
+    @Test
+    @DisplayName("Al borrar un mantenimiento debe recalcular su acumulado y el resumen del vehículo")
+    void deleteMaintenance_ShouldRefreshRollupAndSummary() {
+        // Arrange
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(7L);
+        maintenance.setVehicle(vehicle);
+        maintenance.setDate(LocalDate.of(2026, 3, 15));
+        when(maintenanceRepository.findById(1L)).thenReturn(Optional.of(maintenance));
+
+        // Act
+        boolean deleted = maintenanceService.deleteMaintenance(1L);
+
+        // Assert
+        assertThat(deleted).isTrue();
+        verify(maintenanceRepository).delete(maintenance);
+        verify(rollupRepository).insertIfMissing("2026-03", "Preventivo");
+        verify(maintenanceRepository).sumByDateRangeAndType(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31),
+                "Preventivo");
+        verify(vehicleRepository).refreshMaintenanceSummary(7L);
+        assertThat(maintenanceService.deleteMaintenance(99L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Debe agrupar los acumulados por mes y por tipo")
+    void getCostAnalytics_ShouldMergeRollupsByMonthAndType() {
+        // Arrange
+        MaintenanceRollup preventivo = new MaintenanceRollup("2026-03", "Preventivo");
+        preventivo.add(50.0, 1L);
+        MaintenanceRollup correctivo = new MaintenanceRollup("2026-03", "Correctivo");
+        correctivo.add(300.0, 2L);
+        when(rollupRepository.findAllWithTopVehiclePlate()).thenReturn(List.of(
+                new Object[] { preventivo, "AAA-111" },
+                new Object[] { correctivo, "BBB-222" }));
+
+        // Act
+        Map<String, List<CostSummary>> analytics = maintenanceService.getCostAnalytics();
+
+        // Assert
+        assertThat(analytics.get("byMonth")).hasSize(1);
+        CostSummary marzo = analytics.get("byMonth").get(0);
+        assertThat(marzo.getTotalCost()).isEqualTo(350.0);
+        assertThat(marzo.getCount()).isEqualTo(2L);
+        assertThat(marzo.getTopVehiclePlate()).isEqualTo("BBB-222");
+        assertThat(analytics.get("byType")).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Debe exportar el mes en CSV con la fila TOTAL GENERAL")
+    void exportMaintenancesCsv_ShouldWriteRowsAndTotal() throws Exception {
+        // Arrange
+        MaintenanceView m1 = new MaintenanceView(1L, LocalDate.of(2026, 3, 10), "Preventivo", 50.0,
+                "Cambio de Aceite", null, 1L, "ABC-1234", "HINO", "FC");
+        MaintenanceView m2 = new MaintenanceView(2L, LocalDate.of(2026, 3, 5), "Correctivo", 120.5,
+                "Frenos, discos y \"pastillas\"", null, null, null, null, null);
+        when(maintenanceRepository.streamByDateBetween(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31)))
+                .thenReturn(Stream.of(m1, m2));
+        StringWriter out = new StringWriter();
+
+        // Act
+        maintenanceService.exportMaintenancesCsv(YearMonth.of(2026, 3), null, out);
+
+        // Assert
+        String[] lines = out.toString().replace("\uFEFF", "").split("\r\n");
+        assertThat(lines).containsExactly(
+                "Fecha,Placa,Tipo,Kilometraje,Detalle,Costo",
+                "2026-03-10,ABC-1234,Preventivo,,Cambio de Aceite,50",
+                "2026-03-05,N/A,Correctivo,,\"Frenos, discos y \"\"pastillas\"\"\",120.5",
+                "TOTAL GENERAL,,,,,170.5");
+    }
+
+    @Test
+    @DisplayName("La exportación CSV no debe dejar fórmulas ejecutables en los textos de los usuarios")
+    void exportMaintenancesCsv_ShouldNeutralizeFormulas() throws Exception {
+        // Arrange
+        MaintenanceView m1 = new MaintenanceView(1L, LocalDate.of(2026, 3, 10), "+Preventivo", -20.0,
+                "=HYPERLINK(\"http://x\",\"ver\")", null, 1L, "@SUM(A1)", "HINO", "FC");
+        MaintenanceView m2 = new MaintenanceView(2L, LocalDate.of(2026, 3, 5), "Correctivo", 50.0,
+                "-2+3", null, 2L, "ABC-1234", "HINO", "FC");
+        when(maintenanceRepository.streamByDateBetween(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31)))
+                .thenReturn(Stream.of(m1, m2));
+        StringWriter out = new StringWriter();
+
+        // Act
+        maintenanceService.exportMaintenancesCsv(YearMonth.of(2026, 3), null, out);
+
+        // Assert: textos con ' adelante; los números (aunque sean negativos) quedan como números
+        String[] lines = out.toString().replace("\uFEFF", "").split("\r\n");
+        assertThat(lines).containsExactly(
+                "Fecha,Placa,Tipo,Kilometraje,Detalle,Costo",
+                "2026-03-10,'@SUM(A1),'+Preventivo,,\"'=HYPERLINK(\"\"http://x\"\",\"\"ver\"\")\",-20",
+                "2026-03-05,ABC-1234,Correctivo,,'-2+3,50",
+                "TOTAL GENERAL,,,,,30");
+    }
+
+    @Test
+    @DisplayName("Debe sumar los subtotales por tipo y por vehículo del rango en una sola consulta")
+    void getMaintenanceReport_ShouldComputeSubtotals() {
+        // Arrange
+        LocalDate from = LocalDate.of(2026, 3, 1);
+        LocalDate to = LocalDate.of(2026, 3, 31);
+        when(maintenanceRepository.findReportRows(from, to, null, null)).thenReturn(List.of(
+                new MaintenanceView(3L, LocalDate.of(2026, 3, 20), "Correctivo", 300.0, "Frenos", null, 2L, "BBB-222", "HINO", "FC"),
+                new MaintenanceView(2L, LocalDate.of(2026, 3, 10), "Preventivo", 50.0, "Aceite", null, 1L, "AAA-111", "HINO", "FC"),
+                new MaintenanceView(1L, LocalDate.of(2026, 3, 5), "Preventivo", 70.0, "Filtros", null, 2L, "BBB-222", "HINO", "FC"),
+                new MaintenanceView(4L, LocalDate.of(2026, 3, 1), null, null, "Sin datos", null, null, null, null, null)));
+
+        // Act
+        Map<String, Object> report = maintenanceService.getMaintenanceReport(from, to, null, null);
+
+        // Assert
+        assertThat(report.get("count")).isEqualTo(4L);
+        assertThat(report.get("totalCost")).isEqualTo(420.0);
+        assertThat((List<?>) report.get("rows")).hasSize(4);
+        @SuppressWarnings("unchecked")
+        List<CostSummary> byType = (List<CostSummary>) report.get("byType");
+        assertThat(byType).extracting(CostSummary::getKey).containsExactly("Correctivo", "Preventivo", "Sin tipo");
+        assertThat(byType.get(1).getTotalCost()).isEqualTo(120.0);
+        assertThat(byType.get(1).getCount()).isEqualTo(2L);
+        @SuppressWarnings("unchecked")
+        List<CostSummary> byVehicle = (List<CostSummary>) report.get("byVehicle");
+        assertThat(byVehicle).extracting(CostSummary::getKey).containsExactly("AAA-111", "BBB-222", "N/A");
+        assertThat(byVehicle.get(1).getTotalCost()).isEqualTo(370.0);
+        assertThat(byVehicle.get(1).getMaxCost()).isEqualTo(300.0);
+    }
 }
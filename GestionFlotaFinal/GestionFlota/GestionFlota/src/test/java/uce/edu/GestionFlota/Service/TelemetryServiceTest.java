@@ -0,0 +1,90 @@
+package uce.edu.GestionFlota.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import uce.edu.GestionFlota.Dto.OdometerReading;
+import uce.edu.GestionFlota.Repository.VehicleRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/*
+ * Pruebas Unitarias para TelemetryService.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TelemetryServiceTest {
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    @Mock
+    private VehicleService vehicleService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private TelemetryService telemetryService;
+
+    @Test
+    @DisplayName("Debe guardar solo la mayor lectura de cada vehículo en un solo lote")
+    void flush_ShouldCoalesceToHighestReadingPerVehicle() {
+        telemetryService.ingest(List.of(
+                new OdometerReading(1L, 1000.0),
+                new OdometerReading(1L, 1200.0),
+                new OdometerReading(1L, 1100.0), // llegó tarde: no debe bajar el km
+                new OdometerReading(2L, 500.0)));
+        when(vehicleRepository.updateMileages(any())).thenReturn(2);
+
+        int updated = telemetryService.flush();
+
+        assertThat(updated).isEqualTo(2);
+        verify(vehicleRepository, times(1)).updateMileages(Map.of(1L, 1200.0, 2L, 500.0));
+        verify(vehicleService).evictCachedVehicles(Map.of(1L, 1200.0, 2L, 500.0).keySet());
+        assertThat(telemetryService.flush()).isZero(); // Ya no queda nada pendiente
+        verify(vehicleRepository, times(1)).updateMileages(any());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar lecturas inválidas y vehículos nuevos cuando la cola está llena")
+    void ingest_ShouldRejectInvalidAndBoundPendingVehicles() {
+        ReflectionTestUtils.setField(telemetryService, "maxPending", 1);
+
+        int accepted = telemetryService.ingest(List.of(
+                new OdometerReading(1L, 1000.0),
+                new OdometerReading(1L, 1500.0), // mismo carro: sí entra
+                new OdometerReading(2L, 500.0),  // cola llena
+                new OdometerReading(null, 10.0),
+                new OdometerReading(3L, -5.0)));
+
+        assertThat(accepted).isEqualTo(2);
+        assertThat(telemetryService.isFull()).isTrue();
+        assertThat(meterRegistry.counter("telemetry.readings", "result", "rejected").count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Si la BD falla, las lecturas deben volver a la cola")
+    void flush_ShouldRequeueWhenDatabaseFails() {
+        telemetryService.ingest(List.of(new OdometerReading(1L, 1000.0)));
+        when(vehicleRepository.updateMileages(any())).thenThrow(new IllegalStateException("BD caída"))
+                .thenReturn(1);
+
+        assertThatThrownBy(() -> telemetryService.flush()).isInstanceOf(IllegalStateException.class);
+        telemetryService.flush();
+
+        verify(vehicleRepository, times(2)).updateMileages(Map.of(1L, 1000.0));
+    }
+}
@@ -0,0 +1,84 @@
+package uce.edu.GestionFlota.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import uce.edu.GestionFlota.Dto.AuthPrincipal;
+import uce.edu.GestionFlota.Model.User;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas Unitarias para TokenService (tokens de sesión firmados).
+ */
+public class TokenServiceTest {
+
+    private TokenService tokenService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "secret", "clave-de-prueba");
+        tokenService.init();
+
+        user = new User("admin|jefe", "hash", "ADMIN");
+        user.setId(7L);
+        user.setTokenVersion(3);
+    }
+
+    @Test
+    @DisplayName("Debe validar un token propio y devolver usuario y rol")
+    void verify_ShouldReturnPrincipal_WhenTokenIsValid() {
+        String token = tokenService.issueToken(user);
+
+        Optional<AuthPrincipal> principal = tokenService.verify(token);
+
+        assertThat(principal).isPresent();
+        assertThat(principal.get().getUserId()).isEqualTo(7L);
+        assertThat(principal.get().getUsername()).isEqualTo("admin|jefe");
+        assertThat(principal.get().getRole()).isEqualTo("ADMIN");
+        assertThat(principal.get().getTokenVersion()).isEqualTo(3);
+        assertThat(tokenService.verify(token)).containsSame(principal.get()); // Segunda vez: desde la caché
+    }
+
+    @Test
+    @DisplayName("Debe rechazar tokens alterados, de otra clave o vencidos")
+    void verify_ShouldRejectForgedForeignAndExpiredTokens() {
+        String token = tokenService.issueToken(user);
+        String tampered = "x" + token.substring(1);
+
+        TokenService otherServer = new TokenService();
+        ReflectionTestUtils.setField(otherServer, "secret", "otra-clave");
+        otherServer.init();
+
+        TokenService expiring = new TokenService();
+        ReflectionTestUtils.setField(expiring, "secret", "clave-de-prueba");
+        ReflectionTestUtils.setField(expiring, "ttlMinutes", -1L);
+        expiring.init();
+
+        assertThat(tokenService.verify(tampered)).isEmpty();
+        assertThat(tokenService.verify("basura")).isEmpty();
+        assertThat(tokenService.verify(otherServer.issueToken(user))).isEmpty();
+        assertThat(tokenService.verify(expiring.issueToken(user))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Un token de enlace (SSE/CSV) y uno de sesión no deben servir el uno por el otro")
+    void linkToken_ShouldNotBeInterchangeableWithSessionToken() {
+        String session = tokenService.issueToken(user);
+        AuthPrincipal principal = tokenService.verify(session).orElseThrow();
+
+        String link = tokenService.issueLinkToken(principal);
+
+        assertThat(tokenService.verifyLinkToken(link)).get()
+                .extracting(AuthPrincipal::getUsername, AuthPrincipal::getTokenVersion)
+                .containsExactly("admin|jefe", 3);
+        assertThat(tokenService.verify(link)).isEmpty();
+        assertThat(tokenService.verifyLinkToken(session)).isEmpty();
+    }
+}
@@ -7,10 +7,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import uce.edu.GestionFlota.Dto.AuthPrincipal;
 import uce.edu.GestionFlota.Model.User;
 import uce.edu.GestionFlota.Repository.UserRepository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
@@ -33,7 +36,7 @@ public class UserServiceTest {
         user = new User();
         user.setId(1L);
         user.setUsername("admin");
-        user.setPassword("1234");
+        user.setPassword(new BCryptPasswordEncoder().encode("1234")); // En la BD ya no hay texto plano
         user.setRole("ADMIN");
        
     }
@@ -42,7 +45,7 @@ public class UserServiceTest {
     @DisplayName("Debe retornar el usuario si las credenciales son correctas")
     void validateCredentials_ShouldReturnUser_WhenCredentialsAreValid() {
         // Arrange
-        when(userRepository.findByUsernameAndPassword("admin", "1234")).thenReturn(user);
+        when(userRepository.findByUsername("admin")).thenReturn(user);
 
         // Act
         User result = userService.validateCredentials("admin", "1234");
@@ -51,20 +54,85 @@ public class UserServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getUsername()).isEqualTo("admin");
         assertThat(result.getRole()).isEqualTo("ADMIN");
-        verify(userRepository, times(1)).findByUsernameAndPassword("admin", "1234");
+        verify(userRepository, times(1)).findByUsername("admin");
+        verify(userRepository, never()).save(any(User.class)); // Ya estaba en BCrypt
     }
 
     @Test
     @DisplayName("Debe retornar null si las credenciales son incorrectas")
     void validateCredentials_ShouldReturnNull_WhenCredentialsAreInvalid() {
         // Arrange
-        when(userRepository.findByUsernameAndPassword("admin", "wrongpass")).thenReturn(null);
+        when(userRepository.findByUsername("admin")).thenReturn(user);
 
         // Act
         User result = userService.validateCredentials("admin", "wrongpass");
 
         // Assert
         assertThat(result).isNull();
-        verify(userRepository, times(1)).findByUsernameAndPassword("admin", "wrongpass");
+        verify(userRepository, times(1)).findByUsername("admin");
+    }
+
+    @Test
+    @DisplayName("Debe aceptar una contraseña antigua en texto plano y guardarla en BCrypt")
+    void validateCredentials_ShouldUpgradeLegacyPlaintextPassword() {
+        user.setPassword("1234");
+        when(userRepository.findByUsername("admin")).thenReturn(user);
+
+        User result = userService.validateCredentials("admin", "1234");
+
+        assertThat(result).isNotNull();
+        assertThat(user.getPassword()).startsWith("$2").isNotEqualTo("1234");
+        verify(userRepository, times(1)).save(user);
+        assertThat(userService.validateCredentials("admin", "1234")).isNotNull(); // Ahora entra por BCrypt
+    }
+
+    @Test
+    @DisplayName("Un token vigente se acepta y la BD se lee una sola vez (el resto desde la caché)")
+    void isTokenCurrent_ShouldUseCache_WhenVersionMatches() {
+        when(userRepository.findOneById(1L)).thenReturn(user);
+        AuthPrincipal principal = new AuthPrincipal(1L, "admin", "ADMIN", Long.MAX_VALUE, 0);
+
+        assertThat(userService.isTokenCurrent(principal)).isTrue();
+        assertThat(userService.isTokenCurrent(principal)).isTrue();
+        verify(userRepository, times(1)).findOneById(1L);
+    }
+
+    @Test
+    @DisplayName("Cambiar la contraseña debe revocar los tokens emitidos antes")
+    void changePassword_ShouldRevokeOldTokens() {
+        when(userRepository.findByUsername("admin")).thenReturn(user);
+        when(userRepository.findOneById(1L)).thenReturn(user);
+        AuthPrincipal oldToken = new AuthPrincipal(1L, "admin", "ADMIN", Long.MAX_VALUE, 0);
+        assertThat(userService.isTokenCurrent(oldToken)).isTrue(); // Queda en la caché
+
+        User result = userService.changePassword("admin", "1234", "nueva-clave");
+
+        assertThat(result).isNotNull();
+        assertThat(user.getTokenVersion()).isEqualTo(1);
+        assertThat(userService.isTokenCurrent(oldToken)).isFalse();
+        assertThat(userService.isTokenCurrent(new AuthPrincipal(1L, "admin", "ADMIN", Long.MAX_VALUE, 1))).isTrue();
+        assertThat(userService.changePassword("admin", "mala", "otra")).isNull();
+    }
+
+    @Test
+    @DisplayName("Cambiar el rol debe revocar los tokens que llevan el rol anterior")
+    void changeRole_ShouldRevokeOldTokens() {
+        when(userRepository.findOneById(1L)).thenReturn(user);
+        AuthPrincipal adminToken = new AuthPrincipal(1L, "admin", "ADMIN", Long.MAX_VALUE, 0);
+        assertThat(userService.isTokenCurrent(adminToken)).isTrue();
+
+        userService.changeRole(1L, "USER");
+
+        assertThat(user.getRole()).isEqualTo("USER");
+        assertThat(userService.isTokenCurrent(adminToken)).isFalse();
+        verify(userRepository, times(1)).save(user);
+    }
+
+    @Test
+    @DisplayName("El token de un usuario borrado debe rechazarse")
+    void isTokenCurrent_ShouldRejectDeletedUser() {
+        when(userRepository.findOneById(1L)).thenReturn(null);
+
+        assertThat(userService.isTokenCurrent(new AuthPrincipal(1L, "admin", "ADMIN", Long.MAX_VALUE, 0))).isFalse();
     }
 }
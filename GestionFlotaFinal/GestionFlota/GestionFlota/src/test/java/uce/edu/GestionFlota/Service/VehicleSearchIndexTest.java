@@ -0,0 +1,131 @@
+package uce.edu.GestionFlota.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uce.edu.GestionFlota.Model.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Pruebas Unitarias para VehicleSearchIndex (búsqueda aproximada por trigramas).
+ */
+public class VehicleSearchIndexTest {
+
+    private VehicleSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new VehicleSearchIndex();
+        index.put(vehicle(1L, "ABC-1234", "HINO", "FC"));
+        index.put(vehicle(2L, "PBX-5678", "TOYOTA", "HILUX"));
+        index.put(vehicle(3L, "GYE-0042", "ISUZU", "D-MAX"));
+        index.put(vehicle(4L, "ABD-1235", "CHEVROLET", "NPR"));
+    }
+
+    @Test
+    @DisplayName("Debe encontrar por placa sin importar guiones, espacios ni mayúsculas")
+    void search_ShouldMatchPlateIgnoringFormat() {
+        assertThat(index.search("abc1234", 0, 10).getIds()).first().isEqualTo(1L);
+        assertThat(index.search("abc 1234", 0, 10).getIds()).first().isEqualTo(1L);
+        assertThat(index.search("ABC-12", 0, 10).getIds()).first().isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Debe tolerar errores de tipeo y texto a medio escribir en marca y modelo")
+    void search_ShouldTolerateTyposAndPrefixes() {
+        assertThat(index.search("hilu", 0, 10).getIds()).first().isEqualTo(2L);
+        assertThat(index.search("toyta", 0, 10).getIds()).first().isEqualTo(2L);
+        assertThat(index.search("dmax", 0, 10).getIds()).first().isEqualTo(3L);
+        assertThat(index.search("chévrolet", 0, 10).getIds()).containsExactly(4L);
+        assertThat(index.search("zzzz", 0, 10).getTotal()).isZero();
+        assertThat(index.search("  -- ", 0, 10).getTotal()).isZero();
+    }
+
+    @Test
+    @DisplayName("Debe reflejar ediciones y bajas de vehículos")
+    void putAndRemove_ShouldKeepIndexInSync() {
+        index.put(vehicle(2L, "PBX-5678", "NISSAN", "FRONTIER"));
+        index.removeAll(List.of(1L));
+
+        assertThat(index.search("hilux", 0, 10).getIds()).doesNotContain(2L);
+        assertThat(index.search("frontier", 0, 10).getIds()).containsExactly(2L);
+        assertThat(index.search("abc1234", 0, 10).getIds()).doesNotContain(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Debe paginar los resultados y seguir funcionando después de compactar")
+    void search_ShouldPaginateAndSurviveCompaction() {
+        List<Long> retired = new ArrayList<>();
+        for (long id = 100; id < 2100; id++) {
+            index.put(vehicle(id, String.format("HNO-%04d", id), "HINO", "FC"));
+            if (id % 2 == 0) {
+                retired.add(id);
+            }
+        }
+        index.removeAll(retired); // Más del 25% muertos: se compacta
+
+        VehicleSearchIndex.Result first = index.search("hino", 0, 20);
+        VehicleSearchIndex.Result second = index.search("hino", 20, 20);
+
+        assertThat(first.getTotal()).isEqualTo(1001); // 1000 impares + el vehículo 1
+        assertThat(first.getIds()).hasSize(20).doesNotContainAnyElementsOf(second.getIds());
+        assertThat(first.getIds()).noneMatch(retired::contains);
+        assertThat(index.search("hno0101", 0, 1).getIds()).containsExactly(101L);
+        assertThat(index.search("hino", 1000, 20).getIds()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Editar el mismo vehículo muchas veces no debe acumular documentos muertos sin límite")
+    void put_ShouldCompactDeadDocuments_WhenVehicleIsEditedRepeatedly() {
+        for (int i = 0; i < 10_000; i++) {
+            index.put(vehicle(2L, "PBX-5678", "TOYOTA", "HILUX " + i));
+        }
+
+        assertThat(index.documentCount()).isLessThan(1100); // Se compacta al pasar de 1000 muertos
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.search("hilux 9999", 0, 10).getIds()).first().isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Rearmar el índice debe mantener el anterior para las búsquedas y no perder cambios hechos durante la carga")
+    void rebuild_ShouldSwapAtomicallyAndKeepConcurrentChanges() {
+        index.rebuild(loader -> {
+            loader.accept(vehicle(1L, "ABC-1234", "HINO", "FC"));
+            // A mitad de la carga: las búsquedas siguen viendo la flota completa de antes
+            assertThat(index.search("hilux", 0, 10).getIds()).containsExactly(2L);
+            // Y llegan cambios que la carga (una foto de la BD) ya no va a ver
+            index.put(vehicle(5L, "NEW-0005", "NISSAN", "FRONTIER"));
+            index.removeAll(List.of(1L));
+            loader.accept(vehicle(2L, "PBX-5678", "TOYOTA", "HILUX"));
+        });
+
+        assertThat(index.search("frontier", 0, 10).getIds()).containsExactly(5L);
+        assertThat(index.search("abc1234", 0, 10).getIds()).doesNotContain(1L);
+        assertThat(index.search("dmax", 0, 10).getTotal()).isZero(); // Ya no estaba en la BD
+        assertThat(index.size()).isEqualTo(2); // 2 y 5
+    }
+
+    @Test
+    @DisplayName("Si la carga falla, el índice anterior debe quedar intacto")
+    void rebuild_ShouldKeepOldIndex_WhenLoaderFails() {
+        assertThatThrownBy(() -> index.rebuild(loader -> {
+            loader.accept(vehicle(1L, "ABC-1234", "HINO", "FC"));
+            throw new IllegalStateException("Se cortó la conexión");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.search("dmax", 0, 10).getIds()).containsExactly(3L);
+    }
+
+    private static Vehicle vehicle(Long id, String plate, String brand, String model) {
+        Vehicle vehicle = new Vehicle(plate, brand, model, 2023, 0.0, "Available");
+        vehicle.setId(id);
+        return vehicle;
+    }
+}
@@ -6,15 +6,33 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import uce.edu.GestionFlota.Dto.AlertCount;
+import uce.edu.GestionFlota.Dto.FacetCount;
+import jakarta.persistence.EntityManager;
+import uce.edu.GestionFlota.Dto.FleetEvent;
+import uce.edu.GestionFlota.Dto.VehicleAlert;
+import uce.edu.GestionFlota.Dto.VehicleChange;
+import uce.edu.GestionFlota.Dto.ImportResult;
+import uce.edu.GestionFlota.Dto.VehicleFilter;
 import uce.edu.GestionFlota.Model.Vehicle;
 import uce.edu.GestionFlota.Repository.MaintenanceRepository;
 import uce.edu.GestionFlota.Repository.VehicleRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,6 +50,21 @@ public class VehicleServiceTest {
     @Mock
     private MaintenanceRepository maintenanceRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private MaintenanceService maintenanceService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private VehicleSearchIndex searchIndex = new VehicleSearchIndex();
+
     @InjectMocks
     private VehicleService vehicleService;
 
@@ -58,6 +91,76 @@ public class VehicleServiceTest {
         assertThat(savedVehicle).isNotNull();
         assertThat(savedVehicle.getLicensePlate()).isEqualTo("ABC-1234");
         verify(vehicleRepository, times(1)).save(vehicle);
+        // El aviso en vivo lleva un DTO chiquito, no la entidad completa
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof FleetEvent
+                && ((FleetEvent) e).getData() instanceof VehicleChange change
+                && "ABC-1234".equals(change.getLicensePlate())));
+    }
+
+    @Test
+    @DisplayName("La búsqueda aproximada debe devolver los vehículos en el orden del índice")
+    void searchVehicles_ShouldReturnRankedPage() {
+        Vehicle hilux = new Vehicle("PBX-5678", "TOYOTA", "HILUX", 2022, 0.0, "Available");
+        hilux.setId(2L);
+        when(vehicleRepository.save(any(Vehicle.class))).thenAnswer(inv -> inv.getArgument(0));
+        vehicleService.saveVehicle(vehicle);
+        vehicleService.saveVehicle(hilux);
+        // La BD los devuelve en cualquier orden
+        when(vehicleRepository.findAllById(List.of(2L))).thenReturn(List.of(hilux));
+
+        Map<String, Object> result = vehicleService.searchVehicles("hilu", 0, 500);
+
+        assertThat(result.get("items")).isEqualTo(List.of(hilux));
+        assertThat(result.get("total")).isEqualTo(1);
+        assertThat(result.get("size")).isEqualTo(VehicleService.MAX_SEARCH_SIZE);
+    }
+
+    @Test
+    @DisplayName("El Inventario debe sacar total y facetas de un solo GROUP BY y no pedir páginas vacías")
+    void queryVehicles_ShouldBuildFacetsFromOneGroupBy() {
+        VehicleFilter filter = new VehicleFilter();
+        filter.setStatus("Available");
+        filter.setBrand("HINO");
+        Sort sort = Sort.by("licensePlate");
+        when(vehicleRepository.countByStatusAndBrand(any(VehicleFilter.class))).thenReturn(List.of(
+                new FacetCount("Available", "HINO", 3L),
+                new FacetCount("Maintenance", "HINO", 1L),
+                new FacetCount("Available", "ISUZU", 5L),
+                new FacetCount(null, "ISUZU", 2L)));
+        when(vehicleRepository.findByFilter(filter, sort, 0, 2)).thenReturn(List.of(vehicle));
+
+        Map<String, Object> result = vehicleService.queryVehicles(filter, sort, 0, 2);
+        Map<String, Object> pastTheEnd = vehicleService.queryVehicles(filter, sort, 5, 2);
+
+        assertThat(result.get("items")).isEqualTo(List.of(vehicle));
+        assertThat(result.get("total")).isEqualTo(3L);
+        Map<?, ?> facets = (Map<?, ?>) result.get("facets");
+        // Estados de la marca elegida; marcas del estado elegido (más vehículos primero)
+        assertThat(facets.get("status")).isEqualTo(Map.of("Available", 3L, "Maintenance", 1L));
+        assertThat(facets.get("brand")).hasToString("{ISUZU=5, HINO=3}");
+        assertThat(pastTheEnd.get("items")).isEqualTo(List.of());
+        verify(vehicleRepository, times(2)).countByStatusAndBrand(any(VehicleFilter.class));
+        verify(vehicleRepository, times(1)).findByFilter(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Los vehículos sin estado deben tener una faceta que sirva de vuelta como filtro")
+    void queryVehicles_ShouldUseNoneKeyForMissingStatus() {
+        Sort sort = Sort.by("licensePlate");
+        when(vehicleRepository.countByStatusAndBrand(any(VehicleFilter.class))).thenReturn(List.of(
+                new FacetCount("Available", "ISUZU", 5L),
+                new FacetCount(null, "ISUZU", 2L)));
+
+        Map<?, ?> facets = (Map<?, ?>) vehicleService.queryVehicles(new VehicleFilter(), sort, 0, 10).get("facets");
+        assertThat(facets.get("status")).isEqualTo(Map.of("Available", 5L, VehicleFilter.NONE, 2L));
+
+        // La llave de la faceta, enviada de vuelta como filtro (?status=_none)
+        VehicleFilter withoutStatus = new VehicleFilter();
+        withoutStatus.setStatus(VehicleFilter.NONE);
+        Map<String, Object> filtered = vehicleService.queryVehicles(withoutStatus, sort, 0, 10);
+
+        assertThat(filtered.get("total")).isEqualTo(2L);
+        assertThat(((Map<?, ?>) filtered.get("facets")).get("brand")).isEqualTo(Map.of("ISUZU", 2L));
     }
 
     @Test
@@ -84,10 +187,177 @@ public class VehicleServiceTest {
     @DisplayName("Debe eliminar un vehículo y sus mantenimientos relacionados")
     void deleteVehicle_ShouldCallDeleteOnRepositories() {
         Long vehicleId = 1L;
-        doNothing().when(maintenanceRepository).deleteByVehicleId(vehicleId);
-        doNothing().when(vehicleRepository).deleteById(vehicleId);
-        vehicleService.deleteVehicle(vehicleId);
-        verify(maintenanceRepository, times(1)).deleteByVehicleId(vehicleId);
-        verify(vehicleRepository, times(1)).deleteById(vehicleId);
+        when(maintenanceRepository.deleteByVehicleIds(List.of(vehicleId))).thenReturn(4);
+        when(vehicleRepository.deleteByIds(List.of(vehicleId))).thenReturn(1);
+        assertThat(vehicleService.deleteVehicle(vehicleId)).isTrue();
+        verify(maintenanceRepository, times(1)).deleteByVehicleIds(List.of(vehicleId));
+        verify(vehicleRepository, times(1)).deleteByIds(List.of(vehicleId));
+        verify(maintenanceService, times(1)).rebuildRollups(any());
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof FleetEvent
+                && FleetEvent.VEHICLE_DELETED.equals(((FleetEvent) e).getType())
+                && vehicleId.equals(((FleetEvent) e).getVehicleId())));
+    }
+
+    @Test
+    @DisplayName("Borrar un vehículo que no existe debe devolver false y no avisar a nadie")
+    void deleteVehicle_ShouldReturnFalse_WhenMissing() {
+        when(vehicleRepository.deleteByIds(List.of(99L))).thenReturn(0);
+        assertThat(vehicleService.deleteVehicle(99L)).isFalse();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("La baja masiva debe borrar todos los vehículos con los mismos DELETE, sin importar cuántos sean")
+    void retireVehicles_ShouldDeleteBySet() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            ids.add(id);
+        }
+        ids.add(5L); // Repetido: se cuenta una vez
+        when(vehicleRepository.deleteByIds(anyCollection())).thenReturn(300);
+
+        assertThat(vehicleService.retireVehicles(ids)).isEqualTo(300);
+
+        verify(maintenanceService, times(1)).findRollupsByVehicles(argThat(c -> c.size() == 300));
+        verify(maintenanceRepository, times(1)).deleteByVehicleIds(argThat(c -> c.size() == 300));
+        verify(vehicleRepository, times(1)).deleteByIds(argThat(c -> c.size() == 300));
+        verify(maintenanceService, times(1)).rebuildRollups(any());
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof FleetEvent
+                && FleetEvent.VEHICLES_RETIRED.equals(((FleetEvent) e).getType())));
+    }
+
+    @Test
+    @DisplayName("Debe guardar en caché las placas encontradas y las inexistentes")
+    void getByLicensePlate_ShouldCacheHitsAndMisses() {
+        when(vehicleRepository.findByLicensePlate("ABC-1234")).thenReturn(Optional.of(vehicle));
+        when(vehicleRepository.findByLicensePlate("NO-EXISTE")).thenReturn(Optional.empty());
+
+        vehicleService.getByLicensePlate("ABC-1234");
+        vehicleService.getByLicensePlate("NO-EXISTE");
+        assertThat(vehicleService.getByLicensePlate("ABC-1234")).contains(vehicle);
+        assertThat(vehicleService.getByLicensePlate("NO-EXISTE")).isEmpty();
+
+        verify(vehicleRepository, times(1)).findByLicensePlate("ABC-1234");
+        verify(vehicleRepository, times(1)).findByLicensePlate("NO-EXISTE");
+        assertThat(meterRegistry.counter("vehicles.plate_cache.requests", "result", "hit").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("vehicles.plate_cache.requests", "result", "miss").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Guardar o borrar un vehículo debe invalidar la caché de placas")
+    void saveAndDelete_ShouldInvalidatePlateCache() {
+        when(vehicleRepository.findByLicensePlate("ABC-1234")).thenReturn(Optional.empty(), Optional.of(vehicle));
+        when(vehicleRepository.save(vehicle)).thenReturn(vehicle);
+
+        assertThat(vehicleService.getByLicensePlate("ABC-1234")).isEmpty();
+        vehicleService.saveVehicle(vehicle); // la placa "no existente" ya existe
+        assertThat(vehicleService.getByLicensePlate("ABC-1234")).contains(vehicle);
+        vehicleService.deleteVehicle(1L);
+        vehicleService.getByLicensePlate("ABC-1234");
+
+        verify(vehicleRepository, times(3)).findByLicensePlate("ABC-1234");
+    }
+
+    @Test
+    @DisplayName("Una lectura de la BD que se cruza con una invalidación no debe quedar en la caché")
+    void getByLicensePlate_ShouldNotCacheReadRacingAnEviction() {
+        // Mientras se lee la BD (dato viejo: "no existe"), otro hilo confirma el alta e invalida
+        when(vehicleRepository.findByLicensePlate("ABC-1234")).thenAnswer(invocation -> {
+            vehicleService.evictCachedVehicles(List.of(1L));
+            return Optional.empty();
+        }).thenReturn(Optional.of(vehicle));
+
+        assertThat(vehicleService.getByLicensePlate("ABC-1234")).isEmpty();
+        assertThat(vehicleService.getByLicensePlate("ABC-1234")).contains(vehicle);
+        assertThat(vehicleService.getByLicensePlate("ABC-1234")).contains(vehicle);
+
+        verify(vehicleRepository, times(2)).findByLicensePlate("ABC-1234");
+    }
+
+    @Test
+    @DisplayName("Debe pedir la página siguiente al cursor y limitar el tamaño")
+    void getVehiclesPage_ShouldUseCursorAndClampSize() {
+        when(vehicleRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(VehicleService.MAX_PAGE_SIZE)))
+                .thenReturn(List.of(vehicle));
+        List<Vehicle> page = vehicleService.getVehiclesPage(10L, 100000);
+        assertThat(page).containsExactly(vehicle);
+
+        vehicleService.getVehiclesPage(null, 20);
+        verify(vehicleRepository).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(20));
+    }
+
+    @Test
+    @DisplayName("Debe recorrer la flota en streaming y soltar cada entidad")
+    void streamAllVehicles_ShouldConsumeAndDetachEachVehicle() {
+        Vehicle v2 = new Vehicle();
+        v2.setId(2L);
+        when(vehicleRepository.streamAll()).thenReturn(Stream.of(vehicle, v2));
+        List<Vehicle> received = new ArrayList<>();
+        vehicleService.streamAllVehicles(received::add);
+        assertThat(received).containsExactly(vehicle, v2);
+        verify(entityManager).detach(vehicle);
+        verify(entityManager).detach(v2);
+    }
+
+    @Test
+    @DisplayName("Debe completar los datos faltantes con un UPDATE por paso y medir cada paso por separado")
+    void initializeExistingVehicles_ShouldUseBulkUpdateAndRecordTimer() {
+        when(vehicleRepository.fillMissingCreatedAt(any(LocalDateTime.class))).thenReturn(3);
+        vehicleService.initializeExistingVehicles();
+        verify(vehicleRepository, times(1)).fillMissingCreatedAt(any(LocalDateTime.class));
+        verify(vehicleRepository, times(1)).fillMissingMaintenanceSchedule(any(LocalDateTime.class));
+        verify(vehicleRepository, times(1)).fillMissingMaintenanceSummary();
+        verify(vehicleRepository, never()).findAll();
+        verify(vehicleRepository, never()).save(any(Vehicle.class));
+        for (String step : List.of("created_at", "maintenance_schedule", "maintenance_summary")) {
+            assertThat(meterRegistry.timer("vehicles.backfill", "step", step).count()).as(step).isEqualTo(1);
+        }
+        assertThat(meterRegistry.find("vehicles.backfill.created_at").timer()).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe devolver las alertas livianas con límite y los tres conteos de una sola consulta")
+    void getMaintenanceAlerts_ShouldReturnItemsAndCounts() {
+        VehicleAlert vencido = new VehicleAlert(1L, "ROJ-0001", "HINO", "FC", 16000.0, 10000.0, null, 15000.0, 120.0);
+        VehicleAlert proximo = new VehicleAlert(2L, "AMA-0001", "HINO", "FC", 13500.0, 10000.0, null, 15000.0, 70.0);
+        when(vehicleRepository.findAlerts(eq(Vehicle.WARNING_USAGE), any(Limit.class)))
+                .thenReturn(List.of(vencido, proximo));
+        // Sin carros AMARILLO en el conteo: igual debe aparecer en 0
+        when(vehicleRepository.countByMaintenanceLevel())
+                .thenReturn(List.of(new AlertCount("VERDE", 8L), new AlertCount("ROJO", 2L)));
+
+        Map<String, Object> alerts = vehicleService.getMaintenanceAlerts(10_000);
+
+        assertThat(alerts.get("counts")).isEqualTo(Map.of("ROJO", 2L, "AMARILLO", 0L, "VERDE", 8L));
+        assertThat(alerts.get("items")).isEqualTo(List.of(vencido, proximo));
+        assertThat(vencido.getMaintenanceLevel()).isEqualTo("ROJO");
+        assertThat(proximo.getMaintenanceLevel()).isEqualTo("AMARILLO");
+        verify(vehicleRepository).findAlerts(Vehicle.WARNING_USAGE, Limit.of(VehicleService.MAX_PAGE_SIZE));
+        verify(vehicleRepository, never()).count();
+        verify(vehicleRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Debe validar la carga masiva en bloque e insertar solo las filas válidas")
+    void importVehicles_ShouldValidateInBulkAndReportEachRow() {
+        Vehicle nuevo = new Vehicle("XYZ-9999", "HINO", "FC", 2024, 0.0, "Available");
+        Vehicle repetido = new Vehicle("XYZ-9999", "HINO", "FC", 2024, 0.0, "Available");
+        Vehicle existente = new Vehicle("ABC-1234", "HINO", "FC", 2024, 0.0, "Available");
+        Vehicle sinMarca = new Vehicle("DEF-5678", null, "FC", 2024, 0.0, "Available");
+        Map<Integer, Vehicle> rows = new LinkedHashMap<>();
+        rows.put(1, nuevo);
+        rows.put(2, repetido);
+        rows.put(3, existente);
+        rows.put(4, sinMarca);
+        when(vehicleRepository.findExistingPlates(any())).thenReturn(List.of("ABC-1234"));
+
+        List<ImportResult> results = vehicleService.importVehicles(rows);
+
+        assertThat(results).extracting(ImportResult::getStatus)
+                .containsExactly("created", "error", "error", "error");
+        assertThat(results.get(2).getMessage()).isEqualTo("La placa ya está registrada");
+        verify(vehicleRepository, times(1)).findExistingPlates(any());
+        verify(vehicleRepository, times(1)).saveAll(List.of(nuevo));
+        verify(vehicleRepository, never()).save(any(Vehicle.class));
     }
 }
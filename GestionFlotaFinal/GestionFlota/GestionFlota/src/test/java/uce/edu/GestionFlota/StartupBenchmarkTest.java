@@ -0,0 +1,104 @@
+package uce.edu.GestionFlota;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de Arranque: cuánto tarda en levantar la aplicación completa con
+ * 'ddl-auto=update' (Hibernate revisa el esquema) vs 'ddl-auto=none' (solo Flyway).
+ * NO corre con 'mvn test' normal; se ejecuta a mano:
+ *   mvn test -Dtest=StartupBenchmarkTest -Dbenchmark=true
+ * Por defecto usa una BD H2 en memoria ya migrada (como un servidor que se reinicia).
+ * Contra PostgreSQL (un esquema propio, se borra al final):
+ *   mvn test -Dtest=StartupBenchmarkTest -Dbenchmark=true -Dpostgres.url=jdbc:postgresql://localhost:5433/GestionFlota
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class StartupBenchmarkTest {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 7;
+
+    private static final String POSTGRES_URL = System.getProperty("postgres.url");
+    private static final String SCHEMA = "arranque_" + System.currentTimeMillis();
+
+    @Test
+    @DisplayName("Benchmark: arranque con ddl-auto=update vs ddl-auto=none")
+    void benchmarkStartupWithAndWithoutDdlAuto() {
+        start("none").close(); // Primera vez: Flyway crea el esquema en la BD compartida
+
+        List<Long> withUpdate = new ArrayList<>();
+        List<Long> withNone = new ArrayList<>();
+        for (int i = 0; i < WARMUP_RUNS + MEASURED_RUNS; i++) {
+            // Alternamos para que el calentamiento de la JVM no favorezca a uno
+            long update = timeStartup("update");
+            long none = timeStartup("none");
+            if (i >= WARMUP_RUNS) {
+                withUpdate.add(update);
+                withNone.add(none);
+            }
+        }
+
+        if (POSTGRES_URL != null) {
+            try (ConfigurableApplicationContext context = start("none")) {
+                context.getBean(JdbcTemplate.class).execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+            }
+        }
+
+        System.out.printf("%n[BENCHMARK] BD: %s%n", (POSTGRES_URL != null) ? POSTGRES_URL : "H2 en memoria");
+        System.out.printf("[BENCHMARK] arranque ddl-auto=update: mediana %d ms %s%n", median(withUpdate), withUpdate);
+        System.out.printf("[BENCHMARK] arranque ddl-auto=none:   mediana %d ms %s%n", median(withNone), withNone);
+
+        assertThat(withNone).hasSize(MEASURED_RUNS);
+    }
+
+    // Levanta y cierra la aplicación, devuelve los milisegundos que tardó en quedar lista
+    private static long timeStartup(String ddlAuto) {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(ddlAuto)) {
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    // Argumentos de línea de comandos: tienen prioridad sobre application.properties
+    private static ConfigurableApplicationContext start(String ddlAuto) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(GestionFlotaApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false);
+        if (POSTGRES_URL != null) {
+            return builder.run(
+                    "--spring.datasource.url=" + POSTGRES_URL + (POSTGRES_URL.contains("?") ? "&" : "?")
+                            + "currentSchema=" + SCHEMA,
+                    "--spring.datasource.username=" + System.getProperty("postgres.user", "postgres"),
+                    "--spring.datasource.password=" + System.getProperty("postgres.password", "1234"),
+                    "--spring.flyway.schemas=" + SCHEMA,
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.root=WARN",
+                    "--spring.jpa.hibernate.ddl-auto=" + ddlAuto);
+        }
+        return builder.run("--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto);
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,18 @@
+-- Esquema que creaba Hibernate ('ddl-auto=update') ANTES de Flyway (versión a4ed686),
+-- copiado tal cual de su log en PostgreSQL. Las BD de producción están así: las pruebas
+-- lo crean, Flyway lo marca como versión 1 (baseline) y aplica de V2 en adelante.
+create table maintenances (id bigint generated by default as identity, cost float(53), date date, description varchar(255), mileage_at_maintenance float(53), type varchar(255), vehicle_id bigint, primary key (id));
+create table users (id bigint generated by default as identity, password varchar(255) not null, role varchar(255), username varchar(255) not null, primary key (id));
+create table vehicles (id bigint generated by default as identity, brand varchar(255) not null, created_at timestamp(6), last_maintenance_km float(53), license_plate varchar(255) not null, maintenance_interval_km integer, mileage float(53), model varchar(255), status varchar(255), production_year integer, primary key (id));
+alter table if exists users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+alter table if exists vehicles add constraint UK9vovnbiegxevdhqfcwvp2g8pj unique (license_plate);
+alter table if exists maintenances add constraint FKtco4p0hdx2v19ou9740t2wy3u foreign key (vehicle_id) references vehicles;
+
+-- Datos de antes de la migración (deben sobrevivir)
+insert into vehicles (id, brand, created_at, last_maintenance_km, license_plate, maintenance_interval_km, mileage, model, status, production_year)
+values (1, 'HINO', null, 4000, 'OLD-0001', 5000, 8000, 'FC', 'Available', 2020),
+       (2, 'ISUZU', null, null, 'OLD-0002', null, 1200, 'NPR', 'Maintenance', 2019);
+insert into maintenances (cost, date, description, mileage_at_maintenance, type, vehicle_id)
+values (150, date '2025-01-15', 'Cambio de aceite', 4000, 'Preventivo', 1),
+       (900, null, 'Frenos', 1100, 'Correctivo', 2);
+insert into users (password, role, username) values ('admin123', 'ADMIN', 'admin');
@@ -5,6 +5,7 @@ import { estilos } from './config/theme';
 import { ToastNotification } from './components/UI';
 import Login from './views/Login';
 import SistemaFlota from './layouts/SistemaFlota';
+import { setAuthToken } from './config/utils';
 
 function App() {
   const [user, setUser] = useState(null);
@@ -27,7 +28,7 @@ function App() {
   return (
     <div style={estilos.appLayout}>
       {toast.show && <ToastNotification msg={toast.msg} type={toast.type} />}
-      <SistemaFlota user={user} onLogout={() => setUser(null)} notificar={showToast} /> 
+      <SistemaFlota user={user} onLogout={() => { setAuthToken(null); setUser(null); }} notificar={showToast} /> 
     </div>
   );
 }
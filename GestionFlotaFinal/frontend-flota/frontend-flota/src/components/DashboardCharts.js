@@ -38,42 +38,25 @@ const ChartCard = ({ title, icon: Icon, children }) => (
     </div>
 );
 
-const DashboardCharts = ({ vehiculos, maintenances = [] }) => {
-    // Asegurar que maintenances siempre sea un array
-    const safeMaintenances = Array.isArray(maintenances) ? maintenances : [];
+const DashboardCharts = ({ vehiculos, analytics = {} }) => {
+    // Acumulados calculados en el servidor (GET /vehicles/maintenances/analytics)
+    const byMonth = Array.isArray(analytics.byMonth) ? analytics.byMonth : [];
+    const byType = Array.isArray(analytics.byType) ? analytics.byType : [];
 
-    // 1. Procesar Gastos Mensuales (Mejorado)
+    // 1. Procesar Gastos Mensuales (ya vienen sumados por mes, "AAAA-MM")
     const processMonthlyExpenses = () => {
-        const expenses = {};
-
-        safeMaintenances.forEach(m => {
-            const dateObj = new Date(m.date);
-            const userTimezoneOffset = dateObj.getTimezoneOffset() * 60000;
-            const adjustedDate = new Date(dateObj.getTime() + userTimezoneOffset);
-
-            const monthName = adjustedDate.toLocaleString('es-ES', { month: 'short' });
-            const label = monthName.charAt(0).toUpperCase() + monthName.slice(1);
-
-            if (!expenses[label]) {
-                expenses[label] = { total: 0, maxCost: 0, topVehicle: 'N/A' };
-            }
-
-            expenses[label].total += m.cost;
-
-            // Track top spender
-            if (m.cost > expenses[label].maxCost) {
-                expenses[label].maxCost = m.cost;
-                expenses[label].topVehicle = m.vehicle ? m.vehicle.licensePlate : 'N/A';
-            }
+        const data = byMonth.map(m => {
+            const [year, month] = m.key.split('-').map(Number);
+            const monthName = new Date(year, month - 1, 1).toLocaleString('es-ES', { month: 'short' });
+
+            return {
+                name: monthName.charAt(0).toUpperCase() + monthName.slice(1),
+                monto: m.totalCost,
+                topVehicle: m.topVehiclePlate || 'N/A',
+                maxSingleCost: m.maxCost
+            };
         });
 
-        const data = Object.keys(expenses).map(key => ({
-            name: key,
-            monto: expenses[key].total,
-            topVehicle: expenses[key].topVehicle,
-            maxSingleCost: expenses[key].maxCost
-        }));
-
         // Calcular Promedio Global
         const totalSum = data.reduce((acc, curr) => acc + curr.monto, 0);
         const average = data.length > 0 ? totalSum / data.length : 0;
@@ -83,26 +66,16 @@ const DashboardCharts = ({ vehiculos, maintenances = [] }) => {
 
     // 2. Procesar Tipos de Mantenimiento (Mejorado)
     const processMaintenanceTypes = () => {
-        const types = {
-            'Preventivo': { count: 0, totalCost: 0 },
-            'Correctivo': { count: 0, totalCost: 0 }
-        };
-
-        let totalCount = 0;
-
-        safeMaintenances.forEach(m => {
-            if (types[m.type]) {
-                types[m.type].count++;
-                types[m.type].totalCost += m.cost;
-                totalCount++;
-            }
-        });
-
-        const data = Object.keys(types).map(key => ({
-            name: key,
-            value: types[key].count,
-            avgCost: types[key].count > 0 ? types[key].totalCost / types[key].count : 0
-        })).filter(item => item.value > 0);
+        const data = byType
+            .filter(t => t.key === 'Preventivo' || t.key === 'Correctivo')
+            .map(t => ({
+                name: t.key,
+                value: t.count,
+                avgCost: t.averageCost
+            }))
+            .filter(item => item.value > 0);
+
+        const totalCount = data.reduce((acc, curr) => acc + curr.value, 0);
 
         return { data, totalCount };
     };
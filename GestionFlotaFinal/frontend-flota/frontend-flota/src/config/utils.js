@@ -12,12 +12,37 @@ export const getApiUrl = () => {
 
 export const API_BASE_URL = getApiUrl();
 
+// Faceta "sin estado" de /vehicles/query (VehicleFilter.NONE): sirve tal cual como filtro (?status=_none)
+export const SIN_VALOR = '_none';
+
 export const HEADERS_JSON = {
     'Content-Type': 'application/json',
     'ngrok-skip-browser-warning': 'true',
     'Bypass-Tunnel-Reminder': 'true'
 };
 
+// Token de sesión: se manda en TODAS las peticiones que usan HEADERS_JSON.
+// null = cerrar sesión (se quita el encabezado).
+export const setAuthToken = (token) => {
+    if (token) HEADERS_JSON.Authorization = `Bearer ${token}`;
+    else delete HEADERS_JSON.Authorization;
+};
+
+// URL con un token de enlace (dura segundos) para lo que el navegador abre solo y no puede
+// mandar 'Authorization': EventSource y descargas. Sin sesión se devuelve la URL tal cual.
+export const urlConToken = async (ruta) => {
+    const url = `${API_BASE_URL}${ruta}`;
+    if (!HEADERS_JSON.Authorization) return url;
+    try {
+        const res = await fetch(`${API_BASE_URL}/auth/link-token`, { method: 'POST', headers: HEADERS_JSON });
+        const data = await res.json();
+        if (data.status !== 'ok') return url;
+        return `${url}${url.includes('?') ? '&' : '?'}access_token=${encodeURIComponent(data.token)}`;
+    } catch (error) {
+        return url;
+    }
+};
+
 // ==========================================
 // 2. LÓGICA DE NEGOCIO (MÉTRICAS)
 // ==========================================
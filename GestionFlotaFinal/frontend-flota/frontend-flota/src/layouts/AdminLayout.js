@@ -1,7 +1,7 @@
 // src/layouts/AdminLayout.js
-import React, { useState } from 'react';
+import React, { useState, useEffect } from 'react';
 import { estilos, THEME } from '../config/theme';
-import { calcularMetricas } from '../config/utils';
+import { API_BASE_URL, HEADERS_JSON } from '../config/utils';
 import { MenuButton, AlertCard } from '../components/UI';
 import ModalManager from '../components/ModalManager';
 import { LayoutDashboard, Package, FileText, PlusCircle, User, LogOut, Bell, X, BellRing, Truck } from 'lucide-react';
@@ -18,13 +18,23 @@ const AdminLayout = ({ vehiculos, recargar, notificar, user, onLogout }) => {
     const [vehiculoSelect, setVehiculoSelect] = useState(null);
     const [modalMode, setModalMode] = useState(null);
 
-    const alertasActivas = vehiculos
-        .map(v => ({ ...v, ...calcularMetricas(v) }))
-        .filter(v => v.estadoMant === 'ROJO' || v.estadoMant === 'AMARILLO')
-        .sort((a, b) => a.restante - b.restante);
+    const [alertas, setAlertas] = useState({ counts: { ROJO: 0, AMARILLO: 0, VERDE: 0 }, items: [] });
+
+    // El semáforo lo calcula el servidor: solo llegan los carros con alerta (más urgentes primero).
+    // Se vuelve a pedir cada vez que cambia la flota (guardar, borrar, mantenimiento).
+    useEffect(() => {
+        fetch(`${API_BASE_URL}/vehicles/alerts`, { headers: HEADERS_JSON })
+            .then(res => res.json())
+            .then(data => setAlertas(data))
+            .catch(err => console.error("Error fetching alerts:", err));
+    }, [vehiculos]);
+
+    const alertasActivas = alertas.items;
 
     const abrirEdicion = (v) => {
-        setVehiculoSelect({ ...v });
+        // Las alertas solo traen lo que pinta la tarjeta: para editar se usa el vehículo completo
+        const completo = vehiculos.find(x => x.id === v.id) || v;
+        setVehiculoSelect({ ...completo });
         setModalMode('edit');
     };
 
@@ -139,14 +149,14 @@ const AdminLayout = ({ vehiculos, recargar, notificar, user, onLogout }) => {
 
                         {/* Badges de Conteo */}
                         <div style={{ display: 'flex', gap: '8px', marginLeft: '6px' }}>
-                            {alertasActivas.filter(v => v.estadoMant === 'ROJO').length > 0 && (
+                            {alertas.counts.ROJO > 0 && (
                                 <span style={{ background: THEME.danger, color: 'white', fontSize: '13px', height: '21px', minWidth: '21px', borderRadius: '50%', display: 'flex', alignItems: 'center', justifyContent: 'center', fontWeight: '700', padding: '0' }}>
-                                    {alertasActivas.filter(v => v.estadoMant === 'ROJO').length}
+                                    {alertas.counts.ROJO}
                                 </span>
                             )}
-                            {alertasActivas.filter(v => v.estadoMant === 'AMARILLO').length > 0 && (
+                            {alertas.counts.AMARILLO > 0 && (
                                 <span style={{ background: THEME.warning, color: 'white', fontSize: '13px', height: '21px', minWidth: '21px', borderRadius: '50%', display: 'flex', alignItems: 'center', justifyContent: 'center', fontWeight: '700', padding: '0' }}>
-                                    {alertasActivas.filter(v => v.estadoMant === 'AMARILLO').length}
+                                    {alertas.counts.AMARILLO}
                                 </span>
                             )}
                         </div>
@@ -1,5 +1,5 @@
-import React, { useState, useEffect } from 'react';
-import { API_BASE_URL, HEADERS_JSON } from '../config/utils';
+import React, { useState, useEffect, useRef } from 'react';
+import { API_BASE_URL, HEADERS_JSON, urlConToken } from '../config/utils';
 import AdminLayout from './AdminLayout';
 import UserLayout from './UserLayout';
 
@@ -14,11 +14,66 @@ const SistemaFlota = ({ user, onLogout, notificar }) => {
       .catch(error => console.error("Error cargando flota:", error));
   };
 
-  useEffect(() => { cargarVehiculos(); }, []);
+  // Cambios en vivo (SSE): el servidor avisa cada cambio y actualizamos SOLO esa fila,
+  // en vez de volver a descargar toda la flota después de cada edición.
+  const enVivo = useRef(false);
+
+  useEffect(() => {
+    cargarVehiculos();
+
+    let eventos = null;
+    let cerrado = false;
+
+    // El token de enlace de la URL dura segundos: cada conexión nueva pide uno
+    const conectar = async () => {
+      const url = await urlConToken('/vehicles/events');
+      if (cerrado) return;
+      eventos = new EventSource(url);
+      escuchar(eventos);
+    };
+
+    const escuchar = (eventos) => {
+      eventos.onopen = () => {
+        // Al (re)conectar pudimos perdernos avisos: recargamos una vez
+        if (enVivo.current === null) cargarVehiculos();
+        enVivo.current = true;
+      };
+      // null = se cayó la conexión; al volver hay que recargar.
+      // EventSource reintenta solo con la MISMA URL (token ya vencido = 401 y se rinde):
+      // si quedó cerrado, nos reconectamos nosotros con un token nuevo.
+      eventos.onerror = () => {
+        if (enVivo.current) enVivo.current = null;
+        if (eventos.readyState === EventSource.CLOSED && !cerrado) setTimeout(conectar, 3000);
+      };
+
+      // El aviso trae solo los campos que se muestran: se mezclan con la fila que ya teníamos
+      eventos.addEventListener('vehicle.saved', (e) => {
+        const cambios = JSON.parse(e.data).data;
+        setVehiculos(lista => lista.some(v => v.id === cambios.id)
+          ? lista.map(v => (v.id === cambios.id ? { ...v, ...cambios } : v))
+          : [...lista, cambios]);
+      });
+      eventos.addEventListener('vehicle.deleted', (e) => {
+        const { vehicleId } = JSON.parse(e.data);
+        setVehiculos(lista => lista.filter(v => v.id !== vehicleId));
+      });
+      eventos.addEventListener('vehicles.imported', () => cargarVehiculos());
+      eventos.addEventListener('vehicles.retired', (e) => {
+        const retirados = new Set(JSON.parse(e.data).data);
+        setVehiculos(lista => lista.filter(v => !retirados.has(v.id)));
+      });
+    };
+
+    conectar();
+    return () => { cerrado = true; if (eventos) eventos.close(); };
+  }, []);
+
+  // Si el canal en vivo está conectado, los cambios llegan solos; si no, recargamos como antes
+  const recargar = () => { if (!enVivo.current) cargarVehiculos(); };
 
   // CHANGE: 'rol' ahora es 'role' en el Backend
   if (user.role === 'ADMIN') {
-    return <AdminLayout vehiculos={vehiculos} recargar={cargarVehiculos} notificar={notificar} user={user} onLogout={onLogout} />;
+    return <AdminLayout vehiculos={vehiculos} recargar={recargar} notificar={notificar} user={user} onLogout={onLogout} />;
   }
 
   return <UserLayout vehiculos={vehiculos} notificar={notificar} user={user} onLogout={onLogout} />;
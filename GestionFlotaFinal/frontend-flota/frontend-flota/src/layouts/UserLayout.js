@@ -149,13 +149,14 @@ const UserResultCard = ({ vehiculo }) => {
 
     React.useEffect(() => {
         if (!vehiculo.id) return;
-        fetch(`${API_BASE_URL}/vehicles/${vehiculo.id}/history`, { headers: HEADERS_JSON })
+        // Resumen ya calculado en el servidor (antes: descargaba todo el historial para contarlo)
+        fetch(`${API_BASE_URL}/vehicles/${vehiculo.id}/summary`, { headers: HEADERS_JSON })
             .then(res => res.json())
             .then(data => {
                 setStats({
-                    total: data.length,
-                    preventive: data.filter(i => i.type === 'Preventivo').length,
-                    corrective: data.filter(i => i.type === 'Correctivo').length
+                    total: data.total || 0,
+                    preventive: data.preventive || 0,
+                    corrective: data.corrective || 0
                 });
             })
             .catch(err => console.error(err));
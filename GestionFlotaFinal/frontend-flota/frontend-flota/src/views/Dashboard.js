@@ -1,27 +1,38 @@
 import React from 'react';
 import { THEME } from '../config/theme';
-import { calcularMetricas, API_BASE_URL } from '../config/utils';
+import { API_BASE_URL, HEADERS_JSON } from '../config/utils';
 import { MetricCard } from '../components/UI';
 import DashboardCharts from '../components/DashboardCharts';
 import { Car, CheckCircle, AlertTriangle, Wrench } from 'lucide-react';
 
 const DashboardView = ({ vehiculos }) => {
-    const [maintenances, setMaintenances] = React.useState([]);
+    const [analytics, setAnalytics] = React.useState({ byMonth: [], byType: [] });
 
     React.useEffect(() => {
-        // Fetch separa el historial de mantenimientos
-        fetch(`${API_BASE_URL}/vehicles/maintenances/all`)
+        // Fetch de los acumulados ya calculados en el servidor (no el historial completo)
+        fetch(`${API_BASE_URL}/vehicles/maintenances/analytics`)
             .then(res => res.json())
-            .then(data => setMaintenances(data))
-            .catch(err => console.error("Error fetching history:", err));
+            .then(data => setAnalytics(data))
+            .catch(err => console.error("Error fetching analytics:", err));
     }, []);
 
-    const total = vehiculos.length;
+    // Conteo por estado calculado en la BD (facetas de /vehicles/query), no recorriendo la flota.
+    // Se vuelve a pedir cuando la lista cambia (alta, edición, baja).
+    const [statusCounts, setStatusCounts] = React.useState(null);
+    React.useEffect(() => {
+        fetch(`${API_BASE_URL}/vehicles/query?size=1`, { headers: HEADERS_JSON })
+            .then(res => res.json())
+            .then(data => setStatusCounts({ total: data.total, byStatus: data.facets.status }))
+            .catch(err => console.error("Error fetching status counts:", err));
+    }, [vehiculos]);
+
+    const total = statusCounts ? statusCounts.total : vehiculos.length;
     // CHANGE: Java usa "Available"
-    const activos = vehiculos.filter(v => v.status === 'Available' || v.status === 'Activo').length;
+    const activos = statusCounts
+        ? (statusCounts.byStatus['Available'] || 0) + (statusCounts.byStatus['Activo'] || 0)
+        : vehiculos.filter(v => v.status === 'Available' || v.status === 'Activo').length;
     // CHANGE: Cualquier cosa que no sea Available
-    const inactivos = vehiculos.filter(v => v.status !== 'Available' && v.status !== 'Activo').length;
-    const criticos = vehiculos.filter(v => calcularMetricas(v).estadoMant === 'ROJO').length;
+    const inactivos = total - activos;
 
     return (
         <div>
@@ -31,7 +42,7 @@ const DashboardView = ({ vehiculos }) => {
                 <MetricCard title="INACTIVO" value={inactivos} color="#ef4444" icon={Wrench} />
             </div>
 
-            <DashboardCharts vehiculos={vehiculos} maintenances={maintenances} />
+            <DashboardCharts vehiculos={vehiculos} analytics={analytics} />
         </div>
     );
 };
@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { estilos, THEME } from '../config/theme';
-import { API_BASE_URL, HEADERS_JSON, calcularMetricas } from '../config/utils';
+import { API_BASE_URL, HEADERS_JSON, SIN_VALOR, calcularMetricas } from '../config/utils';
 import { ProgressBar, StatusBadge } from '../components/UI';
 import { Truck, Activity, RotateCw, CheckCircle, Settings, Edit, Trash2, AlertTriangle, X, Search } from 'lucide-react';
 
@@ -9,9 +9,10 @@ const DeleteConfirmationModal = ({ vehicle, onConfirm, onCancel }) => {
 
     useEffect(() => {
         if (vehicle) {
-            fetch(`${API_BASE_URL}/vehicles/${vehicle.id}/history`, { headers: HEADERS_JSON })
-                .then(res => res.ok ? res.json() : [])
-                .then(data => setCount(Array.isArray(data) ? data.length : 0))
+            // Solo el conteo (1 fila en la BD), no el historial completo
+            fetch(`${API_BASE_URL}/vehicles/${vehicle.id}/summary`, { headers: HEADERS_JSON })
+                .then(res => res.ok ? res.json() : {})
+                .then(data => setCount(data.total || 0))
                 .catch(() => setCount(0));
         }
     }, [vehicle]);
@@ -84,8 +85,55 @@ const InventoryView = ({ vehiculos, recargar, notificar, onEdit, onConfig }) =>
     const [searchTerm, setSearchTerm] = useState('');
     const [showSuggestions, setShowSuggestions] = useState(false);
 
-    // Filtrado inteligente
-    const filteredVehicles = vehiculos.filter(v => {
+    const [searchResults, setSearchResults] = useState(null);
+
+    // Buscador del servidor (tolera errores de tipeo y guiones: "toyta", "abc1234").
+    // Espera a que el usuario deje de escribir y cancela la búsqueda anterior.
+    useEffect(() => {
+        const term = searchTerm.trim();
+        if (!term) {
+            setSearchResults(null);
+            return;
+        }
+        const controller = new AbortController();
+        const timer = setTimeout(() => {
+            fetch(`${API_BASE_URL}/vehicles/search?q=${encodeURIComponent(term)}&size=50`,
+                { headers: HEADERS_JSON, signal: controller.signal })
+                .then(res => res.ok ? res.json() : Promise.reject(res.status))
+                .then(data => setSearchResults(data.items))
+                .catch(err => { if (err.name !== 'AbortError') setSearchResults(null); });
+        }, 250);
+        return () => { clearTimeout(timer); controller.abort(); };
+    }, [searchTerm, vehiculos]);
+
+    // Filtros, orden y páginas del Inventario: los resuelve la BD (/vehicles/query) junto con
+    // los conteos por estado y marca, así el navegador no necesita ordenar toda la flota.
+    const PAGE_SIZE = 50;
+    const [filters, setFilters] = useState({ status: '', brand: '', sort: 'licensePlate,asc' });
+    const [page, setPage] = useState(0);
+    const [queryResult, setQueryResult] = useState(null);
+
+    useEffect(() => {
+        const params = new URLSearchParams({ sort: filters.sort, page, size: PAGE_SIZE });
+        if (filters.status) params.append('status', filters.status);
+        if (filters.brand) params.append('brand', filters.brand);
+        const controller = new AbortController();
+        fetch(`${API_BASE_URL}/vehicles/query?${params}`, { headers: HEADERS_JSON, signal: controller.signal })
+            .then(res => res.ok ? res.json() : Promise.reject(res.status))
+            .then(data => setQueryResult(data))
+            .catch(err => { if (err.name !== 'AbortError') setQueryResult(null); });
+        return () => controller.abort();
+    }, [filters, page, vehiculos]);
+
+    const cambiarFiltro = (campo, valor) => {
+        setFilters(prev => ({ ...prev, [campo]: valor }));
+        setPage(0);
+    };
+    const selectStyle = { ...estilos.input, width: 'auto', padding: '10px 14px' };
+    const totalPages = queryResult ? Math.max(1, Math.ceil(queryResult.total / PAGE_SIZE)) : 1;
+
+    // Filtrado inteligente: resultados del servidor; mientras llegan (o si falla), filtro local
+    const filteredVehicles = searchResults || (!searchTerm && queryResult && queryResult.items) || vehiculos.filter(v => {
         if (!searchTerm) return true;
         const term = searchTerm.toLowerCase();
         return v.licensePlate.toLowerCase().includes(term) ||
@@ -227,6 +275,36 @@ const InventoryView = ({ vehiculos, recargar, notificar, onEdit, onConfig }) =>
                 )}
             </div>
 
+            {/* --- FILTROS (conteos de la BD) --- */}
+            {queryResult && !searchTerm && (
+                <div style={{ display: 'flex', gap: '12px', marginBottom: '20px', flexWrap: 'wrap', alignItems: 'center' }}>
+                    <select value={filters.status} onChange={(e) => cambiarFiltro('status', e.target.value)} style={selectStyle}>
+                        <option value="">Todos los estados ({Object.values(queryResult.facets.status).reduce((a, b) => a + b, 0)})</option>
+                        {Object.entries(queryResult.facets.status).map(([estado, cantidad]) => (
+                            <option key={estado} value={estado}>{estado === SIN_VALOR ? 'Sin estado' : estado} ({cantidad})</option>
+                        ))}
+                    </select>
+                    <select value={filters.brand} onChange={(e) => cambiarFiltro('brand', e.target.value)} style={selectStyle}>
+                        <option value="">Todas las marcas ({Object.values(queryResult.facets.brand).reduce((a, b) => a + b, 0)})</option>
+                        {Object.entries(queryResult.facets.brand).map(([marca, cantidad]) => (
+                            <option key={marca} value={marca}>{marca} ({cantidad})</option>
+                        ))}
+                    </select>
+                    <select value={filters.sort} onChange={(e) => cambiarFiltro('sort', e.target.value)} style={selectStyle}>
+                        <option value="licensePlate,asc">Placa (A-Z)</option>
+                        <option value="mileage,desc">Mayor kilometraje</option>
+                        <option value="maintenanceUsage,desc">Mantenimiento más urgente</option>
+                        <option value="year,desc">Más nuevos</option>
+                        <option value="createdAt,desc">Registrados recientemente</option>
+                    </select>
+                    <span style={{ fontSize: '13px', color: '#6B7280' }}>
+                        {queryResult.total} vehículos • Página {page + 1} de {totalPages}
+                    </span>
+                    <button disabled={page === 0} onClick={() => setPage(page - 1)} style={{ ...selectStyle, cursor: 'pointer' }}>Anterior</button>
+                    <button disabled={page + 1 >= totalPages} onClick={() => setPage(page + 1)} style={{ ...selectStyle, cursor: 'pointer' }}>Siguiente</button>
+                </div>
+            )}
+
             <div style={{ ...estilos.tableCard, overflowX: 'visible', overflowY: 'visible', minHeight: '600px' }}>
                 {deleteTarget && (
                     <DeleteConfirmationModal
@@ -1,6 +1,6 @@
 import React, { useState, useRef } from 'react';
 import { estilos, THEME } from '../config/theme';
-import { API_BASE_URL, HEADERS_JSON } from '../config/utils';
+import { API_BASE_URL, HEADERS_JSON, setAuthToken } from '../config/utils';
 import { User, Lock, ArrowRight, Shield } from 'lucide-react';
 
 const Login = ({ setUser, showToast }) => {
@@ -56,7 +56,8 @@ const Login = ({ setUser, showToast }) => {
             })
             .then(data => {
                 if (data.status === "ok") {
-                    setUser({ nombre: username, role: data.role });
+                    setAuthToken(data.token);
+                    setUser({ nombre: username, role: data.role, token: data.token });
                     showToast(`Bienvenido, ${username}`, 'info');
                 } else {
                     showToast("Usuario o contraseña incorrectos", 'error');
@@ -1,13 +1,13 @@
 import React, { useState, useEffect } from 'react';
 import * as XLSX from 'xlsx';
 import { estilos, THEME } from '../config/theme';
-import { API_BASE_URL, HEADERS_JSON } from '../config/utils';
+import { API_BASE_URL, HEADERS_JSON, urlConToken } from '../config/utils';
 import { FormGroup } from '../components/UI';
 import { FileText, Search, Download, Calendar, DollarSign, List, Filter, Truck, Settings, Activity, AlertCircle } from 'lucide-react';
 
 const ReportsView = () => {
     const [activeTab, setActiveTab] = useState('global');
-    const [historialGlobal, setHistorialGlobal] = useState([]);
+    const [reporteMes, setReporteMes] = useState({ rows: [], totalCost: 0 });
     const [historialIndividual, setHistorialIndividual] = useState([]);
 
     // Inicialización del mes (Source Logic)
@@ -70,14 +70,18 @@ const ReportsView = () => {
         </div>
     );
 
+    // El servidor filtra por rango de fechas y suma el total (antes se descargaba todo el historial
+    // y se filtraba aquí con startsWith). Se vuelve a pedir cada vez que cambia el periodo.
     useEffect(() => {
+        const [año, mes] = mesFiltro.split('-');
+        const ultimoDia = new Date(parseInt(año), parseInt(mes), 0).getDate();
         setLoadingGlobal(true);
-        fetch(`${API_BASE_URL}/vehicles/maintenances/all`, { headers: HEADERS_JSON })
+        fetch(`${API_BASE_URL}/vehicles/maintenances/report?from=${mesFiltro}-01&to=${mesFiltro}-${ultimoDia}`, { headers: HEADERS_JSON })
             .then(res => res.json())
-            .then(data => setHistorialGlobal(Array.isArray(data) ? data : []))
+            .then(data => setReporteMes(Array.isArray(data.rows) ? data : { rows: [], totalCost: 0 }))
             .catch(err => console.error(err))
             .finally(() => setLoadingGlobal(false));
-    }, []);
+    }, [mesFiltro]);
 
     const buscarHistorialIndividual = (e) => {
         e.preventDefault();
@@ -97,17 +101,14 @@ const ReportsView = () => {
 
         setErrorPlaca("");
         setLoading(true);
-        fetch(`${API_BASE_URL}/vehicles/search/${placaBusqueda}`, { headers: HEADERS_JSON })
+        // Una sola llamada: placa -> vehículo + historial (antes eran 2 peticiones seguidas)
+        fetch(`${API_BASE_URL}/vehicles/search/${placaBusqueda}/history`, { headers: HEADERS_JSON })
             .then(res => {
                 if (!res.ok) throw new Error("Vehículo no encontrado");
                 return res.json();
             })
-            .then(vehiculo => {
-                return fetch(`${API_BASE_URL}/vehicles/${vehiculo.id}/history`, { headers: HEADERS_JSON });
-            })
-            .then(res => res.json())
             .then(data => {
-                setHistorialIndividual(Array.isArray(data) ? data : []);
+                setHistorialIndividual(Array.isArray(data.history) ? data.history : []);
                 setSearchPerformed(true);
                 setLoading(false);
             })
@@ -136,8 +137,20 @@ const ReportsView = () => {
         XLSX.writeFile(workbook, `${fileName}.xlsx`);
     };
 
-    const reporteFiltrado = historialGlobal.filter(h => h.date && h.date.startsWith(mesFiltro));
-    const totalGasto = reporteFiltrado.reduce((sum, h) => sum + (h.cost || 0), 0);
+    // Reporte mensual grande: el servidor genera el CSV por partes (streaming),
+    // así el navegador no arma el Excel con todo el historial en memoria.
+    // El enlace no puede llevar 'Authorization': va con un token de enlace en la URL.
+    const exportarDesdeServidor = async (mes) => {
+        const link = document.createElement('a');
+        link.href = await urlConToken(`/vehicles/maintenances/export?month=${mes}`);
+        link.download = `Reporte_Global_${mes}.csv`;
+        document.body.appendChild(link);
+        link.click();
+        document.body.removeChild(link);
+    };
+
+    const reporteFiltrado = reporteMes.rows;
+    const totalGasto = reporteMes.totalCost || 0;
 
     return (
         <div style={{ display: 'flex', flexDirection: 'column', gap: '30px' }}>
@@ -266,7 +279,7 @@ const ReportsView = () => {
                             </div>
 
                             <button
-                                onClick={() => exportToExcel(reporteFiltrado, `Reporte_Global_${mesFiltro}`)}
+                                onClick={() => exportarDesdeServidor(mesFiltro)}
                                 style={{
                                     ...estilos.btnExcel,
                                     height: '56px',